@@ -1,131 +1,153 @@
 package pl.izertp.knowledgeproduction.core;
 
 import java.util.HashSet;
-import java.util.Random;
 import java.util.Set;
 
-import lombok.Getter;
-import lombok.Setter;
-
 /**
  * A class of a single agent - an unit which can develop knowledge and propagate knowledge
  * to other agents.
+ * The agent is a view of a row of a Population, which keeps the state of all the agents.
+ * Agents created with the public constructors get their own single-agent population.
  * 
  * @author Piotr Izert
  */
 public class Agent {
 
     /**
-     * Size of the knowledge set.
+     * Population holding the state of the agent.
      */
-    @Getter
-    private int knowledgeSize;
+    private Population population;
 
     /**
-     * Structure of the knowledge (with the hypergraph).
+     * Index of the agent in the population.
      */
-    @Getter
-    private KnowledgeStructure knowledgeStructure;
+    private int index;
 
     /**
-     * KnowledgeStructure setter. It also sets knowledgeSize.
+     * True, if the population was created for this agent only, so it can be replaced
+     * when the knowledge size changes.
+     */
+    private boolean standalone;
+
+    /**
+     * Creates a view of an agent of the population.
      * 
-     * @param knowledgeStructure
+     * @param population population of agents
+     * @param index index of the agent in the population
      */
-    public void setKnowledgeStructure(KnowledgeStructure knowledgeStructure) {
-        this.knowledgeStructure = knowledgeStructure;
-        this.knowledgeSize = knowledgeStructure.getSize();
+    Agent(Population population, int index) {
+        this.population = population;
+        this.index = index;
     }
 
     /**
-     * Chance of producing knowledge == (1 - propagationChance).
+     * Creates an Agent object.
+     * The agent gets randomly selected elements from the set of base elements of given
+     * KnowledgeStructure. A chance of selecting any of the base elements is given as
+     * a parameter.
+     * 
+     * @param knowledgeStructure structure of knowledge
+     * @param baseElementChance chance at which base elements will be selected ,must be [0,1]
+     * @param productionChance chance of producing knowledge == (1 - propagationChance), must be [0,1]
      */
-    @Getter
-    @Setter
-    private double productionChance;
+    public Agent(KnowledgeStructure knowledgeStructure, double baseElementChance, double productionChance, double tradeProbability) {
+        // TODO: check args 0-1
+        this.population = new HeapPopulation(knowledgeStructure, 1);
+        this.standalone = true;
+        // sets the initial knowledge and the set of elements possible to develop
+        population.drawAgents(baseElementChance, productionChance, tradeProbability);
+    }
 
     /**
-     * Represents current state of agent's knowledge.
+     * Empty constructor. Note, that knowledgeStructure, knowledgeSet and
+     * productionChance must be set manually.
+     * After setting initial knowledge set and graph, initAgent method must be called.
      */
-    private boolean[] knowledgeSet;
+    public Agent() {
+        this.population = new HeapPopulation(null, 1, 0);
+        this.standalone = true;
+    }
 
-    public void setKnowledgeSet(boolean[] knowledgeSet) {
-        this.knowledgeSet = knowledgeSet;
-        this.knowledgeSize = knowledgeSet.length;
+    /**
+     * @return size of the knowledge set
+     */
+    public int getKnowledgeSize() {
+        return population.getKnowledgeSize();
+    }
+
+    /**
+     * @return structure of the knowledge (with the hypergraph)
+     */
+    public KnowledgeStructure getKnowledgeStructure() {
+        return population.getKnowledgeStructure();
     }
 
     /**
-     * Elements of knowledge possible to develop with the present state of knowledge,
-     * which arent already developed.
+     * KnowledgeStructure setter. It also sets knowledgeSize.
+     * Only agents created with the public constructors can change their structure.
+     * 
+     * @param knowledgeStructure
      */
-    private Set<Integer> possibleElements;
+    public void setKnowledgeStructure(KnowledgeStructure knowledgeStructure) {
+        if (knowledgeStructure != getKnowledgeStructure()) {
+            replacePopulation(knowledgeStructure, knowledgeStructure.getSize());
+        }
+    }
 
     /**
-     * True, if the agent will only share his knowledge in a trade process, i.e.
-     * it will only share his knowledge if it gets a new piece of knowledge in exchange.
-     * False, if the agent will share its knowledge "for free".
+     * Chance of producing knowledge == (1 - propagationChance).
      */
-    @Getter
-    @Setter
-    private boolean trade;
-    
-    @Getter
-    private int[] gotFrom;
+    public double getProductionChance() {
+        return population.getProductionChance(index);
+    }
+
+    public void setProductionChance(double productionChance) {
+        population.setProductionChance(index, productionChance);
+    }
 
     /**
-     * Creates an Agent object.
-     * The agent gets randomly selected elements from the set of base elements of given
-     * KnowledgeStructure. A chance of selecting any of the base elements is given as
-     * a parameter.
+     * Sets agent's knowledge.
      * 
-     * @param knowledgeStructure structure of knowledge
-     * @param baseElementChance chance at which base elements will be selected ,must be [0,1]
-     * @param productionChance chance of producing knowledge == (1 - propagationChance), must be [0,1]
+     * @param knowledgeSet true for every element the agent has
      */
-    public Agent(KnowledgeStructure knowledgeStructure, double baseElementChance, double productionChance, double tradeProbability) {
-        // TODO: check args 0-1
-        this.knowledgeStructure = knowledgeStructure;
-        this.knowledgeSize = knowledgeStructure.getSize();
-        this.productionChance = productionChance;
-        this.trade = tradeProbability > new Random().nextDouble();
-        this.knowledgeSet = new boolean[knowledgeSize];
-
-        // set the initial knowledge
-        Random random = new Random();
-        for (int i = 0; i < knowledgeStructure.getBaseSize(); i++) {
-            if (random.nextDouble() < baseElementChance) {
-                knowledgeSet[i] = true;
-            }
+    public void setKnowledgeSet(boolean[] knowledgeSet) {
+        if (knowledgeSet.length != getKnowledgeSize()) {
+            KnowledgeStructure structure = getKnowledgeStructure();
+            replacePopulation(structure != null && structure.getSize() == knowledgeSet.length ? structure : null, knowledgeSet.length);
         }
+        population.setKnowledgeSet(index, knowledgeSet);
+    }
 
-        // initialize the set of elements possible to develop
-        initAgent();
+    /**
+     * True, if the agent will only share his knowledge in a trade process, i.e.
+     * it will only share his knowledge if it gets a new piece of knowledge in exchange.
+     * False, if the agent will share its knowledge "for free".
+     */
+    public boolean isTrade() {
+        return population.isTrade(index);
+    }
+
+    public void setTrade(boolean trade) {
+        population.setTrade(index, trade);
     }
 
     /**
-     * Empty constructor. Note, that knowledgeStructure, knowledgeSet and
-     * productionChance must be set manually.
-     * After setting initial knowledge set and graph, initAgent method must be called.
+     * @param element knowledge element
+     * @return agent, from which the element was got, -1 if it was produced
      */
-    public Agent() {
+    public int getGotFrom(int element) {
+        return population.getGotFrom(index, element);
+    }
 
+    public void setGotFrom(int element, int agentIndex) {
+        population.setGotFrom(index, element, agentIndex);
     }
 
     /**
-     * Method, which initializes agent's possibleElements set.
+     * Method, which initializes agent's set of elements possible to develop.
      */
     public void initAgent() {
-        this.gotFrom = new int[knowledgeSize];
-        possibleElements = new HashSet<Integer>();
-        for (int i = 0; i < knowledgeSize; i++) {
-            if (!knowledgeSet[i])
-                continue;
-            for (int j = i + 1; j < knowledgeSize; j++) {
-                if (!knowledgeSet[j])
-                    continue;
-                possibleElements.addAll(knowledgeStructure.getResultElements(i, j));
-            }
-        }
+        population.initAgent(index);
     }
 
     /**
@@ -135,17 +157,7 @@ public class Agent {
      * @return true if element was already present, false if not
      */
     public boolean addKnowledgeElement(int n) {
-        if (n >= knowledgeSize) {
-            throw new IndexOutOfBoundsException("Index of knowledge element to add out of bounds");
-        }
-        if (knowledgeSet[n]) {
-            return true;
-        }
-        knowledgeSet[n] = true;
-        for (int i : getHaveKnowledge()) {
-            possibleElements.addAll(knowledgeStructure.getResultElements(n, i));
-        }
-        return false;
+        return population.addKnowledgeElement(index, n);
     }
 
     /**
@@ -155,39 +167,43 @@ public class Agent {
      * @return index of produced element, -1, if nothing was produced
      */
     public int produceKnowledge() {
-        Integer element = Utils.getRandomSetElement(possibleElements);
-        if (element != null) {
-            this.addKnowledgeElement(element);
-            possibleElements.remove(element);
-            this.gotFrom[element] = -1;
-            return element;
-        }
-        return -1;
+        return population.produceKnowledge(index);
+    }
+
+    /**
+     * Single step of knowledge development, picking the element with the given generator.
+     * 
+     * @param random random number generator
+     * @return index of produced element, -1, if nothing was produced
+     */
+    public int produceKnowledge(RandomSource random) {
+        return population.produceKnowledge(index, random);
     }
 
     /**
      * Returns the list of knowledge elements this agent has.
+     * Creates a new set - the simulation itself reads the population rows.
      * 
      * @return list of knowledge elements this agent has
      */
     public Set<Integer> getHaveKnowledge() {
         Set<Integer> haveKnowledge = new HashSet<Integer>();
-        for (int i = 0; i < knowledgeSize; i++) {
-            if (knowledgeSet[i])
-                haveKnowledge.add(i);
+        for (int i = nextKnowledgeElement(0); i >= 0; i = nextKnowledgeElement(i + 1)) {
+            haveKnowledge.add(i);
         }
         return haveKnowledge;
     }
 
     /**
      * Returns the list of knowledge elements this agent doesnt have.
+     * Creates a new set - the simulation itself reads the population rows.
      * 
      * @return list of knowledge elements this agent doesnt have
      */
     public Set<Integer> getDoesntHaveKnowledge() {
         Set<Integer> doesntHaveKnowledge = new HashSet<Integer>();
-        for (int i = 0; i < knowledgeSize; i++) {
-            if (!knowledgeSet[i])
+        for (int i = 0; i < getKnowledgeSize(); i++) {
+            if (!hasKnowledgeElement(i))
                 doesntHaveKnowledge.add(i);
         }
         return doesntHaveKnowledge;
@@ -200,7 +216,7 @@ public class Agent {
      * @return true, if the agent has this element, false otherwise
      */
     public boolean hasKnowledgeElement(int i) {
-        return knowledgeSet[i];
+        return population.hasKnowledgeElement(index, i);
     }
 
     /**
@@ -209,7 +225,81 @@ public class Agent {
      * @return total number of knowledge elements
      */
     public int getKnowledgeTotalCount() {
-        return getHaveKnowledge().size();
+        return population.getKnowledgeCount(index);
+    }
+
+    Population getPopulation() {
+        return population;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @param from first element to check
+     * @return the first element of the agent not smaller than from, -1 if there is none
+     */
+    int nextKnowledgeElement(int from) {
+        return population.nextKnowledgeElement(index, from);
+    }
+
+    /**
+     * @param k index of the element, counted from 0
+     * @return k-th element of the agent in ascending order, -1 if the agent has not more than k elements
+     */
+    int selectKnowledgeElement(int k) {
+        return population.selectKnowledgeElement(index, k);
+    }
+
+    /**
+     * Counts the elements of this agent, which the other agent doesn't have (have & ~otherHave).
+     * 
+     * @param other agent with the same knowledge size
+     * @return number of elements missing in the other agent
+     */
+    int countMissingIn(Agent other) {
+        checkSameSize(other);
+        return population.countMissing(index, other.population, other.index);
+    }
+
+    /**
+     * @param other agent with the same knowledge size
+     * @param k index of the element, counted from 0
+     * @return k-th element of this agent, which the other agent doesn't have, -1 if there is none
+     */
+    int selectMissingIn(Agent other, int k) {
+        checkSameSize(other);
+        return population.selectMissing(index, other.population, other.index, k);
+    }
+
+    private void checkSameSize(Agent other) {
+        if (other.getKnowledgeSize() != getKnowledgeSize()) {
+            throw new IllegalArgumentException("Agents must have the same knowledge size");
+        }
+    }
+
+    /**
+     * Moves a standalone agent to a new single-agent population, keeping its parameters
+     * and its knowledge, if the knowledge size doesn't change.
+     */
+    private void replacePopulation(KnowledgeStructure knowledgeStructure, int knowledgeSize) {
+        if (!standalone) {
+            throw new IllegalStateException("Knowledge size of an agent of a population can't be changed");
+        }
+        Population replacement = new HeapPopulation(knowledgeStructure, 1, knowledgeSize);
+        replacement.setProductionChance(0, getProductionChance());
+        replacement.setTrade(0, isTrade());
+        if (knowledgeSize == getKnowledgeSize()) {
+            boolean[] knowledgeSet = new boolean[knowledgeSize];
+            for (int i = 0; i < knowledgeSize; i++) {
+                knowledgeSet[i] = hasKnowledgeElement(i);
+            }
+            replacement.setKnowledgeSet(0, knowledgeSet);
+        }
+        // markets caching the agent as a trader of the previous population see it changed
+        population.tradeFlagsChanged();
+        population = replacement;
     }
 
     @Override
@@ -217,17 +307,17 @@ public class Agent {
         StringBuilder sb = new StringBuilder();
         sb.append("--AGENT--\n");
         sb.append("KnowledgeStructue graph:\n");
-        sb.append(this.knowledgeStructure);
+        sb.append(getKnowledgeStructure());
         sb.append("Knowledge set:\n");
-        for (int i = 0; i < knowledgeSize; i++) {
+        for (int i = 0; i < getKnowledgeSize(); i++) {
             sb.append(String.format("%d\t", i));
         }
         sb.append("\n");
-        for (int i = 0; i < knowledgeSize; i++) {
-            sb.append(String.format("%b\t", knowledgeSet[i]));
+        for (int i = 0; i < getKnowledgeSize(); i++) {
+            sb.append(String.format("%b\t", hasKnowledgeElement(i)));
         }
         sb.append("\nElements possible to develop:\n");
-        sb.append(possibleElements);
+        sb.append(population.getPossibleElements(index));
         return sb.toString();
     }
 
@@ -1,15 +1,11 @@
 package pl.izertp.knowledgeproduction.core;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-
+import lombok.Getter;
 import lombok.Setter;
-import pl.izertp.knowledgeproduction.graph.AdjacencyListGraph;
-import pl.izertp.knowledgeproduction.graph.ErdosRenyiCreator;
+import pl.izertp.knowledgeproduction.graph.CompressedGraph;
 import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.GraphFactory;
+import pl.izertp.knowledgeproduction.graph.GraphRepresentation;
 
 /**
  * Structure of agents. Holds the connections between agents,
@@ -28,31 +24,75 @@ public class AgentStructure {
     /**
      * Array of agents.
      */
+    @Getter
     @Setter
     private Agent[] agents;
 
     /**
-     * Array of lists of agents' neighbors.
+     * Agents' connection graph used for neighbor lookups - agentsGraph itself, the built
+     * graph, if agentsGraph is a CompressedSparseRowGraph.Builder, or its compressed copy,
+     * if it's bigger than compressionThreshold.
+     */
+    @Getter
+    private Graph neighborGraph;
+
+    /**
+     * Number of connections, above which a CSR agents' graph is compressed for neighbor
+     * lookups. Used by initNeighborList.
      */
-    private List<Agent>[] neighborList;
+    @Setter
+    private long compressionThreshold = GraphRepresentation.COMPRESSION_THRESHOLD;
+
+    /**
+     * Trades between neighboring trading agents.
+     */
+    private TradeMarket tradeMarket;
 
     /**
      * Number of agents.
      */
     private int size;
 
+    /**
+     * Chance of rewiring one of agent's connections before its action. Rewiring requires
+     * an agents' graph supporting removeEdge (e.g. DynamicGraph).
+     */
+    @Getter
+    @Setter
+    private double rewiringProbability;
+
+    /**
+     * Random number generator of all the actions.
+     */
+    @Setter
+    private RandomSource random = new Xoroshiro128PlusPlus();
+
     /**
      * Initializes the object with given array of agents.
      * Agents' connection graph is initialized as Erdos-Renyi graph by helper class.
-     * neighborList is also initialized.
      * 
      * @param agents array of agents
+     * @param connectionNumber number of connections between agents
      */
     public AgentStructure(Agent[] agents, int connectionNumber) {
+        this(agents, GraphFactory.erdosRenyi(connectionNumber));
+    }
+
+    /**
+     * Initializes the object with given array of agents.
+     * Agents' connection graph is created by the given factory, so any network topology
+     * can be used.
+     * 
+     * @param agents array of agents
+     * @param networkFactory factory of the agents' connection graph
+     */
+    public AgentStructure(Agent[] agents, GraphFactory networkFactory) {
         this.agents = agents;
         size = agents.length;
-        agentsGraph = new AdjacencyListGraph(size);
-        ErdosRenyiCreator.InitErdosRenyiGraph(agentsGraph, connectionNumber);
+        agentsGraph = networkFactory.createGraph(size);
+        if (agentsGraph.getSize() != size) {
+            throw new IllegalArgumentException("Size of the agents' graph must be equal to the number of agents");
+        }
         initNeighborList();
     }
 
@@ -64,16 +104,19 @@ public class AgentStructure {
     }
 
     /**
-     * Initializes the neighborList array - must be called after setting agents and agentsGraph.
+     * Initializes the neighbor lookup structure - must be called after setting agents and agentsGraph.
+     * Neighbors are read through the primitive accessors of agentsGraph, so no copy is made.
+     * Only a CompressedSparseRowGraph.Builder is built first, and a CompressedSparseRowGraph with
+     * more than compressionThreshold connections is replaced with a CompressedGraph.
      */
-    // array of lists warning - type check
-    @SuppressWarnings("unchecked")
     public void initNeighborList() {
         size = agents.length;
-        neighborList = new List[size];
-        for (int i = 0; i < size; i++) {
-            neighborList[i] = getNeighbors(i);
+        neighborGraph = GraphRepresentation.forLookup(agentsGraph, compressionThreshold);
+        if (neighborGraph instanceof CompressedGraph) {
+            // the uncompressed graph is not kept
+            agentsGraph = neighborGraph;
         }
+        tradeMarket = new TradeMarket(agents, neighborGraph);
     }
 
     /**
@@ -84,26 +127,114 @@ public class AgentStructure {
      * @return true, if action returned an effect (knowledge was actually propagated or produced)
      */
     public boolean makeStep(int agentIndex) {
-        double random = new Random().nextDouble();
+        return makeStep(agentIndex, random);
+    }
+
+    /**
+     * A single action of the agent drawing from the given generator. The action changes only
+     * the agent and its neighbors, so actions of agents with disjoint neighborhoods may run
+     * concurrently (with separate generators), if the agents' graph is not rewired.
+     * 
+     * @param agentIndex index of the agent, which will perform action
+     * @param random random number generator
+     * @return true, if action returned an effect (knowledge was actually propagated or produced)
+     */
+    public boolean makeStep(int agentIndex, RandomSource random) {
+        if (rewiringProbability > 0 && random.nextDouble() < rewiringProbability) {
+            rewireConnection(agentIndex, random);
+        }
         double productionChance = agents[agentIndex].getProductionChance();
-        if (random < productionChance) {
-            return produceKnowledge(agentIndex);
+        if (random.nextDouble() < productionChance) {
+            return produceKnowledge(agentIndex, random);
         } else {
             if (agents[agentIndex].isTrade())
-                return tradeKnowledge(agentIndex);
+                return tradeKnowledge(agentIndex, random);
             else
-                return propagateKnowledge(agentIndex, true);
+                return propagateKnowledge(agentIndex, true, random);
+        }
+    }
+
+    /**
+     * Plans the action of the agent without changing any agent - the elements, which
+     * the action would add, are recorded in the updates. The random draws are the same as in
+     * makeStep, but propagation is always targeted and rewiring is not done. The only change
+     * made is removing the element picked for production from the agent's possible elements.
+     * Actions of all the agents may be planned concurrently, with separate generators.
+     * 
+     * @param agentIndex index of the agent, whose action is planned
+     * @param random random number generator
+     * @param updates updates of the agents' actions
+     */
+    void planStep(int agentIndex, RandomSource random, PendingUpdates updates) {
+        updates.clear(agentIndex);
+        Agent agent = agents[agentIndex];
+        if (random.nextDouble() < agent.getProductionChance()) {
+            IndexedIntSet possibleElements = agent.getPopulation().getPossibleElements(agent.getIndex());
+            int element = possibleElements.randomElement(random);
+            // a known element wastes the step, like in produceKnowledge
+            if (possibleElements.remove(element) && !agent.hasKnowledgeElement(element)) {
+                updates.add(agentIndex, agentIndex, element, -1);
+            }
+        } else if (agent.isTrade()) {
+            tradeMarket.planTrade(agentIndex, random, updates);
+        } else {
+            int neighborCount = neighborGraph.getDegree(agentIndex);
+            if (neighborCount == 0) {
+                return;
+            }
+            int neighborIndex = neighborGraph.getNeighbor(agentIndex, random.nextInt(neighborCount));
+            int possibleCount = agent.countMissingIn(agents[neighborIndex]);
+            if (possibleCount > 0) {
+                updates.add(agentIndex, neighborIndex, agent.selectMissingIn(agents[neighborIndex], random.nextInt(possibleCount)), agentIndex);
+            }
         }
     }
 
+    /**
+     * Prepares the structure for actions run concurrently - builds the trading neighbors.
+     */
+    void prepareConcurrentSteps() {
+        tradeMarket.build();
+    }
+
+    /**
+     * Rewires one of agent's connections - a randomly selected neighbor is replaced with
+     * a randomly selected agent, which is not connected to the agent yet. The change is seen
+     * immediately by propagation and trade, as they read the same graph.
+     * 
+     * @param agentIndex index of the agent, whose connection is rewired
+     * @return true, if a connection was rewired (false, when the agent has no neighbors
+     *         or is connected to all the other agents)
+     * @throws UnsupportedOperationException when the agents' graph doesn't support removing edges
+     */
+    public boolean rewireConnection(int agentIndex) {
+        return rewireConnection(agentIndex, random);
+    }
+
+    private boolean rewireConnection(int agentIndex, RandomSource random) {
+        int neighborCount = neighborGraph.getDegree(agentIndex);
+        if (neighborCount == 0 || neighborCount >= size - 1) {
+            return false;
+        }
+        int oldNeighbor = neighborGraph.getNeighbor(agentIndex, random.nextInt(neighborCount));
+        int newNeighbor;
+        do {
+            newNeighbor = random.nextInt(size);
+        } while (newNeighbor == agentIndex || neighborGraph.getEdge(agentIndex, newNeighbor));
+        neighborGraph.removeEdge(agentIndex, oldNeighbor);
+        neighborGraph.addEdge(agentIndex, newNeighbor);
+        tradeMarket.invalidate();
+        return true;
+    }
+
     /**
      * Simulates agent's knowledge production (uses Agent internal method).
      * 
      * @param agentIndex index of the agent which will produce knowledge
      * @return true, if some knowledge was produced, false otherwise
      */
-    private boolean produceKnowledge(int agentIndex) {
-        int producedKnowledge = agents[agentIndex].produceKnowledge();
+    private boolean produceKnowledge(int agentIndex, RandomSource random) {
+        int producedKnowledge = agents[agentIndex].produceKnowledge(random);
         if (producedKnowledge < 0) {
             // System.out.println(String.format("Agent %d didn't produce knowledge", agentIndex));
             return false;
@@ -125,21 +256,20 @@ public class AgentStructure {
      * @param target if true, element is selected from the set of elements possessed
      *        by the agent and not possessed by the neighbor, else the element is selected
      *        randomly
+     * @param random random number generator
      * @return true, if the knowledge was passed
      */
-    private boolean propagateKnowledge(int agentIndex, boolean target) {
-        Random random = new Random();
-
+    private boolean propagateKnowledge(int agentIndex, boolean target, RandomSource random) {
         Agent propagatingAgent = agents[agentIndex];
-        int neighborCount = neighborList[agentIndex].size();
+        int neighborCount = neighborGraph.getDegree(agentIndex);
         if (neighborCount == 0) {
             // System.out.println(String.format("Agent %d doesn't have any neighbors, so he doesn't propagate knowledge", agentIndex));
             return false;
         }
         int randomNeighborIndex = random.nextInt(neighborCount);
-        Agent randomNeighbor = neighborList[agentIndex].get(randomNeighborIndex);
-        Set<Integer> knowledgeToPropagate = propagatingAgent.getHaveKnowledge();
-        if (knowledgeToPropagate.size() == 0) {
+        Agent randomNeighbor = agents[neighborGraph.getNeighbor(agentIndex, randomNeighborIndex)];
+        int knowledgeCount = propagatingAgent.getKnowledgeTotalCount();
+        if (knowledgeCount == 0) {
             // System.out.println(String.format("Agent %d doesn't have any knowledge", agentIndex));
             return false;
         }
@@ -147,25 +277,23 @@ public class AgentStructure {
         int elementToPropagate;
 
         if (!target) {
-            elementToPropagate = Utils.getRandomSetElement(knowledgeToPropagate);
+            elementToPropagate = propagatingAgent.selectKnowledgeElement(random.nextInt(knowledgeCount));
         } else {
-            Set<Integer> agentKnowledgeSet = propagatingAgent.getHaveKnowledge();
-            Set<Integer> neighborDoesntHaveSet = randomNeighbor.getDoesntHaveKnowledge();
-            List<Integer> possibleElements = new ArrayList<Integer>();
-            for (int agentElement : agentKnowledgeSet) {
-                if (neighborDoesntHaveSet.contains(agentElement))
-                    possibleElements.add(agentElement);
-            }
-            if (possibleElements.size() == 0) {
+            // elements possessed by the agent and not possessed by the neighbor: have & ~neighborHave
+            int possibleCount = propagatingAgent.countMissingIn(randomNeighbor);
+            if (possibleCount == 0) {
                 // TODO: some log here
                 return false;
             }
-            Collections.shuffle(possibleElements);
-            elementToPropagate = possibleElements.get(0);
+            elementToPropagate = propagatingAgent.selectMissingIn(randomNeighbor, random.nextInt(possibleCount));
+            if (elementToPropagate < 0) {
+                // the neighbor learned the missing elements in the meantime (see AtomicPopulation)
+                return false;
+            }
         }
         boolean effect = !(randomNeighbor.addKnowledgeElement(elementToPropagate));
         if (effect) {
-            randomNeighbor.getGotFrom()[elementToPropagate] = agentIndex;
+            randomNeighbor.setGotFrom(elementToPropagate, agentIndex);
             // System.out.println(String.format("Agent %d passed some knowledge to agent %d", agentIndex, Arrays.asList(agents).indexOf(randomNeighbor)));
         } else {
             // System.out.println(String.format("Agent %d didn't pass any knowledge to agent %d", agentIndex, Arrays.asList(agents).indexOf(randomNeighbor)));
@@ -174,93 +302,32 @@ public class AgentStructure {
     }
 
     /**
-     * Performs a trade process of given agent. Looks for neighboring trading agents,
-     * picks a random one and checks, if there are any possible trades. If there are, picks a random trade and performs it.
+     * Performs a trade process of given agent. Picks a random neighboring trading agent and
+     * checks, if there are any possible trades. If there are, picks a random trade and performs it.
      * 
      * @param agentIndex index of agent, which will trade
      * @return true, if trade took place
      * @throws IllegalStateException when given agent is not a trading agent
      */
     public boolean tradeKnowledge(int agentIndex) {
-        Agent tradingAgent = agents[agentIndex];
-        if (!tradingAgent.isTrade()) {
-            throw new IllegalStateException(String.format("Agent %d is not a trading agent", agentIndex));
-        }
-
-        int neighborCount = neighborList[agentIndex].size();
-        if (neighborCount == 0) {
-            // System.out.println(String.format("Agent %d doesn't have any neighbors, so he doesn't trade knowledge", agentIndex));
-            return false;
-        }
-
-        List<Agent> tradeNeighbors = new ArrayList<Agent>();
-        for (Agent a : neighborList[agentIndex]) {
-            if (a.isTrade())
-                tradeNeighbors.add(a);
-        }
-        if (tradeNeighbors.size() == 0) {
-            // System.out.println(String.format("Agent %d doesn't have any trade neighbors, so he doesn't trade knowledge", agentIndex));
-            return false;
-        }
-        Collections.shuffle(tradeNeighbors);
-        Agent partnerAgent = tradeNeighbors.get(0);
-
-        int[] knowledgeToTrade = getRandomPossibleTrade(tradingAgent, partnerAgent);
-        if (knowledgeToTrade == null) {
-            // System.out.println(String.format("Agent %d doesn't trade knowledge, because he has nothing to trade with his neighbor", agentIndex));
-            return false;
-        }
-
-        boolean tradeGot = tradingAgent.addKnowledgeElement(knowledgeToTrade[1]);
-        boolean partnerGot = partnerAgent.addKnowledgeElement(knowledgeToTrade[0]);
-        if (tradeGot || partnerGot)
-            throw new IllegalStateException("Trade didnt take place");
-        return true;
+        return tradeKnowledge(agentIndex, random);
     }
 
-    /**
-     * Helper method used to initialize neighborList.
-     * 
-     * @param index index of the agent
-     * @return list of its neighbors
-     */
-    private List<Agent> getNeighbors(int index) {
-        List<Agent> agentList = new ArrayList<Agent>();
-        List<Integer> indexList = agentsGraph.getNeighbors(index);
-        for (Integer i : indexList) {
-            agentList.add(agents[i]);
+    private boolean tradeKnowledge(int agentIndex, RandomSource random) {
+        if (!agents[agentIndex].isTrade()) {
+            throw new IllegalStateException(String.format("Agent %d is not a trading agent", agentIndex));
         }
-        return agentList;
+        return tradeMarket.trade(agentIndex, random);
     }
 
     /**
-     * Returns a pair of elements, which can be traded. First element in returned array is
-     * an element from 'trading' agent's knowledge set and second element of the array is
-     * an element from its partner's set.
-     *
-     * @param tradingAgent agent, which wants to trade his knowledge
-     * @param partnerAgent agent, with which the knowledge is traded
-     * @return 2-element array of indices
+     * Performs a whole round of trades - every trading agent trades at most once, with one of
+     * its neighbors, with which a trade is possible (see TradeMarket.tradeRound).
+     * 
+     * @return number of trades, which took place
      */
-    private int[] getRandomPossibleTrade(Agent tradingAgent, Agent partnerAgent) {
-        List<Integer> possibleTrades = new ArrayList<Integer>();
-        List<Integer> possiblePartner = new ArrayList<Integer>();
-        Set<Integer> tradingSet = tradingAgent.getHaveKnowledge();
-        Set<Integer> partnerSet = partnerAgent.getHaveKnowledge();
-        for (int tradeElement : tradingSet) {
-            if (!partnerSet.contains(tradeElement))
-                possibleTrades.add(tradeElement);
-        }
-        for (int partnerElement : partnerSet) {
-            if (!tradingSet.contains(partnerElement))
-                possiblePartner.add(partnerElement);
-        }
-        if (possibleTrades.size() == 0 || possiblePartner.size() == 0) {
-            return null;
-        }
-        Collections.shuffle(possibleTrades);
-        Collections.shuffle(possiblePartner);
-        return new int[] { possibleTrades.get(0), possiblePartner.get(0) };
+    public int tradeRound() {
+        return tradeMarket.tradeRound(random);
     }
 
 }
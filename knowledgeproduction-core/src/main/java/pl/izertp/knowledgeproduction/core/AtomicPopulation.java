@@ -0,0 +1,173 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Population, whose agents may act concurrently without any coordination (see HogwildEngine).
+ * Bits of the knowledge matrix are set with compare-and-set, so exactly one of the threads
+ * adding an element to an agent succeeds and counts it. Elements possible to develop
+ * are guarded by striped locks, taken after the bit is set, so a recipe, whose parents
+ * are learned concurrently, is seen by at least one of the threads.
+ * Readers of the rows (propagation, trade, statistics) see each word atomically, but
+ * a row as a whole only with relaxed consistency.
+ * Production chances and trade flags must be set before agents start acting concurrently.
+ */
+public class AtomicPopulation extends Population {
+
+    /**
+     * Maximal number of locks guarding the elements possible to develop.
+     */
+    private static final int MAX_LOCK_STRIPES = 1024;
+
+    /**
+     * Knowledge matrix - bitsets of all the agents, row by row.
+     */
+    private final AtomicLongArray knowledge;
+
+    /**
+     * Number of elements in every row of the knowledge matrix.
+     */
+    private final AtomicIntegerArray knowledgeCounts;
+
+    private final double[] productionChances;
+
+    /**
+     * Trade flags of the agents as a bitset.
+     */
+    private final long[] tradeFlags;
+
+    /**
+     * Agent, from which every element was got (-1 for produced elements), row by row
+     * like the knowledge matrix. Written only by the thread, which has set the element's bit.
+     */
+    private final int[] gotFrom;
+
+    /**
+     * Agent a uses the lock locks[a & (locks.length - 1)].
+     */
+    private final Object[] locks;
+
+    /**
+     * Creates a population of agents without any knowledge.
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @throws IllegalArgumentException when size * knowledge size exceeds Integer.MAX_VALUE
+     */
+    public AtomicPopulation(KnowledgeStructure knowledgeStructure, int size) {
+        super(knowledgeStructure, size, knowledgeStructure.getSize());
+        int gotFromLength = rowsLength(size, getKnowledgeSize());
+        this.knowledge = new AtomicLongArray(rowsLength(size, getWordCount()));
+        this.knowledgeCounts = new AtomicIntegerArray(size);
+        this.productionChances = new double[size];
+        this.tradeFlags = new long[KnowledgeBits.wordCount(size)];
+        this.gotFrom = new int[gotFromLength];
+        int stripes = 1;
+        while (stripes < size && stripes < MAX_LOCK_STRIPES) {
+            stripes <<= 1;
+        }
+        this.locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public double getProductionChance(int agent) {
+        return productionChances[agent];
+    }
+
+    public void setProductionChance(int agent, double productionChance) {
+        productionChances[agent] = productionChance;
+    }
+
+    public boolean isTrade(int agent) {
+        return KnowledgeBits.get(tradeFlags, agent);
+    }
+
+    void setTradeFlag(int agent, boolean trade) {
+        if (trade) {
+            tradeFlags[agent >>> 6] |= 1L << agent;
+        } else {
+            tradeFlags[agent >>> 6] &= ~(1L << agent);
+        }
+    }
+
+    public int getGotFrom(int agent, int element) {
+        return gotFrom[agent * getKnowledgeSize() + element];
+    }
+
+    public void setGotFrom(int agent, int element, int from) {
+        gotFrom[agent * getKnowledgeSize() + element] = from;
+    }
+
+    public int getKnowledgeCount(int agent) {
+        return knowledgeCounts.get(agent);
+    }
+
+    /**
+     * Adds an element of knowledge to the agent's knowledge set. May be called concurrently
+     * for the same agent - only one of the calls adding the same element returns false.
+     */
+    public boolean addKnowledgeElement(int agent, int element) {
+        if (element >= getKnowledgeSize()) {
+            throw new IndexOutOfBoundsException("Index of knowledge element to add out of bounds");
+        }
+        if (!setKnowledgeBit(agent, element)) {
+            return true;
+        }
+        synchronized (lock(agent)) {
+            addProducibleElements(agent, element);
+        }
+        return false;
+    }
+
+    /**
+     * Single step of knowledge development, which may run concurrently with other actions
+     * changing the agent. Nothing is produced, if the picked element is known or learned
+     * concurrently from another agent.
+     */
+    public int produceKnowledge(int agent, RandomSource random) {
+        int element;
+        synchronized (lock(agent)) {
+            element = getPossibleElements(agent).randomElement(random);
+            getPossibleElements(agent).remove(element);
+        }
+        if (element < 0 || addKnowledgeElement(agent, element)) {
+            return -1;
+        }
+        setGotFrom(agent, element, -1);
+        return element;
+    }
+
+    long getWord(int agent, int w) {
+        return knowledge.get(agent * getWordCount() + w);
+    }
+
+    void setWord(int agent, int w, long word) {
+        knowledge.set(agent * getWordCount() + w, word);
+    }
+
+    void setKnowledgeCount(int agent, int count) {
+        knowledgeCounts.set(agent, count);
+    }
+
+    boolean setKnowledgeBit(int agent, int element) {
+        int i = agent * getWordCount() + (element >>> 6);
+        long mask = 1L << element;
+        long word;
+        do {
+            word = knowledge.get(i);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!knowledge.compareAndSet(i, word, word | mask));
+        knowledgeCounts.incrementAndGet(agent);
+        return true;
+    }
+
+    private Object lock(int agent) {
+        return locks[agent & (locks.length - 1)];
+    }
+
+}
@@ -0,0 +1,157 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import pl.izertp.knowledgeproduction.graph.ParallelRanges;
+import pl.izertp.knowledgeproduction.graph.analysis.Coloring;
+import pl.izertp.knowledgeproduction.graph.analysis.GraphAnalysis;
+
+/**
+ * Parallel engine acting on a distance-2 coloring of the agents' graph. An action changes
+ * only the agent and its neighbors, and closed neighborhoods of agents of one color don't
+ * overlap, so a whole color class acts concurrently on a fork-join pool without any locks.
+ * In a round every agent acts exactly once - color classes are visited one after another
+ * in an order shuffled every round.
+ * Every action draws from a generator seeded with (seed, round, agent), so the results
+ * depend only on the seed, not on the number of threads or on scheduling.
+ * The coloring is computed on the first round, so the agents' graph must not change
+ * afterwards - rewiring is not supported.
+ */
+public class ColoredParallelEngine implements SimulationEngine {
+
+    /**
+     * Number of agents acting in a single task.
+     */
+    private static final int AGENTS_PER_TASK = 256;
+
+    private final AgentStructure agentStructure;
+
+    private final long seed;
+
+    private final ForkJoinPool pool;
+
+    private Coloring coloring;
+
+    /**
+     * Order of colors in a round, reused between rounds.
+     */
+    private int[] colorOrder;
+
+    /**
+     * Number of finished rounds.
+     */
+    private int round;
+
+    public ColoredParallelEngine(AgentStructure agentStructure, long seed) {
+        this(agentStructure, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param agentStructure agents and their connections
+     * @param seed seed of all the actions
+     * @param pool pool running the tasks
+     */
+    public ColoredParallelEngine(AgentStructure agentStructure, long seed, ForkJoinPool pool) {
+        this.agentStructure = agentStructure;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * @return number of finished rounds
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return coloring of the agents' graph, computed on first use
+     */
+    public Coloring getColoring() {
+        if (coloring == null) {
+            coloring = GraphAnalysis.distanceTwoColoring(agentStructure.getNeighborGraph());
+            colorOrder = new int[coloring.getColorCount()];
+        }
+        return coloring;
+    }
+
+    /**
+     * @throws IllegalStateException when the agents' graph may be rewired
+     */
+    public int runRound() {
+        if (agentStructure.getRewiringProbability() > 0) {
+            throw new IllegalStateException("Agents' graph can't be rewired by the parallel engine");
+        }
+        getColoring();
+        agentStructure.prepareConcurrentSteps();
+        Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(streamSeed(-1));
+        for (int c = 0; c < colorOrder.length; c++) {
+            colorOrder[c] = c;
+        }
+        for (int i = colorOrder.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = colorOrder[i];
+            colorOrder[i] = colorOrder[j];
+            colorOrder[j] = swap;
+        }
+        int effects = 0;
+        for (int color : colorOrder) {
+            effects += runColor(color);
+        }
+        round++;
+        return effects;
+    }
+
+    /**
+     * Runs the actions of all the agents of the color.
+     */
+    private int runColor(final int color) {
+        int classSize = coloring.getClassSize(color);
+        if (classSize <= AGENTS_PER_TASK) {
+            return runAgents(color, 0, classSize);
+        }
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int start = 0; start < classSize; start += AGENTS_PER_TASK) {
+            final int from = start;
+            final int to = Math.min(classSize, start + AGENTS_PER_TASK);
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    return runAgents(color, from, to);
+                }
+            });
+        }
+        int effects = 0;
+        for (int taskEffects : ParallelRanges.invokeAll(pool, tasks)) {
+            effects += taskEffects;
+        }
+        return effects;
+    }
+
+    /**
+     * Runs the actions of the agents at positions [from, to) of the color class.
+     */
+    private int runAgents(int color, int from, int to) {
+        Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(0);
+        int effects = 0;
+        for (int i = from; i < to; i++) {
+            int agent = coloring.getVertex(color, i);
+            random.setSeed(streamSeed(agent));
+            if (agentStructure.makeStep(agent, random)) {
+                effects++;
+            }
+        }
+        return effects;
+    }
+
+    /**
+     * @param agent index of the agent, -1 for the stream of the round
+     * @return seed of the agent's stream in the current round
+     */
+    private long streamSeed(int agent) {
+        return Xoroshiro128PlusPlus.taskSeed(seed, round, agent);
+    }
+
+}
@@ -0,0 +1,150 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Population stored in Java arrays - agent a has the bitset stored at words
+ * [a * wordCount, (a + 1) * wordCount) of one long matrix, numbers of elements and production
+ * chances are int and double arrays and trade flags are a bitset.
+ */
+public class HeapPopulation extends Population {
+
+    /**
+     * Knowledge matrix - bitsets of all the agents, row by row.
+     */
+    private final long[] knowledge;
+
+    /**
+     * Number of elements in every row of the knowledge matrix.
+     */
+    private final int[] knowledgeCounts;
+
+    private final double[] productionChances;
+
+    /**
+     * Trade flags of the agents as a bitset.
+     */
+    private final long[] tradeFlags;
+
+    /**
+     * Agent, from which every element was got (-1 for produced elements), row by row
+     * like the knowledge matrix.
+     */
+    private final int[] gotFrom;
+
+    /**
+     * Creates a population of agents without any knowledge.
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @throws IllegalArgumentException when size * knowledge size exceeds Integer.MAX_VALUE
+     */
+    public HeapPopulation(KnowledgeStructure knowledgeStructure, int size) {
+        this(knowledgeStructure, size, knowledgeStructure.getSize());
+    }
+
+    /**
+     * Creates a population holding only knowledge sets - without a knowledge structure agents
+     * can't develop knowledge.
+     * 
+     * @param size number of agents
+     * @param knowledgeSize number of knowledge elements
+     */
+    public HeapPopulation(int size, int knowledgeSize) {
+        this(null, size, knowledgeSize);
+    }
+
+    HeapPopulation(KnowledgeStructure knowledgeStructure, int size, int knowledgeSize) {
+        super(knowledgeStructure, size, knowledgeSize);
+        int gotFromLength = rowsLength(size, knowledgeSize);
+        this.knowledge = new long[rowsLength(size, getWordCount())];
+        this.knowledgeCounts = new int[size];
+        this.productionChances = new double[size];
+        this.tradeFlags = new long[KnowledgeBits.wordCount(size)];
+        this.gotFrom = new int[gotFromLength];
+    }
+
+    /**
+     * Returns the knowledge matrix. The array is not copied, so it must not be modified.
+     * 
+     * @return bitsets of all the agents, row by row
+     */
+    long[] getKnowledgeMatrix() {
+        return knowledge;
+    }
+
+    /**
+     * @param agent index of the agent
+     * @return position of the first word of the agent's row in the knowledge matrix
+     */
+    int getRowOffset(int agent) {
+        return agent * getWordCount();
+    }
+
+    public double getProductionChance(int agent) {
+        return productionChances[agent];
+    }
+
+    public void setProductionChance(int agent, double productionChance) {
+        productionChances[agent] = productionChance;
+    }
+
+    public boolean isTrade(int agent) {
+        return KnowledgeBits.get(tradeFlags, agent);
+    }
+
+    void setTradeFlag(int agent, boolean trade) {
+        if (trade) {
+            tradeFlags[agent >>> 6] |= 1L << agent;
+        } else {
+            tradeFlags[agent >>> 6] &= ~(1L << agent);
+        }
+    }
+
+    public int getGotFrom(int agent, int element) {
+        return gotFrom[agent * getKnowledgeSize() + element];
+    }
+
+    public void setGotFrom(int agent, int element, int from) {
+        gotFrom[agent * getKnowledgeSize() + element] = from;
+    }
+
+    public int getKnowledgeCount(int agent) {
+        return knowledgeCounts[agent];
+    }
+
+    int nextKnowledgeElement(int agent, int from) {
+        return KnowledgeBits.nextSetBit(knowledge, getRowOffset(agent), getWordCount(), from);
+    }
+
+    int selectKnowledgeElement(int agent, int k) {
+        return KnowledgeBits.select(knowledge, getRowOffset(agent), getWordCount(), k);
+    }
+
+    int countMissing(int agent, Population other, int otherAgent) {
+        if (!(other instanceof HeapPopulation)) {
+            return super.countMissing(agent, other, otherAgent);
+        }
+        HeapPopulation heapOther = (HeapPopulation) other;
+        return KnowledgeBits.andNotCount(knowledge, getRowOffset(agent), heapOther.knowledge, heapOther.getRowOffset(otherAgent), getWordCount());
+    }
+
+    int selectMissing(int agent, Population other, int otherAgent, int k) {
+        if (!(other instanceof HeapPopulation)) {
+            return super.selectMissing(agent, other, otherAgent, k);
+        }
+        HeapPopulation heapOther = (HeapPopulation) other;
+        return KnowledgeBits.selectAndNot(knowledge, getRowOffset(agent), heapOther.knowledge, heapOther.getRowOffset(otherAgent), getWordCount(), k);
+    }
+
+    long getWord(int agent, int w) {
+        return knowledge[agent * getWordCount() + w];
+    }
+
+    void setWord(int agent, int w, long word) {
+        knowledge[agent * getWordCount() + w] = word;
+    }
+
+    void setKnowledgeCount(int agent, int count) {
+        knowledgeCounts[agent] = count;
+    }
+
+}
@@ -0,0 +1,104 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import pl.izertp.knowledgeproduction.graph.ParallelRanges;
+
+/**
+ * Asynchronous parallel engine - a round is as many actions of randomly chosen agents
+ * (with repetitions) as there are agents, like in SequentialEngine, but the actions are split
+ * between tasks run on a fork-join pool without any coordination. Actions of neighboring
+ * agents may interleave, so agents must be views of an AtomicPopulation, which sets
+ * the knowledge bits with compare-and-set. Agents read their neighbors' knowledge
+ * with relaxed consistency and the results depend on scheduling, not only on the seed.
+ * Rewiring is not supported, as the agents' graph is not thread-safe.
+ */
+public class HogwildEngine implements SimulationEngine {
+
+    /**
+     * Number of actions run in a single task.
+     */
+    private static final int STEPS_PER_TASK = 4096;
+
+    private final AgentStructure agentStructure;
+
+    private final long seed;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Number of finished rounds.
+     */
+    private int round;
+
+    private boolean checked;
+
+    public HogwildEngine(AgentStructure agentStructure, long seed) {
+        this(agentStructure, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param agentStructure agents and their connections, agents must be views of an AtomicPopulation
+     * @param seed seed of the tasks' generators
+     * @param pool pool running the tasks
+     */
+    public HogwildEngine(AgentStructure agentStructure, long seed, ForkJoinPool pool) {
+        this.agentStructure = agentStructure;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * @return number of finished rounds
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @throws IllegalStateException when the agents' graph may be rewired or the agents
+     *         are not views of an AtomicPopulation
+     */
+    public int runRound() {
+        if (agentStructure.getRewiringProbability() > 0) {
+            throw new IllegalStateException("Agents' graph can't be rewired by the parallel engine");
+        }
+        final Agent[] agents = agentStructure.getAgents();
+        if (!checked) {
+            for (Agent agent : agents) {
+                if (!(agent.getPopulation() instanceof AtomicPopulation)) {
+                    throw new IllegalStateException("Agents acting asynchronously must be views of an AtomicPopulation");
+                }
+            }
+            checked = true;
+        }
+        agentStructure.prepareConcurrentSteps();
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int start = 0; start < agents.length; start += STEPS_PER_TASK) {
+            final int steps = Math.min(agents.length - start, STEPS_PER_TASK);
+            final long taskSeed = Xoroshiro128PlusPlus.taskSeed(seed, round, start / STEPS_PER_TASK);
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(taskSeed);
+                    int effects = 0;
+                    for (int s = 0; s < steps; s++) {
+                        if (agentStructure.makeStep(random.nextInt(agents.length), random)) {
+                            effects++;
+                        }
+                    }
+                    return effects;
+                }
+            });
+        }
+        int effects = 0;
+        for (int taskEffects : ParallelRanges.invokeAll(pool, tasks)) {
+            effects += taskEffects;
+        }
+        round++;
+        return effects;
+    }
+
+}
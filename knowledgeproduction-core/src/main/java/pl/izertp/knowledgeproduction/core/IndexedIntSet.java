@@ -0,0 +1,202 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Set of ints from a fixed range [0, capacity) supporting O(1) add, remove, contains and
+ * uniform random pick. Elements are kept densely in an int array and the position of every
+ * element is kept in an open-addressing hash table, so removing moves the last element into
+ * the freed position. Both arrays grow with the number of elements, not with the capacity,
+ * so a set of a few elements from a large range is small.
+ * The order of elements changes when elements are removed.
+ */
+public class IndexedIntSet {
+
+    private static final int INITIAL_SIZE = 4;
+
+    private final int capacity;
+
+    /**
+     * Elements of the set, only first size positions are used.
+     */
+    private int[] values;
+
+    /**
+     * Hash table of element + 1 (0 for an empty slot) with linear probing, its length is a power
+     * of two and at least twice the number of elements.
+     */
+    private int[] keys;
+
+    /**
+     * Position in values of the element in the same slot of keys.
+     */
+    private int[] positions;
+
+    private int size;
+
+    /**
+     * Creates an empty set.
+     * 
+     * @param capacity elements must be from [0, capacity)
+     */
+    public IndexedIntSet(int capacity) {
+        this.capacity = capacity;
+        values = new int[INITIAL_SIZE];
+        keys = new int[2 * INITIAL_SIZE];
+        positions = new int[2 * INITIAL_SIZE];
+    }
+
+    /**
+     * @param element element to add
+     * @return true if the element was not in the set
+     */
+    public boolean add(int element) {
+        if (element < 0 || element >= capacity) {
+            throw new IndexOutOfBoundsException("Element out of range: " + element);
+        }
+        if (find(element) >= 0) {
+            return false;
+        }
+        if (size == values.length) {
+            grow();
+        }
+        insert(element, size);
+        values[size++] = element;
+        return true;
+    }
+
+    /**
+     * @param element element to remove
+     * @return true if the element was in the set
+     */
+    public boolean remove(int element) {
+        int slot = find(element);
+        if (slot < 0) {
+            return false;
+        }
+        int position = positions[slot];
+        deleteSlot(slot);
+        int last = values[--size];
+        if (last != element) {
+            values[position] = last;
+            positions[find(last)] = position;
+        }
+        return true;
+    }
+
+    public boolean contains(int element) {
+        return find(element) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i index of the element, must be [0, size())
+     * @return i-th element in the current order
+     */
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + i);
+        }
+        return values[i];
+    }
+
+    /**
+     * @param random random number generator
+     * @return uniformly chosen element, -1 if the set is empty
+     */
+    public int randomElement(RandomSource random) {
+        if (size == 0) {
+            return -1;
+        }
+        return values[random.nextInt(size)];
+    }
+
+    public void clear() {
+        for (int s = 0; s < keys.length; s++) {
+            keys[s] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return number of bytes of the arrays held by the set
+     */
+    public long getByteSize() {
+        return 4L * (values.length + keys.length + positions.length);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * @return slot of the element in the hash table, -1 if the element is not in the set
+     */
+    private int find(int element) {
+        int mask = keys.length - 1;
+        for (int s = hash(element) & mask; keys[s] != 0; s = (s + 1) & mask) {
+            if (keys[s] == element + 1) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int element, int position) {
+        int mask = keys.length - 1;
+        int s = hash(element) & mask;
+        while (keys[s] != 0) {
+            s = (s + 1) & mask;
+        }
+        keys[s] = element + 1;
+        positions[s] = position;
+    }
+
+    /**
+     * Empties the slot, moving back the following entries of the probe sequence, so no
+     * tombstones are needed.
+     */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int s = (slot + 1) & mask; keys[s] != 0; s = (s + 1) & mask) {
+            int home = hash(keys[s] - 1) & mask;
+            // the entry may fill the hole, if its home slot is not in (hole, s]
+            if (((s - home) & mask) >= ((s - hole) & mask)) {
+                keys[hole] = keys[s];
+                positions[hole] = positions[s];
+                hole = s;
+            }
+        }
+        keys[hole] = 0;
+    }
+
+    /**
+     * Doubles the arrays and rehashes the elements.
+     */
+    private void grow() {
+        int[] newValues = new int[values.length * 2];
+        System.arraycopy(values, 0, newValues, 0, size);
+        values = newValues;
+        keys = new int[values.length * 2];
+        positions = new int[values.length * 2];
+        for (int i = 0; i < size; i++) {
+            insert(values[i], i);
+        }
+    }
+
+    private static int hash(int element) {
+        int h = element * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,237 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Operations on sets of knowledge elements kept as bitsets - element i is bit (i & 63)
+ * of word (i >>> 6). Bitsets of different lengths are treated as if the shorter one was
+ * padded with zeros. Methods with offset and words arguments work on a bitset stored as
+ * words [offset, offset + words) of a bigger array, e.g. a row of the Population matrix.
+ * None of the methods allocates.
+ */
+public class KnowledgeBits {
+
+    private KnowledgeBits() {
+    }
+
+    /**
+     * @param size number of elements
+     * @return number of words of a bitset holding given number of elements
+     */
+    public static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * @return true if the bit is set
+     */
+    public static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Sets the bit.
+     * 
+     * @return true if the bit was not set before
+     */
+    public static boolean set(long[] bits, int i) {
+        long word = bits[i >>> 6];
+        bits[i >>> 6] = word | (1L << i);
+        return (word & (1L << i)) == 0;
+    }
+
+    /**
+     * @return number of set bits
+     */
+    public static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Writes a & b to the target.
+     * 
+     * @return number of set bits in the result
+     */
+    public static int and(long[] a, long[] b, long[] target) {
+        int count = 0;
+        for (int w = 0; w < target.length; w++) {
+            target[w] = word(a, w) & word(b, w);
+            count += Long.bitCount(target[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Writes a & ~b (elements of a, which are not in b) to the target.
+     * 
+     * @return number of set bits in the result
+     */
+    public static int andNot(long[] a, long[] b, long[] target) {
+        int count = 0;
+        for (int w = 0; w < target.length; w++) {
+            target[w] = word(a, w) & ~word(b, w);
+            count += Long.bitCount(target[w]);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of set bits of a & ~b
+     */
+    public static int andNotCount(long[] a, long[] b) {
+        int count = 0;
+        for (int w = 0; w < a.length; w++) {
+            count += Long.bitCount(a[w] & ~word(b, w));
+        }
+        return count;
+    }
+
+    /**
+     * Iterates set bits: for (int i = nextSetBit(bits, 0); i >= 0; i = nextSetBit(bits, i + 1)).
+     * 
+     * @param bits bitset
+     * @param from first bit to check
+     * @return index of the first set bit not smaller than from, -1 if there is none
+     */
+    public static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) {
+            return -1;
+        }
+        long word = bits[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == bits.length) {
+                return -1;
+            }
+            word = bits[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Finds the k-th set bit, skipping whole words by their bit counts.
+     * 
+     * @param bits bitset
+     * @param k index of the set bit, counted from 0
+     * @return index of the k-th set bit, -1 if there are not more than k set bits
+     */
+    public static int select(long[] bits, int k) {
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the k-th set bit of a & ~b without building the difference - words are computed
+     * and skipped by their bit counts on the fly.
+     * 
+     * @param a bitset
+     * @param b bitset of excluded bits
+     * @param k index of the set bit of the difference, counted from 0
+     * @return index of the k-th set bit of a & ~b, -1 if there are not more than k such bits
+     */
+    public static int selectAndNot(long[] a, long[] b, int k) {
+        for (int w = 0; w < a.length; w++) {
+            long word = a[w] & ~word(b, w);
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of set bits of the bitset stored at [offset, offset + words)
+     */
+    public static int count(long[] bits, int offset, int words) {
+        int count = 0;
+        for (int w = offset; w < offset + words; w++) {
+            count += Long.bitCount(bits[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Like nextSetBit(long[], int) for the bitset stored at [offset, offset + words).
+     */
+    public static int nextSetBit(long[] bits, int offset, int words, int from) {
+        int w = from >>> 6;
+        if (w >= words) {
+            return -1;
+        }
+        long word = bits[offset + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words) {
+                return -1;
+            }
+            word = bits[offset + w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Like select(long[], int) for the bitset stored at [offset, offset + words).
+     */
+    public static int select(long[] bits, int offset, int words, int k) {
+        for (int w = 0; w < words; w++) {
+            long word = bits[offset + w];
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Like andNotCount(long[], long[]) for bitsets of the same length stored at given offsets.
+     */
+    public static int andNotCount(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(a[aOffset + w] & ~b[bOffset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * Like selectAndNot(long[], long[], int) for bitsets of the same length stored at given offsets.
+     */
+    public static int selectAndNot(long[] a, int aOffset, long[] b, int bOffset, int words, int k) {
+        for (int w = 0; w < words; w++) {
+            long word = a[aOffset + w] & ~b[bOffset + w];
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the k-th set bit of the word, k must be smaller than its bit count
+     */
+    static int selectInWord(long word, int k) {
+        for (; k > 0; k--) {
+            word &= word - 1;
+        }
+        return Long.numberOfTrailingZeros(word);
+    }
+
+    private static long word(long[] bits, int w) {
+        return w < bits.length ? bits[w] : 0;
+    }
+
+}
@@ -0,0 +1,139 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import pl.izertp.knowledgeproduction.graph.ParallelRanges;
+
+/**
+ * Forward-chaining closure of knowledge - all the elements, which can ever be developed from
+ * a set of elements by applying the recipes of a KnowledgeStructure again and again.
+ * Sets of elements are bitsets: element i is bit (i & 63) of word (i >>> 6).
+ * 
+ * Recipes are read from the RecipeIndex of the structure, so closing a set only visits recipes
+ * of elements, which are in the closure - every element is pushed to the work stack at most
+ * once. The closure is immutable, so it may be used by many threads.
+ */
+public class KnowledgeClosure {
+
+    /**
+     * Number of agents closed by a single task.
+     */
+    private static final int AGENTS_PER_TASK = 64;
+
+    /**
+     * Number of knowledge elements.
+     */
+    private final int size;
+
+    /**
+     * Recipes of the knowledge structure indexed by parents.
+     */
+    private final RecipeIndex recipes;
+
+    /**
+     * Creates a closure over the recipes of the structure.
+     * 
+     * @param structure structure of knowledge
+     */
+    public KnowledgeClosure(KnowledgeStructure structure) {
+        size = structure.getSize();
+        recipes = structure.getRecipeIndex();
+    }
+
+    /**
+     * @return number of words of a bitset holding all the elements
+     */
+    public int getWordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Returns the closure of a set of elements.
+     * 
+     * @param known bitset of known elements
+     * @return new bitset of all the elements reachable from the known ones (including them)
+     */
+    public long[] close(long[] known) {
+        long[] closure = new long[getWordCount()];
+        System.arraycopy(known, 0, closure, 0, Math.min(known.length, closure.length));
+        close(closure, new int[size]);
+        return closure;
+    }
+
+    /**
+     * Closes a bitset in place.
+     * 
+     * @param bits bitset of known elements, replaced with its closure
+     * @param stack work stack of at least size elements
+     * @return number of elements in the closure
+     */
+    int close(long[] bits, int[] stack) {
+        int top = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                stack[top++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        int count = top;
+        while (top > 0) {
+            int element = stack[--top];
+            for (int r = recipes.getStart(element); r < recipes.getEnd(element); r++) {
+                int child = recipes.getResult(r);
+                int other = recipes.getOtherParent(r);
+                if ((bits[child >>> 6] & (1L << child)) == 0 && (bits[other >>> 6] & (1L << other)) != 0) {
+                    bits[child >>> 6] |= 1L << child;
+                    stack[top++] = child;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int[] reachableCounts(Agent[] agents) {
+        return reachableCounts(agents, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts the elements reachable by every agent from its current knowledge.
+     * Agents are closed in parallel, every task reuses its own bitset and stack.
+     * 
+     * @param agents array of agents sharing the knowledge structure of this closure
+     * @param pool pool running the tasks
+     * @return number of reachable elements indexed by agent
+     */
+    public int[] reachableCounts(final Agent[] agents, ForkJoinPool pool) {
+        final int[] counts = new int[agents.length];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < agents.length; start += AGENTS_PER_TASK) {
+            final int from = start;
+            final int to = Math.min(agents.length, start + AGENTS_PER_TASK);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    long[] bits = new long[getWordCount()];
+                    int[] stack = new int[size];
+                    for (int a = from; a < to; a++) {
+                        loadKnowledge(agents[a], bits);
+                        counts[a] = close(bits, stack);
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+        return counts;
+    }
+
+    /**
+     * Copies the knowledge of the agent into the bitset.
+     */
+    private void loadKnowledge(Agent agent, long[] bits) {
+        agent.getPopulation().copyKnowledge(agent.getIndex(), bits);
+    }
+
+}
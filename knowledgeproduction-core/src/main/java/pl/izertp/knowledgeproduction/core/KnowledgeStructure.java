@@ -1,12 +1,11 @@
 package pl.izertp.knowledgeproduction.core;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import lombok.Getter;
+import pl.izertp.knowledgeproduction.hypergraph.ChildCursor;
 import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
-import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.SparseHyperGraph;
 
 /**
  * Holds the structure of knowledge - knowledge hypergraph, base knowledge set,
@@ -39,6 +38,11 @@ public class KnowledgeStructure {
      */
     private int[] depths;
 
+    /**
+     * Index of recipes by their parents, created on first use.
+     */
+    private volatile RecipeIndex recipeIndex;
+
     /**
      * Creates a new KnowledgeStructure object with random-generated knowledge HyperGraph.
      * Generation algorithm:
@@ -52,23 +56,37 @@ public class KnowledgeStructure {
      * 
      * Note that the depth of a vertex is determined when the vertex is added to the graph
      * and doesn't change when vertices with greater indices are added.
+     * The hypergraph is a SparseHyperGraph, so memory grows with the number of edges.
      * 
      * @param baseSize number of basic knowledge elements, from which all other elements can be developed
      * @param size size of the whole knowledge graph
      * @param connectionNumber maximum number of connections to a non-base element
      */
     public KnowledgeStructure(int baseSize, int size, int connectionNumber) {
+        this(baseSize, size, connectionNumber, new Xoroshiro128PlusPlus());
+    }
+
+    /**
+     * Creates a new KnowledgeStructure object with random-generated knowledge HyperGraph,
+     * see KnowledgeStructure(int, int, int).
+     * 
+     * @param baseSize number of basic knowledge elements, from which all other elements can be developed
+     * @param size size of the whole knowledge graph
+     * @param connectionNumber maximum number of connections to a non-base element
+     * @param random random number generator drawing the parents
+     */
+    public KnowledgeStructure(int baseSize, int size, int connectionNumber, RandomSource random) {
         if (baseSize > size) {
             throw new IllegalArgumentException("Size of base in KnowledgeStructure cant be greater than size of the graph");
         }
         this.baseSize = baseSize;
         this.size = size;
         this.depths = new int[size];
-        this.graph = new MixedHyperGraph(size);
+        this.graph = new SparseHyperGraph(size, (size - baseSize) * connectionNumber);
 
         for (int i = baseSize; i < size; i++) {
             for (int j = 0; j < connectionNumber; j++) {
-                int[] randomPair = getRandomPair(i);
+                int[] randomPair = getRandomPair(i, random);
                 graph.addEdge(randomPair[0], randomPair[1], i);
                 int parentMaxDepthPlus1 = Math.max(depths[randomPair[0]], depths[randomPair[1]]) + 1;
                 if (depths[i] == 0) {
@@ -86,12 +104,28 @@ public class KnowledgeStructure {
      * @param graph hypergraph representing knowledge structure
      */
     public KnowledgeStructure(HyperGraph graph, int baseSize) {
+        this(graph, baseSize, new int[graph.getSize()]);
+    }
+
+    /**
+     * Creates a new KnowledgeStructure object basing on an existing HyperGraph and known
+     * depths of its elements.
+     * 
+     * @param graph hypergraph representing knowledge structure
+     * @param baseSize number of basic knowledge elements
+     * @param depths depths of the elements indexed by element number
+     */
+    public KnowledgeStructure(HyperGraph graph, int baseSize, int[] depths) {
         this.size = graph.getSize();
         if (baseSize > size) {
             throw new IllegalArgumentException("Size of base in KnowledgeStructure cant be greater than size of the graph");
         }
+        if (depths.length != size) {
+            throw new IllegalArgumentException("Depths must be given for every element of the graph");
+        }
         this.baseSize = baseSize;
         this.graph = graph;
+        this.depths = depths;
     }
 
     /**
@@ -105,6 +139,55 @@ public class KnowledgeStructure {
         return graph.toVertices(e1, e2);
     }
 
+    /**
+     * Returns the number of knowledge elements, which can be developed from a given pair.
+     * 
+     * @param e1 given element 1
+     * @param e2 given element 2
+     * @return number of possible resulting elements
+     */
+    public int getResultCount(int e1, int e2) {
+        return graph.getChildCount(e1, e2);
+    }
+
+    /**
+     * Creates a reusable cursor over elements, which can be developed from a pair
+     * (see getResultElements). Iterating the cursor doesn't box the elements.
+     * 
+     * @return new cursor, reset must be called before reading
+     */
+    public ChildCursor newResultCursor() {
+        return graph.newChildCursor();
+    }
+
+    /**
+     * Returns the index of recipes by their parents - for every element, the recipes it
+     * appears in. The index is created on the first call, so the hypergraph must not be
+     * changed afterwards.
+     * 
+     * @return incidence index of the recipes
+     */
+    public RecipeIndex getRecipeIndex() {
+        RecipeIndex index = recipeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = recipeIndex;
+                if (index == null) {
+                    index = new RecipeIndex(this);
+                    recipeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return hypergraph containing knowledge structure
+     */
+    HyperGraph getGraph() {
+        return graph;
+    }
+
     /**
      * Returns the maximum depth of an element in the structure.
      * 
@@ -130,22 +213,23 @@ public class KnowledgeStructure {
     }
     
     public List<Integer[]> getParents(int i) {
-        return ((MixedHyperGraph)graph).getParrents(i);
+        return graph.getParents(i);
     }
 
     /**
-     * Returns a pair of random ints from 0 to max-1
+     * Returns a pair of distinct random ints from 0 to max-1
      * 
      * @param max maximum number - 1
+     * @param random random number generator
      * @return two-element array of random ints
      */
-    private int[] getRandomPair(int max) {
-        List<Integer> list = new ArrayList<Integer>();
-        for (int i = 0; i < max; i++) {
-            list.add(i);
+    private int[] getRandomPair(int max, RandomSource random) {
+        int first = random.nextInt(max);
+        int second = random.nextInt(max - 1);
+        if (second >= first) {
+            second++;
         }
-        Collections.shuffle(list);
-        return new int[] { list.get(0), list.get(1) };
+        return new int[] { first, second };
     }
 
     @Override
@@ -0,0 +1,96 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import pl.izertp.knowledgeproduction.graph.GraphFiles;
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraphFiles;
+import pl.izertp.knowledgeproduction.hypergraph.MappedHyperGraph;
+
+/**
+ * Saves and loads KnowledgeStructure in a versioned binary format (big-endian):
+ * 
+ * <pre>
+ * int      magic number ("KPKS")
+ * int      format version
+ * int      base size
+ * int      size n
+ * int[n]   depths of the elements
+ * ...      hypergraph with parents, in HyperGraphFiles format
+ * </pre>
+ * 
+ * Loaded structures are served from a read-only memory-mapped file, so a saved structure
+ * can be reused by many simulations (also in concurrent JVMs) without regenerating it.
+ * The file is mapped as a single buffer, so it is limited to 2GB like a HyperGraphFiles file.
+ */
+public class KnowledgeStructureFiles {
+
+    private static final int MAGIC = 0x4B504B53;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Writes the knowledge structure to a file.
+     * 
+     * @param structure structure to write
+     * @param file destination file
+     * @throws IOException when writing fails
+     */
+    public static void write(KnowledgeStructure structure, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(structure.getBaseSize());
+            out.writeInt(structure.getSize());
+            for (int i = 0; i < structure.getSize(); i++) {
+                out.writeInt(structure.getElementDepth(i));
+            }
+            HyperGraphFiles.write(structure.getGraph(), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads the knowledge structure by mapping the file into memory. Depths are copied to the heap,
+     * the hypergraph is read directly from the mapped file.
+     * 
+     * @param file knowledge structure file
+     * @return loaded knowledge structure
+     * @throws IOException when the file can't be mapped or has a wrong format
+     */
+    public static KnowledgeStructure map(File file) throws IOException {
+        ByteBuffer buffer = GraphFiles.mapReadOnly(file);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a knowledge structure file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(String.format("Unsupported knowledge structure file version %d", buffer.getInt(4)));
+        }
+        int baseSize = buffer.getInt(8);
+        int size = buffer.getInt(12);
+        GraphFiles.checkCount(size, "size");
+        if (baseSize < 0 || baseSize > size) {
+            throw new IOException(String.format("Base size %d out of [0, %d]", baseSize, size));
+        }
+        if (buffer.capacity() < HEADER_SIZE + 4L * size) {
+            throw new IOException("Knowledge structure file is truncated");
+        }
+        int[] depths = new int[size];
+        GraphFiles.slice(buffer, HEADER_SIZE, 4 * size).asIntBuffer().get(depths);
+        int graphPosition = HEADER_SIZE + 4 * size;
+        MappedHyperGraph graph = new MappedHyperGraph(GraphFiles.slice(buffer, graphPosition, buffer.capacity() - graphPosition));
+        if (graph.getSize() != size) {
+            throw new IOException(String.format("Hypergraph has %d vertices instead of %d", graph.getSize(), size));
+        }
+        return new KnowledgeStructure(graph, baseSize, depths);
+    }
+
+}
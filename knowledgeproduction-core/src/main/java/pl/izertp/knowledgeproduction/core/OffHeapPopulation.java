@@ -0,0 +1,206 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Population stored outside of the Java heap, for populations too big for the heap or for
+ * the garbage collector. Knowledge bitsets, scalars of the agents and got-from records are
+ * rows of direct buffers or of a file mapped into memory (then the operating system pages
+ * the rows in and out, so the population may be bigger than the physical memory).
+ * Got-from records take Population.GOT_FROM_BYTES_PER_ELEMENT bytes per agent and element,
+ * 32 times more than the knowledge bits, so they are kept only on request - otherwise
+ * setGotFrom does nothing and getGotFrom throws IllegalStateException.
+ * The views of the agents and the sets of elements possible to develop are still kept
+ * on the heap: about 200 bytes per agent (Population.HEAP_BYTES_PER_AGENT) plus about
+ * 20 bytes per element in the sets, which grow up to the number of results of the recipes
+ * known by the agents. So 50M agents need at least 10 GB of heap - populations,
+ * which can't fit in the maximal heap even with empty sets, are rejected.
+ */
+public class OffHeapPopulation extends Population {
+
+    /**
+     * Offsets of the scalars in a row of scalars: number of elements, trade flag and
+     * production chance.
+     */
+    private static final int COUNT_OFFSET = 0;
+
+    private static final int TRADE_OFFSET = 4;
+
+    private static final int PRODUCTION_CHANCE_OFFSET = 8;
+
+    private static final int SCALARS_SIZE = 16;
+
+    /**
+     * Knowledge bitsets, one row of getWordCount() longs per agent.
+     */
+    private final OffHeapRows knowledge;
+
+    private final OffHeapRows scalars;
+
+    /**
+     * Agent, from which every element was got, one row of getKnowledgeSize() ints per agent,
+     * null when got-from isn't tracked.
+     */
+    private final OffHeapRows gotFrom;
+
+    /**
+     * Creates a population of agents without any knowledge in direct memory, which doesn't
+     * track got-from.
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @throws IllegalArgumentException when the agents don't fit in the heap (see above)
+     */
+    public OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size) {
+        this(knowledgeStructure, size, false);
+    }
+
+    /**
+     * Creates a population of agents without any knowledge in direct memory.
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @param trackGotFrom true to keep got-from records
+     * @throws IllegalArgumentException when the agents don't fit in the heap (see above)
+     */
+    public OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size, boolean trackGotFrom) {
+        this(knowledgeStructure, size, trackGotFrom, OffHeapRows.MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a population of agents without any knowledge backed by the file, which doesn't
+     * track got-from. Previous contents of the file are dropped. Changes are written to the file
+     * by the operating system or by force.
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @param file file holding the population
+     * @throws IOException when the file can't be created or mapped
+     * @throws IllegalArgumentException when the agents don't fit in the heap (see above)
+     */
+    public OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size, File file) throws IOException {
+        this(knowledgeStructure, size, file, false);
+    }
+
+    /**
+     * Creates a population of agents without any knowledge backed by the file (see above).
+     * 
+     * @param knowledgeStructure structure of the knowledge
+     * @param size number of agents
+     * @param file file holding the population
+     * @param trackGotFrom true to keep got-from records in the file
+     * @throws IOException when the file can't be created or mapped
+     * @throws IllegalArgumentException when the agents don't fit in the heap (see above)
+     */
+    public OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size, File file, boolean trackGotFrom) throws IOException {
+        this(knowledgeStructure, size, file, trackGotFrom, OffHeapRows.MAX_CHUNK_SIZE);
+    }
+
+    OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size, boolean trackGotFrom, int maxChunkSize) {
+        super(knowledgeStructure, checkHeap(size), knowledgeStructure.getSize());
+        knowledge = new OffHeapRows(size, 8 * getWordCount(), maxChunkSize);
+        scalars = new OffHeapRows(size, SCALARS_SIZE, maxChunkSize);
+        gotFrom = trackGotFrom ? new OffHeapRows(size, GOT_FROM_BYTES_PER_ELEMENT * getKnowledgeSize(), maxChunkSize) : null;
+    }
+
+    OffHeapPopulation(KnowledgeStructure knowledgeStructure, int size, File file, boolean trackGotFrom, int maxChunkSize) throws IOException {
+        super(knowledgeStructure, checkHeap(size), knowledgeStructure.getSize());
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            // the file is zeroed and extended again by the mapping
+            channel.truncate(0);
+            knowledge = new OffHeapRows(size, 8 * getWordCount(), maxChunkSize, channel, 0);
+            scalars = new OffHeapRows(size, SCALARS_SIZE, maxChunkSize, channel, knowledge.getByteSize());
+            gotFrom = trackGotFrom ? new OffHeapRows(size, GOT_FROM_BYTES_PER_ELEMENT * getKnowledgeSize(), maxChunkSize, channel, knowledge.getByteSize() + scalars.getByteSize()) : null;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @param size number of agents
+     * @return size
+     * @throws IllegalArgumentException when the heap part of the agents doesn't fit
+     *         in the maximal heap
+     */
+    private static int checkHeap(int size) {
+        long heapBytes = (long) size * HEAP_BYTES_PER_AGENT;
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        if (heapBytes > maxMemory) {
+            throw new IllegalArgumentException(String.format("%d agents need at least %d MB of heap for their views and sets of possible elements, only %d MB available", size, heapBytes >> 20, maxMemory >> 20));
+        }
+        return size;
+    }
+
+    /**
+     * Writes the changes of a file-backed population to the file. Does nothing for
+     * a population in direct memory.
+     */
+    public void force() {
+        knowledge.force();
+        scalars.force();
+        if (gotFrom != null) {
+            gotFrom.force();
+        }
+    }
+
+    public double getProductionChance(int agent) {
+        return scalars.getDouble(agent, PRODUCTION_CHANCE_OFFSET);
+    }
+
+    public void setProductionChance(int agent, double productionChance) {
+        scalars.putDouble(agent, PRODUCTION_CHANCE_OFFSET, productionChance);
+    }
+
+    public boolean isTrade(int agent) {
+        return scalars.getInt(agent, TRADE_OFFSET) != 0;
+    }
+
+    void setTradeFlag(int agent, boolean trade) {
+        scalars.putInt(agent, TRADE_OFFSET, trade ? 1 : 0);
+    }
+
+    /**
+     * @throws IllegalStateException when got-from isn't tracked
+     */
+    public int getGotFrom(int agent, int element) {
+        if (gotFrom == null) {
+            throw new IllegalStateException("Got-from records of the population are not tracked");
+        }
+        return gotFrom.getInt(agent, GOT_FROM_BYTES_PER_ELEMENT * element);
+    }
+
+    /**
+     * Does nothing, when got-from isn't tracked.
+     */
+    public void setGotFrom(int agent, int element, int from) {
+        if (gotFrom != null) {
+            gotFrom.putInt(agent, GOT_FROM_BYTES_PER_ELEMENT * element, from);
+        }
+    }
+
+    boolean isGotFromTracked() {
+        return gotFrom != null;
+    }
+
+    public int getKnowledgeCount(int agent) {
+        return scalars.getInt(agent, COUNT_OFFSET);
+    }
+
+    long getWord(int agent, int w) {
+        return knowledge.getLong(agent, 8 * w);
+    }
+
+    void setWord(int agent, int w, long word) {
+        knowledge.putLong(agent, 8 * w, word);
+    }
+
+    void setKnowledgeCount(int agent, int count) {
+        scalars.putInt(agent, COUNT_OFFSET, count);
+    }
+
+}
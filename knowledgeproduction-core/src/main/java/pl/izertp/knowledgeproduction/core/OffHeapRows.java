@@ -0,0 +1,134 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-size rows of bytes stored outside of the Java heap - in direct buffers or in a file
+ * mapped into memory. A single buffer can't be bigger than 2 GB, so the rows are split into
+ * chunks of whole rows and a row never crosses the border of a chunk. Values are read and
+ * written at byte offsets within a row, in the native byte order.
+ */
+class OffHeapRows {
+
+    /**
+     * Default maximal size of a chunk in bytes.
+     */
+    static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    /**
+     * Size of a row in bytes.
+     */
+    private final int rowSize;
+
+    private final int rowsPerChunk;
+
+    private final ByteBuffer[] chunks;
+
+    private final long byteSize;
+
+    /**
+     * Allocates zeroed rows in direct memory.
+     * 
+     * @param rows number of rows
+     * @param rowSize size of a row in bytes
+     * @param maxChunkSize maximal size of a chunk in bytes, must not be smaller than rowSize
+     */
+    OffHeapRows(int rows, int rowSize, int maxChunkSize) {
+        this.rowSize = rowSize;
+        this.rowsPerChunk = rowsPerChunk(rowSize, maxChunkSize);
+        this.chunks = new ByteBuffer[chunkCount(rows, rowsPerChunk)];
+        this.byteSize = (long) rows * rowSize;
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = ByteBuffer.allocateDirect(chunkSize(rows, c)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Maps rows to a region of the file starting at given position. The file is extended,
+     * if it is too short. The mapping stays valid after the channel is closed.
+     * 
+     * @param rows number of rows
+     * @param rowSize size of a row in bytes
+     * @param maxChunkSize maximal size of a chunk in bytes, must not be smaller than rowSize
+     * @param channel channel of the file opened for reading and writing
+     * @param position position of the first row in the file
+     * @throws IOException when the file can't be mapped
+     */
+    OffHeapRows(int rows, int rowSize, int maxChunkSize, FileChannel channel, long position) throws IOException {
+        this.rowSize = rowSize;
+        this.rowsPerChunk = rowsPerChunk(rowSize, maxChunkSize);
+        this.chunks = new ByteBuffer[chunkCount(rows, rowsPerChunk)];
+        this.byteSize = (long) rows * rowSize;
+        for (int c = 0; c < chunks.length; c++) {
+            int size = chunkSize(rows, c);
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.nativeOrder());
+            position += size;
+        }
+    }
+
+    /**
+     * @return size of all the rows in bytes
+     */
+    long getByteSize() {
+        return byteSize;
+    }
+
+    long getLong(int row, int offset) {
+        return chunks[row / rowsPerChunk].getLong(position(row, offset));
+    }
+
+    void putLong(int row, int offset, long value) {
+        chunks[row / rowsPerChunk].putLong(position(row, offset), value);
+    }
+
+    int getInt(int row, int offset) {
+        return chunks[row / rowsPerChunk].getInt(position(row, offset));
+    }
+
+    void putInt(int row, int offset, int value) {
+        chunks[row / rowsPerChunk].putInt(position(row, offset), value);
+    }
+
+    double getDouble(int row, int offset) {
+        return chunks[row / rowsPerChunk].getDouble(position(row, offset));
+    }
+
+    void putDouble(int row, int offset, double value) {
+        chunks[row / rowsPerChunk].putDouble(position(row, offset), value);
+    }
+
+    /**
+     * Writes the changes of mapped rows to the file, does nothing for rows in direct memory.
+     */
+    void force() {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    private int position(int row, int offset) {
+        return (row % rowsPerChunk) * rowSize + offset;
+    }
+
+    private int chunkSize(int rows, int chunk) {
+        return Math.min(rowsPerChunk, rows - chunk * rowsPerChunk) * rowSize;
+    }
+
+    private static int rowsPerChunk(int rowSize, int maxChunkSize) {
+        if (rowSize > maxChunkSize) {
+            throw new IllegalArgumentException("Row must not be bigger than a chunk");
+        }
+        return rowSize == 0 ? Integer.MAX_VALUE : maxChunkSize / rowSize;
+    }
+
+    private static int chunkCount(int rows, int rowsPerChunk) {
+        return rows == 0 ? 0 : (rows - 1) / rowsPerChunk + 1;
+    }
+
+}
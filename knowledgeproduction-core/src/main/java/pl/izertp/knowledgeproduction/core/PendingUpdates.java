@@ -0,0 +1,141 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.Arrays;
+
+/**
+ * Knowledge elements to be added by the actions of a synchronous round (see SynchronousEngine).
+ * An action adds at most two elements - a trade gives one element to each of the agents -
+ * so every agent has two slots for the updates of its action. A slot holds the agent getting
+ * the element, the element and the agent it is got from.
+ * After all the actions are planned, the slots are bucketed by their targets with a counting
+ * sort (see sortByTarget), so every agent applies only the updates given to it.
+ */
+class PendingUpdates {
+
+    static final int SLOTS = 2;
+
+    /**
+     * Source of a traded element - like in TradeMarket.trade, got-from of traded elements
+     * isn't set.
+     */
+    static final int TRADED = -2;
+
+    /**
+     * Agent getting the element of every slot, -1 for an empty slot.
+     */
+    private final int[] targets;
+
+    private final int[] elements;
+
+    private final int[] sources;
+
+    /**
+     * True for the slots, whose elements were new to the target.
+     */
+    private final boolean[] applied;
+
+    /**
+     * Slots sorted by their targets, ascending by slot within the same target.
+     */
+    private final int[] order;
+
+    /**
+     * Slots given to agent a are order[starts[a]], ..., order[starts[a + 1] - 1].
+     */
+    private final int[] starts;
+
+    /**
+     * @param size number of agents
+     */
+    PendingUpdates(int size) {
+        targets = new int[size * SLOTS];
+        elements = new int[size * SLOTS];
+        sources = new int[size * SLOTS];
+        applied = new boolean[size * SLOTS];
+        order = new int[size * SLOTS];
+        starts = new int[size + 1];
+    }
+
+    /**
+     * Empties the slots of the agent's action.
+     */
+    void clear(int agent) {
+        for (int s = agent * SLOTS; s < (agent + 1) * SLOTS; s++) {
+            targets[s] = -1;
+            applied[s] = false;
+        }
+    }
+
+    /**
+     * Adds an update to the first empty slot of the agent's action.
+     * 
+     * @param agent index of the acting agent
+     * @param target index of the agent getting the element
+     * @param element index of the element
+     * @param source index of the agent giving the element, -1 for a produced element,
+     *        TRADED for a traded element
+     */
+    void add(int agent, int target, int element, int source) {
+        int s = agent * SLOTS;
+        if (targets[s] >= 0) {
+            s++;
+        }
+        targets[s] = target;
+        elements[s] = element;
+        sources[s] = source;
+    }
+
+    /**
+     * Buckets the non-empty slots by their targets with a counting sort. Must be called
+     * after all the actions are planned and before any of the updates is applied.
+     */
+    void sortByTarget() {
+        Arrays.fill(starts, 0);
+        for (int target : targets) {
+            if (target >= 0) {
+                starts[target + 1]++;
+            }
+        }
+        for (int a = 0; a < starts.length - 1; a++) {
+            starts[a + 1] += starts[a];
+        }
+        int[] next = starts.clone();
+        for (int s = 0; s < targets.length; s++) {
+            if (targets[s] >= 0) {
+                order[next[targets[s]]++] = s;
+            }
+        }
+    }
+
+    /**
+     * Adds to the target the elements given to it by all the actions, in the order
+     * of the acting agents.
+     * 
+     * @param targetIndex index of the agent receiving the elements
+     * @param target agent receiving the elements
+     */
+    void apply(int targetIndex, Agent target) {
+        for (int i = starts[targetIndex]; i < starts[targetIndex + 1]; i++) {
+            int s = order[i];
+            if (!target.addKnowledgeElement(elements[s])) {
+                if (sources[s] != TRADED) {
+                    target.setGotFrom(elements[s], sources[s]);
+                }
+                applied[s] = true;
+            }
+        }
+    }
+
+    /**
+     * @return true, if any of the elements of the agent's action was new to its target
+     */
+    boolean isApplied(int agent) {
+        for (int s = agent * SLOTS; s < (agent + 1) * SLOTS; s++) {
+            if (applied[s]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,452 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * State of all the agents of a simulation kept as struct of arrays - knowledge of every agent
+ * is a row of a bitset matrix (see KnowledgeBits), numbers of elements, production chances
+ * and trade flags are indexed by agent, so scanning the population for statistics or
+ * neighbors reads memory sequentially. Subclasses decide where the rows and the scalars are
+ * stored: HeapPopulation keeps them in Java arrays, OffHeapPopulation outside of the heap,
+ * AtomicPopulation in atomic arrays for agents acting concurrently without coordination.
+ * Agents returned by getAgent are lightweight views over the store.
+ */
+public abstract class Population {
+
+    /**
+     * Estimated number of bytes of the Java heap taken by every agent regardless of where
+     * the population is stored - the agent's view and its empty set of elements possible
+     * to develop with the references to them.
+     */
+    static final int HEAP_BYTES_PER_AGENT = 200;
+
+    /**
+     * Estimated number of bytes of the Java heap taken by every element in a set of elements
+     * possible to develop.
+     */
+    static final int HEAP_BYTES_PER_POSSIBLE_ELEMENT = 20;
+
+    /**
+     * Number of bytes of the got-from record of every agent and element (an int, 32 times
+     * the knowledge bit), wherever the population is stored. 50M agents with 10k elements
+     * need 2 TB of them, so OffHeapPopulation keeps them only on request.
+     */
+    static final int GOT_FROM_BYTES_PER_ELEMENT = 4;
+
+    /**
+     * Structure of the knowledge, null for a population holding only knowledge sets.
+     */
+    private final KnowledgeStructure knowledgeStructure;
+
+    /**
+     * Number of agents.
+     */
+    private final int size;
+
+    /**
+     * Number of knowledge elements.
+     */
+    private final int knowledgeSize;
+
+    /**
+     * Number of words of a single row of the knowledge matrix.
+     */
+    private final int wordCount;
+
+    /**
+     * Elements possible to develop by every agent, created by initAgent. Like in the original
+     * model, an element stays in the set after it was learned from another agent, until
+     * a production step picks it.
+     */
+    private final IndexedIntSet[] possibleElements;
+
+    /**
+     * Recipes of the knowledge structure indexed by parents.
+     */
+    private RecipeIndex recipes;
+
+    /**
+     * Random number generator used for picking elements to produce.
+     */
+    private RandomSource random = new Xoroshiro128PlusPlus();
+
+    private Agent[] agents;
+
+    /**
+     * Number of changes of the trade flags, so the trading neighbors cached by TradeMarket
+     * are rebuilt after a change.
+     */
+    private int tradeFlagChanges;
+
+    Population(KnowledgeStructure knowledgeStructure, int size, int knowledgeSize) {
+        this.knowledgeStructure = knowledgeStructure;
+        this.size = size;
+        this.knowledgeSize = knowledgeSize;
+        this.wordCount = KnowledgeBits.wordCount(knowledgeSize);
+        this.possibleElements = new IndexedIntSet[size];
+    }
+
+    /**
+     * Draws the initial knowledge and the parameters of all the agents. Every agent gets
+     * randomly selected base elements of the knowledge structure and then initAgent is called.
+     * 
+     * @param baseElementChance chance at which base elements will be selected, must be [0,1]
+     * @param productionChance chance of producing knowledge == (1 - propagationChance), must be [0,1]
+     * @param tradeProbability chance of the agent being a trading agent
+     */
+    public void drawAgents(double baseElementChance, double productionChance, double tradeProbability) {
+        for (int a = 0; a < size; a++) {
+            setProductionChance(a, productionChance);
+            setTrade(a, tradeProbability > random.nextDouble());
+            for (int i = 0; i < knowledgeStructure.getBaseSize(); i++) {
+                if (random.nextDouble() < baseElementChance) {
+                    setKnowledgeBit(a, i);
+                }
+            }
+            initAgent(a);
+        }
+    }
+
+    /**
+     * @param random random number generator used for drawing the agents and picking elements to produce
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getKnowledgeSize() {
+        return knowledgeSize;
+    }
+
+    public KnowledgeStructure getKnowledgeStructure() {
+        return knowledgeStructure;
+    }
+
+    /**
+     * @return number of words of a single row of the knowledge matrix
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @param agent index of the agent
+     * @return view of the agent
+     */
+    public Agent getAgent(int agent) {
+        return getAgents()[agent];
+    }
+
+    /**
+     * @return views of all the agents, created once
+     */
+    public Agent[] getAgents() {
+        if (agents == null) {
+            agents = new Agent[size];
+            for (int a = 0; a < size; a++) {
+                agents[a] = new Agent(this, a);
+            }
+        }
+        return agents;
+    }
+
+    public abstract double getProductionChance(int agent);
+
+    public abstract void setProductionChance(int agent, double productionChance);
+
+    public abstract boolean isTrade(int agent);
+
+    public void setTrade(int agent, boolean trade) {
+        setTradeFlag(agent, trade);
+        tradeFlagsChanged();
+    }
+
+    /**
+     * @return number of changes of the trade flags
+     */
+    int getTradeFlagChanges() {
+        return tradeFlagChanges;
+    }
+
+    /**
+     * Makes the trading neighbors cached for the agents of the population stale.
+     */
+    void tradeFlagsChanged() {
+        tradeFlagChanges++;
+    }
+
+    /**
+     * @return agent, from which the element was got, -1 if it was produced, 0 if it was
+     *         never set
+     */
+    public abstract int getGotFrom(int agent, int element);
+
+    public abstract void setGotFrom(int agent, int element, int from);
+
+    /**
+     * @return true, if the population keeps got-from records
+     */
+    boolean isGotFromTracked() {
+        return true;
+    }
+
+    /**
+     * @return number of the agent's knowledge elements
+     */
+    public abstract int getKnowledgeCount(int agent);
+
+    public boolean hasKnowledgeElement(int agent, int element) {
+        return (getWord(agent, element >>> 6) & (1L << element)) != 0;
+    }
+
+    /**
+     * Replaces the knowledge of the agent. initAgent must be called afterwards, if the agent
+     * is going to develop knowledge.
+     * 
+     * @param agent index of the agent
+     * @param knowledgeSet true for every element the agent has
+     */
+    public void setKnowledgeSet(int agent, boolean[] knowledgeSet) {
+        if (knowledgeSet.length != knowledgeSize) {
+            throw new IllegalArgumentException("Size of the knowledge set must be equal to the knowledge size of the population");
+        }
+        for (int w = 0; w < wordCount; w++) {
+            setWord(agent, w, 0);
+        }
+        setKnowledgeCount(agent, 0);
+        for (int i = 0; i < knowledgeSize; i++) {
+            if (knowledgeSet[i]) {
+                setKnowledgeBit(agent, i);
+            }
+        }
+    }
+
+    /**
+     * Initializes the set of elements possible to develop by the agent with its current knowledge.
+     * 
+     * @param agent index of the agent
+     */
+    public void initAgent(int agent) {
+        if (recipes == null) {
+            recipes = knowledgeStructure.getRecipeIndex();
+        }
+        if (isGotFromTracked()) {
+            for (int i = 0; i < knowledgeSize; i++) {
+                setGotFrom(agent, i, 0);
+            }
+        }
+        possibleElements[agent] = new IndexedIntSet(knowledgeSize);
+        for (int i = nextKnowledgeElement(agent, 0); i >= 0; i = nextKnowledgeElement(agent, i + 1)) {
+            addProducibleElements(agent, i);
+        }
+    }
+
+    /**
+     * Adds an element of knowledge to the agent's knowledge set.
+     * 
+     * @param agent index of the agent
+     * @param element index of knowledge element
+     * @return true if element was already present, false if not
+     */
+    public boolean addKnowledgeElement(int agent, int element) {
+        if (element >= knowledgeSize) {
+            throw new IndexOutOfBoundsException("Index of knowledge element to add out of bounds");
+        }
+        if (!setKnowledgeBit(agent, element)) {
+            return true;
+        }
+        addProducibleElements(agent, element);
+        return false;
+    }
+
+    /**
+     * Single step of knowledge development - adds a randomly chosen piece of knowledge
+     * possible to develop basing on current state of the agent's knowledge. The element is
+     * removed from the possible elements - if the agent already knows it (it was learned
+     * from another agent), the step is wasted.
+     * 
+     * @param agent index of the agent
+     * @return index of produced element, -1, if nothing was produced
+     */
+    public int produceKnowledge(int agent) {
+        return produceKnowledge(agent, random);
+    }
+
+    /**
+     * Single step of knowledge development, picking the element with the given generator.
+     * Agents may develop knowledge concurrently, as long as every thread uses its own generator.
+     * 
+     * @param agent index of the agent
+     * @param random random number generator
+     * @return index of produced element, -1, if nothing was produced
+     */
+    public int produceKnowledge(int agent, RandomSource random) {
+        int element = possibleElements[agent].randomElement(random);
+        if (element < 0) {
+            return -1;
+        }
+        possibleElements[agent].remove(element);
+        if (addKnowledgeElement(agent, element)) {
+            return -1;
+        }
+        setGotFrom(agent, element, -1);
+        return element;
+    }
+
+    /**
+     * @return elements possible to develop by the agent, null if initAgent wasn't called
+     */
+    IndexedIntSet getPossibleElements(int agent) {
+        return possibleElements[agent];
+    }
+
+    /**
+     * @param agent index of the agent
+     * @param from first element to check
+     * @return the first element of the agent not smaller than from, -1 if there is none
+     */
+    int nextKnowledgeElement(int agent, int from) {
+        int w = from >>> 6;
+        if (w >= wordCount) {
+            return -1;
+        }
+        long word = getWord(agent, w) & (-1L << from);
+        while (word == 0) {
+            if (++w == wordCount) {
+                return -1;
+            }
+            word = getWord(agent, w);
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param agent index of the agent
+     * @param k index of the element, counted from 0
+     * @return k-th element of the agent in ascending order, -1 if the agent has not more than k elements
+     */
+    int selectKnowledgeElement(int agent, int k) {
+        for (int w = 0; w < wordCount; w++) {
+            long word = getWord(agent, w);
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + KnowledgeBits.selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the elements of the agent, which the other agent doesn't have. Both populations
+     * must have the same knowledge size.
+     * 
+     * @return number of elements of agent missing in otherAgent of the other population
+     */
+    int countMissing(int agent, Population other, int otherAgent) {
+        int count = 0;
+        for (int w = 0; w < wordCount; w++) {
+            count += Long.bitCount(getWord(agent, w) & ~other.getWord(otherAgent, w));
+        }
+        return count;
+    }
+
+    /**
+     * @param k index of the element, counted from 0
+     * @return k-th element of the agent, which otherAgent of the other population doesn't have,
+     *         -1 if there is none
+     */
+    int selectMissing(int agent, Population other, int otherAgent, int k) {
+        for (int w = 0; w < wordCount; w++) {
+            long word = getWord(agent, w) & ~other.getWord(otherAgent, w);
+            int count = Long.bitCount(word);
+            if (k < count) {
+                return (w << 6) + KnowledgeBits.selectInWord(word, k);
+            }
+            k -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the knowledge of the agent to the bitset. Words of the target after the row
+     * are cleared.
+     */
+    void copyKnowledge(int agent, long[] target) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] = w < wordCount ? getWord(agent, w) : 0;
+        }
+    }
+
+    /**
+     * Adds the knowledge of the agent to the bitset (target |= row), the target must have
+     * at least getWordCount() words.
+     */
+    void orKnowledge(int agent, long[] target) {
+        for (int w = 0; w < wordCount; w++) {
+            target[w] |= getWord(agent, w);
+        }
+    }
+
+    /**
+     * Computes the length of an array holding a row of every agent, so indexes
+     * agent * rowLength + i computed in int don't overflow.
+     * 
+     * @param size number of agents
+     * @param rowLength length of a single row
+     * @return size * rowLength
+     * @throws IllegalArgumentException when the rows don't fit in a single array
+     */
+    static int rowsLength(int size, int rowLength) {
+        long length = (long) size * rowLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("%d rows of length %d don't fit in an array, use OffHeapPopulation", size, rowLength));
+        }
+        return (int) length;
+    }
+
+    /**
+     * @return w-th word of the agent's row of the knowledge matrix
+     */
+    abstract long getWord(int agent, int w);
+
+    abstract void setWord(int agent, int w, long word);
+
+    abstract void setKnowledgeCount(int agent, int count);
+
+    abstract void setTradeFlag(int agent, boolean trade);
+
+    /**
+     * Sets the bit of the element in the agent's row.
+     * 
+     * @return true if the agent didn't have the element
+     */
+    boolean setKnowledgeBit(int agent, int element) {
+        int w = element >>> 6;
+        long word = getWord(agent, w);
+        long mask = 1L << element;
+        if ((word & mask) != 0) {
+            return false;
+        }
+        setWord(agent, w, word | mask);
+        setKnowledgeCount(agent, getKnowledgeCount(agent) + 1);
+        return true;
+    }
+
+    /**
+     * Adds to possibleElements of the agent the elements, which it can develop from the given
+     * element and another known element, including the elements it already knows. Only
+     * the recipes containing the element are visited.
+     */
+    void addProducibleElements(int agent, int element) {
+        for (int r = recipes.getStart(element); r < recipes.getEnd(element); r++) {
+            int result = recipes.getResult(r);
+            if (hasKnowledgeElement(agent, recipes.getOtherParent(r))) {
+                possibleElements[agent].add(result);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.Random;
+
+/**
+ * Source of random numbers of the simulation. Implementations are fast non-cryptographic
+ * generators, which are not thread-safe - every thread should use its own stream got from
+ * split. A source created with a seed always gives the same numbers, so a whole run can be
+ * reproduced from a single seed.
+ */
+public interface RandomSource {
+
+    /**
+     * @return uniformly distributed long
+     */
+    public long nextLong();
+
+    /**
+     * Returns a new stream independent of this source. This source is advanced as well,
+     * so consecutive calls give different streams.
+     * 
+     * @return new source
+     */
+    public RandomSource split();
+
+    /**
+     * Draws an int without the modulo bias by multiplying the upper 32 bits by the bound
+     * (Lemire's method) - usually without any division.
+     * 
+     * @param bound upper bound, must be positive
+     * @return uniformly distributed int from [0, bound)
+     */
+    public default int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * @return uniformly distributed double from [0, 1)
+     */
+    public default double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return java.util.Random drawing from this source, for the APIs taking a Random
+     *         (e.g. graph creators)
+     */
+    public default Random asRandom() {
+        return new RandomSourceAdapter(this);
+    }
+
+}
@@ -0,0 +1,47 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.Random;
+
+/**
+ * java.util.Random drawing from a RandomSource. Its seed can't be set.
+ */
+class RandomSourceAdapter extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RandomSource source;
+
+    RandomSourceAdapter(RandomSource source) {
+        // a constant seed doesn't touch the shared seed uniquifier of Random
+        super(0);
+        this.source = source;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (source.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return source.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return source.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return source.nextDouble();
+    }
+
+    /**
+     * Does nothing - numbers are drawn from the source.
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+    }
+
+}
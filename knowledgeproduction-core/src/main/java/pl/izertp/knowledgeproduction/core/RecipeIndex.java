@@ -0,0 +1,83 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Incidence index of a KnowledgeStructure - for every element, the recipes in which it is
+ * one of the parents. A recipe {e1, e2} -> r is indexed twice: under e1 with the other parent
+ * e2 and under e2 with the other parent e1. Recipes of element e are at positions
+ * [getStart(e), getEnd(e)), kept in flat arrays like rows of a CSR graph.
+ * The index is immutable and may be read by many threads.
+ */
+public class RecipeIndex {
+
+    private final int[] starts;
+
+    private final int[] otherParents;
+
+    private final int[] results;
+
+    /**
+     * Indexes the recipes of the structure.
+     * 
+     * @param structure structure of knowledge
+     */
+    RecipeIndex(KnowledgeStructure structure) {
+        int size = structure.getSize();
+        starts = new int[size + 1];
+        for (int result = 0; result < size; result++) {
+            for (Integer[] parents : structure.getParents(result)) {
+                starts[parents[0] + 1]++;
+                starts[parents[1] + 1]++;
+            }
+        }
+        for (int e = 0; e < size; e++) {
+            starts[e + 1] += starts[e];
+        }
+        otherParents = new int[starts[size]];
+        results = new int[starts[size]];
+        int[] positions = new int[size];
+        System.arraycopy(starts, 0, positions, 0, size);
+        for (int result = 0; result < size; result++) {
+            for (Integer[] parents : structure.getParents(result)) {
+                int position = positions[parents[0]]++;
+                otherParents[position] = parents[1];
+                results[position] = result;
+                position = positions[parents[1]]++;
+                otherParents[position] = parents[0];
+                results[position] = result;
+            }
+        }
+    }
+
+    /**
+     * @param element knowledge element
+     * @return position of the first recipe of the element
+     */
+    public int getStart(int element) {
+        return starts[element];
+    }
+
+    /**
+     * @param element knowledge element
+     * @return position after the last recipe of the element
+     */
+    public int getEnd(int element) {
+        return starts[element + 1];
+    }
+
+    /**
+     * @param recipe position of the recipe
+     * @return the other parent of the recipe
+     */
+    public int getOtherParent(int recipe) {
+        return otherParents[recipe];
+    }
+
+    /**
+     * @param recipe position of the recipe
+     * @return element developed by the recipe
+     */
+    public int getResult(int recipe) {
+        return results[recipe];
+    }
+
+}
@@ -0,0 +1,36 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Random-sequential engine - a round is as many actions of randomly chosen agents
+ * (with repetitions) as there are agents, run one by one on a single thread.
+ */
+public class SequentialEngine implements SimulationEngine {
+
+    private final AgentStructure agentStructure;
+
+    /**
+     * Random number generator choosing the acting agents.
+     */
+    private final RandomSource random;
+
+    /**
+     * @param agentStructure agents and their connections
+     * @param random random number generator choosing the acting agents
+     */
+    public SequentialEngine(AgentStructure agentStructure, RandomSource random) {
+        this.agentStructure = agentStructure;
+        this.random = random;
+    }
+
+    public int runRound() {
+        int size = agentStructure.getAgents().length;
+        int effects = 0;
+        for (int j = 0; j < size; j++) {
+            if (agentStructure.makeStep(random.nextInt(size))) {
+                effects++;
+            }
+        }
+        return effects;
+    }
+
+}
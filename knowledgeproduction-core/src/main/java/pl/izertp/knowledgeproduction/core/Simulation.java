@@ -2,10 +2,11 @@ package pl.izertp.knowledgeproduction.core;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import lombok.Getter;
+import pl.izertp.knowledgeproduction.graph.GraphFactory;
 
 /**
  * Implements runnable method, which does the simulation.
@@ -30,8 +31,41 @@ public class Simulation implements Runnable {
 
     private static final double TRADE_PROBABILITY = 0;
 
+    private static final double REWIRING_PROBABILITY = 0;
+
     private static final int NUMBER_OF_ITERATIONS = 20000;
 
+    /**
+     * True, if the state of the agents is kept outside of the heap (see OffHeapPopulation).
+     */
+    private static final boolean OFF_HEAP_POPULATION = false;
+
+    private static final Mode MODE = Mode.SEQUENTIAL;
+
+    /**
+     * Ways of running the rounds of the simulation.
+     */
+    public enum Mode {
+        /**
+         * Random-sequential actions on a single thread, see SequentialEngine.
+         */
+        SEQUENTIAL,
+        /**
+         * Concurrent actions of agents of one color of a distance-2 coloring, see ColoredParallelEngine.
+         */
+        COLORED,
+        /**
+         * Asynchronous actions of random agents on many threads, see HogwildEngine.
+         * The agents are kept in an AtomicPopulation.
+         */
+        HOGWILD,
+        /**
+         * Synchronous rounds, in which every agent acts on the state from the previous round,
+         * see SynchronousEngine.
+         */
+        SYNCHRONOUS
+    }
+
     /**
      * Structure of the knowledge for all the agents.
      */
@@ -43,35 +77,98 @@ public class Simulation implements Runnable {
     private AgentStructure agentStructure;
 
     /**
-     * Array of agents.
+     * State of all the agents.
+     */
+    private Population population;
+
+    /**
+     * Array of agents - views of the population.
      */
     @Getter
     private Agent[] agents;
 
+    /**
+     * Seed of all the random numbers of the simulation.
+     */
+    @Getter
+    private final long seed;
+
+    /**
+     * Engine running the rounds.
+     */
+    private final SimulationEngine engine;
+
     public Simulation() {
         this(TRADE_PROBABILITY);
     }
 
+    /**
+     * Creates new simulation with a random seed, see Simulation(double, long).
+     */
+    public Simulation(double tradeProbability) {
+        this(tradeProbability, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates new simulation run in the mode given as final static field,
+     * see Simulation(double, long, Mode).
+     */
+    public Simulation(double tradeProbability, long seed) {
+        this(tradeProbability, seed, MODE);
+    }
+
     /**
      * Creates new simulation using parameters given as final static fields.
      * Every knowledge element must be possessed by at least one agent.
      * If not, the initial knowledge distribution draw is repeated.
+     * The knowledge structure, the population, the agents' graph and the agents' actions
+     * draw from separate streams split from one generator, so the same seed gives
+     * the same run.
+     * 
+     * @param tradeProbability chance of an agent being a trading agent
+     * @param seed seed of all the random numbers of the simulation
+     * @param mode way of running the rounds
      */
-    public Simulation(double tradeProbability) {
-        knowledgeStructure = new KnowledgeStructure(KNOWLEDGE_BASE_SIZE, KNOWLEDGE_SIZE, KNOWLEDGE_CONNECTIONS);
+    public Simulation(double tradeProbability, long seed, Mode mode) {
+        this.seed = seed;
+        RandomSource master = new Xoroshiro128PlusPlus(seed);
+        RandomSource random = master.split();
+        knowledgeStructure = new KnowledgeStructure(KNOWLEDGE_BASE_SIZE, KNOWLEDGE_SIZE, KNOWLEDGE_CONNECTIONS, master.split());
+        RandomSource populationRandom = master.split();
 
         // knowledge draw is repeated, if there is a base element which is not obtained by any agent
         while (agents == null || SimulationStatistics.numberOfElements(agents) < KNOWLEDGE_BASE_SIZE) {
             if (agents != null)
                 System.out.println("Re-drawing knowledge elements");
 
-            agents = new Agent[NUMBER_OF_AGENTS];
-            for (int i = 0; i < NUMBER_OF_AGENTS; i++) {
-                agents[i] = new Agent(knowledgeStructure, KNOWLEDGE_ELEMENT_PROBABILITY, PRODUCTION_PROBABILITY, tradeProbability);
+            if (mode == Mode.HOGWILD) {
+                population = new AtomicPopulation(knowledgeStructure, NUMBER_OF_AGENTS);
+            } else if (OFF_HEAP_POPULATION) {
+                population = new OffHeapPopulation(knowledgeStructure, NUMBER_OF_AGENTS);
+            } else {
+                population = new HeapPopulation(knowledgeStructure, NUMBER_OF_AGENTS);
             }
+            population.setRandom(populationRandom);
+            population.drawAgents(KNOWLEDGE_ELEMENT_PROBABILITY, PRODUCTION_PROBABILITY, tradeProbability);
+            agents = population.getAgents();
         }
         // every edge is connected to two agents
-        agentStructure = new AgentStructure(agents, (int) (NUMBER_OF_AGENTS / 2.) * AVARAGE_AGENT_CONNECTIONS);
+        GraphFactory networkFactory = GraphFactory.erdosRenyi((int) (NUMBER_OF_AGENTS / 2.) * AVARAGE_AGENT_CONNECTIONS, master.split().asRandom());
+        if (REWIRING_PROBABILITY > 0) {
+            networkFactory = GraphFactory.dynamic(networkFactory);
+        }
+        agentStructure = new AgentStructure(agents, networkFactory);
+        agentStructure.setRewiringProbability(REWIRING_PROBABILITY);
+        agentStructure.setRandom(master.split());
+        if (mode == Mode.COLORED) {
+            engine = new ColoredParallelEngine(agentStructure, master.nextLong());
+        } else if (mode == Mode.HOGWILD) {
+            engine = new HogwildEngine(agentStructure, master.nextLong());
+        } else if (mode == Mode.SYNCHRONOUS) {
+            engine = new SynchronousEngine(agentStructure, master.nextLong());
+        } else {
+            engine = new SequentialEngine(agentStructure, random);
+        }
     }
 
     /**
@@ -86,14 +183,13 @@ public class Simulation implements Runnable {
             return;
         }
 
+        SimulationStatistics.writeNetworkStats(agentStructure.getNeighborGraph());
         // SimulationStatistics.writeDepthTotal(agents);
         // writeStatistics(true);
         SimulationStatistics.writeAllStatsHeader(agents);
         SimulationStatistics.writeAllStats(agents);
         for (int i = 0; i < NUMBER_OF_ITERATIONS; i++) {
-            for (int j = 0; j < agents.length; j++) {
-                agentStructure.makeStep(randomAgentIndex());
-            }
+            runRound();
             // writeStatistics(false);
             SimulationStatistics.writeAllStats(agents);
         }
@@ -102,8 +198,13 @@ public class Simulation implements Runnable {
         //verifyEachElementParents();
     }
 
-    private int randomAgentIndex() {
-        return new Random().nextInt(agents.length);
+    /**
+     * Runs a single iteration of the simulation without writing statistics.
+     * 
+     * @return number of actions, which had an effect
+     */
+    public int runRound() {
+        return engine.runRound();
     }
 
     private void writeStatistics(boolean stdout) {
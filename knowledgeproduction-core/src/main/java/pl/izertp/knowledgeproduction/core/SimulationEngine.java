@@ -0,0 +1,16 @@
+package pl.izertp.knowledgeproduction.core;
+
+/**
+ * Strategy of running the actions of agents - one round is one iteration of the simulation,
+ * in which every agent acts once on average.
+ */
+public interface SimulationEngine {
+
+    /**
+     * Runs a single round.
+     * 
+     * @return number of actions, which had an effect (knowledge was produced, propagated or traded)
+     */
+    public int runRound();
+
+}
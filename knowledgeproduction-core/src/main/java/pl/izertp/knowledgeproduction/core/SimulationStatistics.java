@@ -4,8 +4,11 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+
+import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.analysis.ClusteringCoefficients;
+import pl.izertp.knowledgeproduction.graph.analysis.ConnectedComponents;
+import pl.izertp.knowledgeproduction.graph.analysis.GraphAnalysis;
 
 /**
  * A helper class, which counts all the necessary simulation statistics.
@@ -30,6 +33,14 @@ public class SimulationStatistics {
 
     private static final String ALL_STATS_FILENAME = "allstats.txt";
 
+    private static final String NETWORK_STATS_FILENAME = "networkstats.txt";
+
+    /**
+     * Maximal work of counting triangles (sum of squared degrees), above which clustering
+     * coefficients are not computed.
+     */
+    private static final long MAX_CLUSTERING_WORK = 1L << 32;
+
     private static BufferedWriter sumAllWriter;
 
     private static BufferedWriter numberWriter;
@@ -42,6 +53,13 @@ public class SimulationStatistics {
 
     private static BufferedWriter allStatsWriter;
 
+    /**
+     * Closure of the knowledge structure of the agents, created on first use.
+     */
+    private static KnowledgeClosure knowledgeClosure;
+
+    private static KnowledgeStructure closureStructure;
+
     /**
      * Counts the sum of all the elements in the simulation.
      * 
@@ -72,6 +90,40 @@ public class SimulationStatistics {
         return sum;
     }
 
+    /**
+     * Counts the elements, which every agent could develop from its current knowledge
+     * (including the elements it already has). The agents must share a knowledge structure.
+     * 
+     * @param agents array of agents
+     * @return number of reachable elements indexed by agent
+     */
+    public static int[] reachableCounts(Agent[] agents) {
+        if (agents.length == 0) {
+            return new int[0];
+        }
+        KnowledgeStructure structure = agents[0].getKnowledgeStructure();
+        if (knowledgeClosure == null || closureStructure != structure) {
+            knowledgeClosure = new KnowledgeClosure(structure);
+            closureStructure = structure;
+        }
+        return knowledgeClosure.reachableCounts(agents);
+    }
+
+    /**
+     * Counts the sum of elements reachable by all the agents - the knowledge, which the agents
+     * would have, if they developed everything they can without any propagation.
+     * 
+     * @param agents array of agents
+     * @return sum of reachable elements of all the agents
+     */
+    public static long sumOfReachableElements(Agent[] agents) {
+        long sum = 0;
+        for (int count : reachableCounts(agents)) {
+            sum += count;
+        }
+        return sum;
+    }
+
     /**
      * Counts the number of distinct knowledge elements in the simulation.
      * 
@@ -79,15 +131,11 @@ public class SimulationStatistics {
      * @return number of distinct knowledge elements
      */
     public static int numberOfElements(Agent[] agents) {
-        Set<Integer> elements = new HashSet<Integer>();
+        long[] elements = new long[KnowledgeBits.wordCount(knowledgeMaxSize(agents))];
         for (Agent a : agents) {
-            for (int i = 0; i < a.getKnowledgeSize(); i++) {
-                if (a.hasKnowledgeElement(i)) {
-                    elements.add(i);
-                }
-            }
+            a.getPopulation().orKnowledge(a.getIndex(), elements);
         }
-        return elements.size();
+        return KnowledgeBits.count(elements);
     }
 
     /**
@@ -185,11 +233,9 @@ public class SimulationStatistics {
         }
         int[] depthSum = new int[maxDepth + 1];
         for (Agent a : agents) {
-            for (int i = 0; i < a.getKnowledgeSize(); i++) {
-                if (a.hasKnowledgeElement(i)) {
-                    KnowledgeStructure structure = a.getKnowledgeStructure();
-                    depthSum[structure.getElementDepth(i)]++;
-                }
+            KnowledgeStructure structure = a.getKnowledgeStructure();
+            for (int i = a.nextKnowledgeElement(0); i >= 0; i = a.nextKnowledgeElement(i + 1)) {
+                depthSum[structure.getElementDepth(i)]++;
             }
         }
         return depthSum;
@@ -262,10 +308,8 @@ public class SimulationStatistics {
         int[] sums = new int[maxSize];
 
         for (Agent a : agents) {
-            for (int i = 0; i < a.getKnowledgeSize(); i++) {
-                if (a.hasKnowledgeElement(i)) {
-                    sums[i]++;
-                }
+            for (int i = a.nextKnowledgeElement(0); i >= 0; i = a.nextKnowledgeElement(i + 1)) {
+                sums[i]++;
             }
         }
         return sums;
@@ -296,7 +340,7 @@ public class SimulationStatistics {
         int[] depthTotal = depthTotal(agents);
         try {
             StringBuilder sb = new StringBuilder();
-            sb.append("\t\t");
+            sb.append("\t\t\t\t");
             int i;
             for (i = 0; i < depthTotal.length; i++) {
                 sb.append(String.format("%d\t", depthTotal[i]));
@@ -314,6 +358,7 @@ public class SimulationStatistics {
     public static void writeAllStats(Agent[] agents) {
         int sum = sumOfElements(agents);
         int number = numberOfElements(agents);
+        long reachable = sumOfReachableElements(agents);
         int[] depth = depthSum(agents);
         int[] distribution = distributionOfKnowledgeCount(agents);
         double variance = variance(distribution);
@@ -321,6 +366,9 @@ public class SimulationStatistics {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("%d\t", sum));
         sb.append(String.format("%d\t", number));
+        // reachable knowledge and the part of it, which is not developed yet
+        sb.append(String.format("%d\t", reachable));
+        sb.append(String.format("%d\t", reachable - sum));
 
         int i;
         for (i = 0; i < depth.length; i++) {
@@ -343,6 +391,91 @@ public class SimulationStatistics {
         }
     }
 
+    /**
+     * Writes the statistics of the agents' network to a separate file: components, degree
+     * histogram, clustering coefficients and distances from the first agent.
+     * The statistics describe the network at the time of the call - when connections are
+     * rewired, the network changes during the simulation and the file written at the start
+     * describes only the initial network.
+     * Clustering coefficients are skipped (written as NaN) for dense networks, see
+     * isClusteringFeasible.
+     * 
+     * @param graph graph of agents' connections
+     */
+    public static void writeNetworkStats(Graph graph) {
+        ConnectedComponents components = GraphAnalysis.connectedComponents(graph);
+        long[] histogram = GraphAnalysis.degreeHistogram(graph);
+        double averageClustering = Double.NaN;
+        double globalClustering = Double.NaN;
+        if (isClusteringFeasible(histogram)) {
+            ClusteringCoefficients clustering = GraphAnalysis.clustering(graph);
+            averageClustering = clustering.getAverage();
+            globalClustering = clustering.getGlobal();
+        }
+
+        long distanceSum = 0;
+        int reachable = 0;
+        int eccentricity = 0;
+        if (graph.getSize() > 0) {
+            for (int distance : GraphAnalysis.distances(graph, 0)) {
+                if (distance > 0) {
+                    distanceSum += distance;
+                    reachable++;
+                    eccentricity = Math.max(eccentricity, distance);
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Agents\t%d%n", graph.getSize()));
+        sb.append(String.format("Components\t%d%n", components.getCount()));
+        sb.append(String.format("Largest component\t%d%n", components.getLargestSize()));
+        sb.append(String.format("Average clustering\t%f%n", averageClustering));
+        sb.append(String.format("Global clustering\t%f%n", globalClustering));
+        sb.append(String.format("Mean distance from agent 0\t%f%n", reachable == 0 ? 0 : (double) distanceSum / reachable));
+        sb.append(String.format("Eccentricity of agent 0\t%d%n", eccentricity));
+        sb.append("Degree distribution\t");
+        for (int i = 0; i < histogram.length; i++) {
+            sb.append(String.format("%d\t", histogram[i]));
+        }
+        sb.append(String.format("%n"));
+
+        BufferedWriter networkWriter = null;
+        try {
+            networkWriter = new BufferedWriter(new FileWriter(new File(OUTPUT_DIRECTORY + "/" + NETWORK_STATS_FILENAME)));
+            networkWriter.write(sb.toString());
+        } catch (IOException e) {
+            System.out.println("Problem with writing network statistics to a file");
+        } finally {
+            try {
+                if (networkWriter != null) {
+                    networkWriter.close();
+                }
+            } catch (IOException e) {
+                System.out.println("Problem with closing network statistics file");
+            }
+        }
+    }
+
+    /**
+     * Counting triangles takes about the sum of squared degrees (times log of the degree),
+     * which is prohibitive for dense networks - e.g. 8 * 10^12 for a complete graph
+     * of 20000 agents.
+     * 
+     * @param histogram degree histogram of the network
+     * @return true, if the sum of squared degrees doesn't exceed MAX_CLUSTERING_WORK
+     */
+    static boolean isClusteringFeasible(long[] histogram) {
+        long work = 0;
+        for (int degree = 0; degree < histogram.length; degree++) {
+            work += histogram[degree] * degree * degree;
+            if (work > MAX_CLUSTERING_WORK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Opens all the output files and writes their initial content.
      * 
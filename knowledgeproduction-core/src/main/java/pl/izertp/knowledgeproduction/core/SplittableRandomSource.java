@@ -0,0 +1,46 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * RandomSource backed by java.util.SplittableRandom.
+ */
+public class SplittableRandomSource implements RandomSource {
+
+    private final SplittableRandom random;
+
+    /**
+     * Creates a source with a random seed.
+     */
+    public SplittableRandomSource() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * @param seed seed, the same seed always gives the same numbers
+     */
+    public SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    public RandomSource split() {
+        return new SplittableRandomSource(random.split());
+    }
+
+}
@@ -0,0 +1,134 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import pl.izertp.knowledgeproduction.graph.ParallelRanges;
+
+/**
+ * Synchronous engine - in a round every agent acts once on the state of all the agents
+ * from the end of the previous round. A round is two parallel sweeps over the agents:
+ * first every agent plans its action reading the population, which is not changed during
+ * the sweep (except that a production step drops the picked element from the agent's own
+ * possible elements), and records the elements to add in PendingUpdates; then the updates are
+ * bucketed by their targets with a counting sort and every agent adds the elements given to it
+ * (in the order of the acting agents), writing only to its own row. The second sweep does
+ * O(1) work per update, independent of the degrees. Neither of the sweeps has write conflicts,
+ * so any population may be used.
+ * Every action draws from a generator seeded with (seed, round, agent), so the results
+ * depend only on the seed, not on the number of threads or on scheduling.
+ * Propagation is always targeted and rewiring is not supported.
+ */
+public class SynchronousEngine implements SimulationEngine {
+
+    /**
+     * Number of agents handled in a single task.
+     */
+    private static final int AGENTS_PER_TASK = 1024;
+
+    private final AgentStructure agentStructure;
+
+    private final long seed;
+
+    private final ForkJoinPool pool;
+
+    private PendingUpdates updates;
+
+    /**
+     * Number of finished rounds.
+     */
+    private int round;
+
+    public SynchronousEngine(AgentStructure agentStructure, long seed) {
+        this(agentStructure, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param agentStructure agents and their connections
+     * @param seed seed of all the actions
+     * @param pool pool running the tasks
+     */
+    public SynchronousEngine(AgentStructure agentStructure, long seed, ForkJoinPool pool) {
+        this.agentStructure = agentStructure;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * @return number of finished rounds
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @throws IllegalStateException when the agents' graph may be rewired
+     */
+    public int runRound() {
+        if (agentStructure.getRewiringProbability() > 0) {
+            throw new IllegalStateException("Agents' graph can't be rewired by the synchronous engine");
+        }
+        int size = agentStructure.getAgents().length;
+        if (updates == null) {
+            updates = new PendingUpdates(size);
+        }
+        agentStructure.prepareConcurrentSteps();
+        sweep(size, false);
+        updates.sortByTarget();
+        sweep(size, true);
+        int effects = 0;
+        for (int a = 0; a < size; a++) {
+            if (updates.isApplied(a)) {
+                effects++;
+            }
+        }
+        round++;
+        return effects;
+    }
+
+    /**
+     * Plans the actions or applies the updates of all the agents.
+     */
+    private void sweep(int size, final boolean apply) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < size; start += AGENTS_PER_TASK) {
+            final int from = start;
+            final int to = Math.min(size, start + AGENTS_PER_TASK);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    if (apply) {
+                        applyUpdates(from, to);
+                    } else {
+                        planSteps(from, to);
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+    }
+
+    /**
+     * Plans the actions of the agents [from, to).
+     */
+    private void planSteps(int from, int to) {
+        Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(0);
+        for (int a = from; a < to; a++) {
+            random.setSeed(Xoroshiro128PlusPlus.taskSeed(seed, round, a));
+            agentStructure.planStep(a, random, updates);
+        }
+    }
+
+    /**
+     * Adds to the agents [from, to) the elements given to them in the current round.
+     */
+    private void applyUpdates(int from, int to) {
+        Agent[] agents = agentStructure.getAgents();
+        for (int a = from; a < to; a++) {
+            updates.apply(a, agents[a]);
+        }
+    }
+
+}
@@ -0,0 +1,269 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.NeighborCursor;
+
+/**
+ * Trades of knowledge between neighboring trading agents. Trading neighbors of every trading
+ * agent are kept in CSR form (one int array of rows and their offsets), so a partner is drawn
+ * in O(1). Whether a trade is possible is checked with and-not bit counts of the agents'
+ * knowledge, and the traded elements are picked without building any sets.
+ * The rows are built on first use. They are rebuilt, when the trade flags of the agents change
+ * (checked with the changes counted by their populations), and after invalidate is called -
+ * it must be called when the graph changes.
+ */
+public class TradeMarket {
+
+    private final Agent[] agents;
+
+    private final Graph graph;
+
+    /**
+     * Trading neighbors of agent a are at positions [starts[a], starts[a + 1]) of neighbors.
+     */
+    private int[] starts;
+
+    private int[] neighbors;
+
+    /**
+     * Distinct populations of the agents and their numbers of trade flag changes, when
+     * the rows were built.
+     */
+    private Population[] populations;
+
+    private int[] tradeFlagChanges;
+
+    /**
+     * Order of agents in a trade round, reused between rounds.
+     */
+    private int[] order;
+
+    /**
+     * True for agents, which already traded in the current round.
+     */
+    private boolean[] matched;
+
+    /**
+     * Creates a market of the agents connected by the graph.
+     * 
+     * @param agents array of agents
+     * @param graph graph of agents' connections
+     */
+    public TradeMarket(Agent[] agents, Graph graph) {
+        this.agents = agents;
+        this.graph = graph;
+    }
+
+    /**
+     * Drops the trading neighbors, so they are rebuilt before the next trade.
+     */
+    public void invalidate() {
+        starts = null;
+        neighbors = null;
+    }
+
+    /**
+     * @param agentIndex index of the agent
+     * @return number of trading neighbors of the agent, 0 if the agent doesn't trade
+     */
+    public int getPartnerCount(int agentIndex) {
+        build();
+        return starts[agentIndex + 1] - starts[agentIndex];
+    }
+
+    /**
+     * Trades with a random trading neighbor - each of the agents gets a random element
+     * the other one has and it doesn't have.
+     * 
+     * @param agentIndex index of the trading agent
+     * @param random random number generator
+     * @return true, if the trade took place (false, when the agent has no trading neighbors
+     *         or the drawn neighbor has nothing to trade)
+     */
+    public boolean trade(int agentIndex, RandomSource random) {
+        int partnerCount = getPartnerCount(agentIndex);
+        if (partnerCount == 0) {
+            return false;
+        }
+        int partnerIndex = neighbors[starts[agentIndex] + random.nextInt(partnerCount)];
+        return exchange(agentIndex, partnerIndex, random);
+    }
+
+    /**
+     * Plans a trade with a random trading neighbor like trade, but instead of adding
+     * the exchanged elements to the agents, only records them in the updates.
+     * 
+     * @param agentIndex index of the trading agent
+     * @param random random number generator
+     * @param updates updates of the agents' actions
+     */
+    void planTrade(int agentIndex, RandomSource random, PendingUpdates updates) {
+        int partnerCount = getPartnerCount(agentIndex);
+        if (partnerCount == 0) {
+            return;
+        }
+        int partnerIndex = neighbors[starts[agentIndex] + random.nextInt(partnerCount)];
+        Agent agent = agents[agentIndex];
+        Agent partner = agents[partnerIndex];
+        int agentOffer = agent.countMissingIn(partner);
+        if (agentOffer == 0) {
+            return;
+        }
+        int partnerOffer = partner.countMissingIn(agent);
+        if (partnerOffer == 0) {
+            return;
+        }
+        updates.add(agentIndex, partnerIndex, agent.selectMissingIn(partner, random.nextInt(agentOffer)), PendingUpdates.TRADED);
+        updates.add(agentIndex, agentIndex, partner.selectMissingIn(agent, random.nextInt(partnerOffer)), PendingUpdates.TRADED);
+    }
+
+    /**
+     * Clears a whole round of trades as a matching: trading agents are visited in random
+     * order and each unmatched agent trades with its first unmatched trading neighbor
+     * (starting from a random one), with which a trade is possible. Every agent trades
+     * at most once in a round.
+     * 
+     * @param random random number generator
+     * @return number of trades, which took place
+     */
+    public int tradeRound(RandomSource random) {
+        build();
+        int count = 0;
+        for (int a = 0; a < agents.length; a++) {
+            if (starts[a + 1] > starts[a]) {
+                order[count++] = a;
+            }
+            matched[a] = false;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        int trades = 0;
+        for (int i = 0; i < count; i++) {
+            int agentIndex = order[i];
+            if (matched[agentIndex]) {
+                continue;
+            }
+            int start = starts[agentIndex];
+            int partnerCount = starts[agentIndex + 1] - start;
+            int offset = random.nextInt(partnerCount);
+            for (int k = 0; k < partnerCount; k++) {
+                int partnerIndex = neighbors[start + (offset + k) % partnerCount];
+                if (!matched[partnerIndex] && exchange(agentIndex, partnerIndex, random)) {
+                    matched[agentIndex] = true;
+                    matched[partnerIndex] = true;
+                    trades++;
+                    break;
+                }
+            }
+        }
+        return trades;
+    }
+
+    /**
+     * Exchanges a random element of each agent, which the other one doesn't have.
+     * 
+     * @return true, if both agents had something to trade
+     */
+    private boolean exchange(int agentIndex, int partnerIndex, RandomSource random) {
+        Agent agent = agents[agentIndex];
+        Agent partner = agents[partnerIndex];
+        int agentOffer = agent.countMissingIn(partner);
+        if (agentOffer == 0) {
+            return false;
+        }
+        int partnerOffer = partner.countMissingIn(agent);
+        if (partnerOffer == 0) {
+            return false;
+        }
+        int agentElement = agent.selectMissingIn(partner, random.nextInt(agentOffer));
+        int partnerElement = partner.selectMissingIn(agent, random.nextInt(partnerOffer));
+        if (agentElement < 0 || partnerElement < 0) {
+            // one of the agents learned the missing elements in the meantime (see AtomicPopulation)
+            return false;
+        }
+        boolean agentHad = agent.addKnowledgeElement(partnerElement);
+        boolean partnerHad = partner.addKnowledgeElement(agentElement);
+        if (agentHad && partnerHad) {
+            // both elements were learned concurrently from other agents
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds the rows of trading neighbors, if they are not built. After that trades may be
+     * run concurrently, as long as they don't share agents.
+     */
+    void build() {
+        if (starts != null && !tradeFlagsChanged()) {
+            return;
+        }
+        int n = agents.length;
+        Set<Population> distinct = Collections.newSetFromMap(new IdentityHashMap<Population, Boolean>());
+        for (Agent agent : agents) {
+            distinct.add(agent.getPopulation());
+        }
+        Population[] rowPopulations = distinct.toArray(new Population[distinct.size()]);
+        int[] rowChanges = new int[rowPopulations.length];
+        for (int i = 0; i < rowPopulations.length; i++) {
+            rowChanges[i] = rowPopulations[i].getTradeFlagChanges();
+        }
+        int[] rowStarts = new int[n + 1];
+        NeighborCursor cursor = graph.newNeighborCursor();
+        for (int a = 0; a < n; a++) {
+            if (agents[a].isTrade()) {
+                cursor.reset(a);
+                while (cursor.hasNext()) {
+                    if (agents[cursor.next()].isTrade()) {
+                        rowStarts[a + 1]++;
+                    }
+                }
+            }
+            rowStarts[a + 1] += rowStarts[a];
+        }
+        int[] rows = new int[rowStarts[n]];
+        for (int a = 0; a < n; a++) {
+            if (agents[a].isTrade()) {
+                int position = rowStarts[a];
+                cursor.reset(a);
+                while (cursor.hasNext()) {
+                    int neighbor = cursor.next();
+                    if (agents[neighbor].isTrade()) {
+                        rows[position++] = neighbor;
+                    }
+                }
+            }
+        }
+        if (order == null || order.length != n) {
+            order = new int[n];
+            matched = new boolean[n];
+        }
+        populations = rowPopulations;
+        tradeFlagChanges = rowChanges;
+        neighbors = rows;
+        starts = rowStarts;
+    }
+
+    /**
+     * Checks every population of the agents, so standalone agents cost a check each.
+     * 
+     * @return true, if the trade flags changed after the rows were built
+     */
+    private boolean tradeFlagsChanged() {
+        for (int i = 0; i < populations.length; i++) {
+            if (populations[i].getTradeFlagChanges() != tradeFlagChanges[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -1,7 +1,7 @@
 package pl.izertp.knowledgeproduction.core;
 
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Utils {
 
@@ -15,7 +15,7 @@ public class Utils {
         int size = set.size();
         if (size == 0)
             return null;
-        int index = new Random().nextInt(size);
+        int index = ThreadLocalRandom.current().nextInt(size);
         int i = 0;
         for (T obj : set) {
             if (i == index)
@@ -0,0 +1,111 @@
+package pl.izertp.knowledgeproduction.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * xoroshiro128++ generator of Blackman and Vigna - 128 bits of state, a few shifts and rotations
+ * per number and period 2^128 - 1. The state is initialized from the seed with SplitMix64.
+ * Streams got from split are separated with jump, so they don't overlap for 2^64 numbers.
+ */
+public class Xoroshiro128PlusPlus implements RandomSource {
+
+    private static final long[] JUMP = { 0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L };
+
+    private long s0;
+
+    private long s1;
+
+    /**
+     * Creates a generator with a random seed.
+     */
+    public Xoroshiro128PlusPlus() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed seed, the same seed always gives the same numbers
+     */
+    public Xoroshiro128PlusPlus(long seed) {
+        setSeed(seed);
+    }
+
+    private Xoroshiro128PlusPlus(long s0, long s1) {
+        this.s0 = s0;
+        this.s1 = s1;
+    }
+
+    /**
+     * Mixes the seed of a parallel run with the round and the index of a stream (an agent
+     * or a task), so every stream of every round gets its own seed, independent of scheduling.
+     * 
+     * @param seed seed of the run
+     * @param round index of the round
+     * @param index index of the stream, at least -1
+     * @return seed of the stream
+     */
+    static long taskSeed(long seed, int round, int index) {
+        return seed ^ (round * 0x9e3779b97f4a7c15L) ^ ((index + 1) * 0xc2b2ae3d27d4eb4fL);
+    }
+
+    /**
+     * Starts the generator again from the seed, so one instance may draw many seeded streams
+     * without allocating.
+     * 
+     * @param seed seed, the same seed always gives the same numbers
+     */
+    public void setSeed(long seed) {
+        seed += 0x9e3779b97f4a7c15L;
+        s0 = mix(seed);
+        seed += 0x9e3779b97f4a7c15L;
+        s1 = mix(seed);
+    }
+
+    public long nextLong() {
+        long s0 = this.s0;
+        long s1 = this.s1;
+        long result = Long.rotateLeft(s0 + s1, 17) + s0;
+        s1 ^= s0;
+        this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        this.s1 = Long.rotateLeft(s1, 28);
+        return result;
+    }
+
+    /**
+     * Returns a copy of the current state and jumps this generator, so the returned stream
+     * has 2^64 numbers, which this generator doesn't give.
+     */
+    public RandomSource split() {
+        Xoroshiro128PlusPlus stream = new Xoroshiro128PlusPlus(s0, s1);
+        jump();
+        return stream;
+    }
+
+    /**
+     * Advances the generator by 2^64 numbers.
+     */
+    public void jump() {
+        long jumped0 = 0;
+        long jumped1 = 0;
+        for (long word : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((word & (1L << b)) != 0) {
+                    jumped0 ^= s0;
+                    jumped1 ^= s1;
+                }
+                nextLong();
+            }
+        }
+        s0 = jumped0;
+        s1 = jumped1;
+    }
+
+    /**
+     * Output function of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
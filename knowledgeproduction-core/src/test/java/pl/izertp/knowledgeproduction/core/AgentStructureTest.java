@@ -9,6 +9,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import pl.izertp.knowledgeproduction.graph.AdjacencyListGraph;
+import pl.izertp.knowledgeproduction.graph.DynamicGraph;
 import pl.izertp.knowledgeproduction.graph.Graph;
 import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
 import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
@@ -92,4 +93,44 @@ public class AgentStructureTest {
         assertEquals("AgentProduce should now have some propagated knowledge", 1, agentProduce.getHaveKnowledge().size());
     }
 
+    @Test
+    public void testRewireConnection() {
+        DynamicGraph graph = new DynamicGraph(3);
+        graph.addEdge(0, 1);
+        AgentStructure agentStructure = new AgentStructure();
+        agentStructure.setAgents(new Agent[] { agentProduce, agentPropagate, new Agent() });
+        agentStructure.setAgentsGraph(graph);
+        agentStructure.initNeighborList();
+
+        assertTrue("Connection should be rewired", agentStructure.rewireConnection(0));
+        assertTrue(graph.getEdge(0, 2));
+        assertFalse(graph.getEdge(0, 1));
+        assertFalse("Agent 1 has no connections to rewire", agentStructure.rewireConnection(1));
+    }
+
+    @Test
+    public void testRewiringUsesStepRandom() {
+        DynamicGraph graph = new DynamicGraph(3);
+        graph.addEdge(0, 1);
+        AgentStructure agentStructure = new AgentStructure();
+        agentStructure.setAgents(new Agent[] { agentProduce, agentPropagate, new Agent() });
+        agentStructure.setAgentsGraph(graph);
+        agentStructure.initNeighborList();
+        agentStructure.setRewiringProbability(1);
+        // the whole step must draw from the generator passed to makeStep
+        agentStructure.setRandom(new RandomSource() {
+            public long nextLong() {
+                throw new IllegalStateException("Structure's generator used in a step");
+            }
+
+            public RandomSource split() {
+                throw new IllegalStateException("Structure's generator used in a step");
+            }
+        });
+
+        agentProduce.initAgent();
+        agentStructure.makeStep(0, new Xoroshiro128PlusPlus(1));
+        assertTrue(graph.getEdge(0, 2));
+    }
+
 }
@@ -83,4 +83,24 @@ public class AgentTest {
         assertArrayEquals("Test agent shouldnt have any non-base knowledge", NONBASEARRAY, agent.getDoesntHaveKnowledge().toArray());
     }
 
+    @Test
+    public void testLearnedElementWastesProduction() {
+        // TO1a is learned from another agent, but it still may be picked by production
+        agent.addKnowledgeElement(TO1a);
+        agent.setGotFrom(TO1a, 5);
+        int produced = 0;
+        for (int i = 0; i < 2; i++) {
+            int element = agent.produceKnowledge();
+            if (element == TO1b) {
+                produced++;
+            } else {
+                assertEquals(-1, element);
+            }
+        }
+        assertEquals(1, produced);
+        assertEquals(-1, agent.produceKnowledge());
+        assertEquals(5, agent.getGotFrom(TO1a));
+        assertEquals(BASESIZE + 2, agent.getKnowledgeTotalCount());
+    }
+
 }
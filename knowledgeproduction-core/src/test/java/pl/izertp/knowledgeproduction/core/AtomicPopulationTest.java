@@ -0,0 +1,135 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.SparseHyperGraph;
+
+public class AtomicPopulationTest {
+
+    private static final int SIZE = 100;
+
+    private static final int BASESIZE = 4;
+
+    private static final int AGENTS = 2000;
+
+    private static final int THREADS = 4;
+
+    private KnowledgeStructure knowledgeStructure;
+
+    @Before
+    public void setUp() {
+        // 0 + 1 -> 70, 70 + 2 -> 99
+        HyperGraph graph = new MixedHyperGraph(SIZE);
+        graph.addEdge(0, 1, 70);
+        graph.addEdge(70, 2, 99);
+        knowledgeStructure = new KnowledgeStructure(graph, BASESIZE);
+    }
+
+    @Test
+    public void testStorage() {
+        AtomicPopulation population = new AtomicPopulation(knowledgeStructure, AGENTS);
+        population.drawAgents(1, 0.5, 0);
+        population.setTrade(AGENTS - 1, true);
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(BASESIZE, population.getKnowledgeCount(a));
+            assertEquals(a == AGENTS - 1, population.isTrade(a));
+        }
+        assertEquals(0.5, population.getProductionChance(0), 0);
+
+        assertEquals(70, population.produceKnowledge(0));
+        assertEquals(99, population.produceKnowledge(0));
+        assertEquals(-1, population.produceKnowledge(0));
+        assertEquals(-1, population.getGotFrom(0, 99));
+        assertTrue(population.addKnowledgeElement(0, 70));
+        assertEquals(BASESIZE + 2, population.getKnowledgeCount(0));
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final AtomicPopulation population = new AtomicPopulation(knowledgeStructure, AGENTS);
+        for (int a = 0; a < AGENTS; a++) {
+            population.initAgent(a);
+        }
+        // every thread adds every element to every agent, each in a different order
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int t = 0; t < THREADS; t++) {
+            final int shift = t * SIZE / THREADS;
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    int added = 0;
+                    for (int a = 0; a < AGENTS; a++) {
+                        for (int i = 0; i < SIZE; i++) {
+                            if (!population.addKnowledgeElement(a, (i + shift) % SIZE)) {
+                                added++;
+                            }
+                        }
+                    }
+                    return added;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        int added = 0;
+        for (Future<Integer> future : executor.invokeAll(tasks)) {
+            added += future.get();
+        }
+        executor.shutdown();
+        assertEquals(AGENTS * SIZE, added);
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(SIZE, population.getKnowledgeCount(a));
+            // known elements stay possible until they are picked
+            assertEquals(2, population.getPossibleElements(a).size());
+        }
+    }
+
+    @Test
+    public void testConcurrentParents() throws Exception {
+        final AtomicPopulation population = new AtomicPopulation(knowledgeStructure, AGENTS);
+        for (int a = 0; a < AGENTS; a++) {
+            population.initAgent(a);
+        }
+        // parents of the recipe 0 + 1 -> 70 are added by different threads
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < 2; t++) {
+            final int element = t;
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    for (int a = 0; a < AGENTS; a++) {
+                        population.addKnowledgeElement(a, element);
+                    }
+                    return null;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(1, population.getPossibleElements(a).size());
+            assertTrue(population.getPossibleElements(a).contains(70));
+            assertFalse(population.hasKnowledgeElement(a, 70));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        new AtomicPopulation(new KnowledgeStructure(new SparseHyperGraph(10000), BASESIZE), 250000);
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.graph.analysis.Coloring;
+
+public class ColoredParallelEngineTest {
+
+    private static final EngineFixture.EngineFactory FACTORY = new EngineFixture.EngineFactory() {
+        public SimulationEngine create(AgentStructure agentStructure, long seed, ForkJoinPool pool) {
+            return new ColoredParallelEngine(agentStructure, seed, pool);
+        }
+    };
+
+    @Test
+    public void testDeterministic() {
+        EngineFixture.assertDeterministic(FACTORY);
+    }
+
+    @Test
+    public void testColoring() {
+        ColoredParallelEngine engine = new ColoredParallelEngine(EngineFixture.createStructure(), 5);
+        // the classes are big enough to be split into many tasks
+        Coloring coloring = engine.getColoring();
+        assertTrue(EngineFixture.AGENTS / coloring.getColorCount() > 1000);
+        for (int i = 0; i < EngineFixture.ROUNDS; i++) {
+            engine.runRound();
+        }
+        assertEquals(EngineFixture.ROUNDS, engine.getRound());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRewiring() {
+        EngineFixture.runRewired(FACTORY);
+    }
+
+}
@@ -0,0 +1,107 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import pl.izertp.knowledgeproduction.graph.GraphFactory;
+
+/**
+ * Agents and checks shared by the tests of the parallel engines.
+ */
+class EngineFixture {
+
+    static final int AGENTS = 20000;
+
+    static final int ROUNDS = 10;
+
+    /**
+     * Creates an engine of the tested kind.
+     */
+    interface EngineFactory {
+
+        SimulationEngine create(AgentStructure agentStructure, long seed, ForkJoinPool pool);
+
+    }
+
+    /**
+     * @return agents of a HeapPopulation on a random graph, the same for every call
+     */
+    static AgentStructure createStructure() {
+        return createStructure(new HeapPopulation(createKnowledgeStructure(), AGENTS));
+    }
+
+    /**
+     * @return agents of an AtomicPopulation on a random graph, the same for every call
+     */
+    static AgentStructure createAtomicStructure() {
+        return createStructure(new AtomicPopulation(createKnowledgeStructure(), AGENTS));
+    }
+
+    /**
+     * Runs the same rounds on a single thread and on four threads and checks, that both give
+     * the same effects and the same knowledge of every agent.
+     * 
+     * @param factory factory of the tested engine
+     */
+    static void assertDeterministic(EngineFactory factory) {
+        AgentStructure single = createStructure();
+        AgentStructure parallel = createStructure();
+        ForkJoinPool singlePool = new ForkJoinPool(1);
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        try {
+            SimulationEngine singleEngine = factory.create(single, 5, singlePool);
+            SimulationEngine parallelEngine = factory.create(parallel, 5, parallelPool);
+            int effects = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                int singleEffects = singleEngine.runRound();
+                assertEquals(singleEffects, parallelEngine.runRound());
+                effects += singleEffects;
+            }
+            assertTrue(effects > 0);
+        } finally {
+            singlePool.shutdown();
+            parallelPool.shutdown();
+        }
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(single.getAgents()[a].getHaveKnowledge(), parallel.getAgents()[a].getHaveKnowledge());
+            assertEquals(single.getAgents()[a].getKnowledgeTotalCount(), parallel.getAgents()[a].getKnowledgeTotalCount());
+        }
+    }
+
+    /**
+     * Runs a round of an engine on agents, whose graph may be rewired.
+     * 
+     * @param factory factory of the tested engine
+     * @throws IllegalStateException expected from engines not supporting rewiring
+     */
+    static void runRewired(EngineFactory factory) {
+        AgentStructure agentStructure = createStructure();
+        agentStructure.setRewiringProbability(0.1);
+        factory.create(agentStructure, 1, ForkJoinPool.commonPool()).runRound();
+    }
+
+    /**
+     * @return number of elements known by all the agents
+     */
+    static long getTotalKnowledge(Population population) {
+        long total = 0;
+        for (int a = 0; a < population.getSize(); a++) {
+            total += population.getKnowledgeCount(a);
+        }
+        return total;
+    }
+
+    private static KnowledgeStructure createKnowledgeStructure() {
+        return new KnowledgeStructure(8, 200, 2, new Xoroshiro128PlusPlus(1));
+    }
+
+    private static AgentStructure createStructure(Population population) {
+        population.setRandom(new Xoroshiro128PlusPlus(2));
+        population.drawAgents(0.3, 0.3, 0.5);
+        return new AgentStructure(population.getAgents(), GraphFactory.erdosRenyi(AGENTS, new Random(3)));
+    }
+
+}
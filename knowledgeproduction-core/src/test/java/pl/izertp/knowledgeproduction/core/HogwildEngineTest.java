@@ -0,0 +1,61 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class HogwildEngineTest {
+
+    @Test
+    public void testConsistency() {
+        AgentStructure agentStructure = EngineFixture.createAtomicStructure();
+        AtomicPopulation population = (AtomicPopulation) agentStructure.getAgents()[0].getPopulation();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        HogwildEngine engine = new HogwildEngine(agentStructure, 5, pool);
+        int effects = 0;
+        long initialKnowledge = EngineFixture.getTotalKnowledge(population);
+        long knowledge = initialKnowledge;
+        try {
+            for (int i = 0; i < EngineFixture.ROUNDS; i++) {
+                int roundEffects = engine.runRound();
+                effects += roundEffects;
+                // knowledge is never lost and every effect of a round adds at least one element
+                long roundKnowledge = EngineFixture.getTotalKnowledge(population);
+                assertTrue(roundKnowledge >= knowledge + roundEffects);
+                knowledge = roundKnowledge;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(EngineFixture.ROUNDS, engine.getRound());
+        assertTrue(effects > 0);
+        assertTrue(knowledge > initialKnowledge);
+
+        // counts and elements possible to develop agree with the knowledge
+        RecipeIndex recipes = population.getKnowledgeStructure().getRecipeIndex();
+        for (int a = 0; a < EngineFixture.AGENTS; a++) {
+            assertEquals(population.getAgent(a).getHaveKnowledge().size(), population.getKnowledgeCount(a));
+            IndexedIntSet possible = population.getPossibleElements(a);
+            for (int e = population.nextKnowledgeElement(a, 0); e >= 0; e = population.nextKnowledgeElement(a, e + 1)) {
+                for (int r = recipes.getStart(e); r < recipes.getEnd(e); r++) {
+                    int result = recipes.getResult(r);
+                    if (population.hasKnowledgeElement(a, recipes.getOtherParent(r)) && !population.hasKnowledgeElement(a, result)) {
+                        assertTrue(possible.contains(result));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testHeapPopulation() {
+        KnowledgeStructure knowledgeStructure = new KnowledgeStructure(8, 200, 2, new Xoroshiro128PlusPlus(1));
+        HeapPopulation population = new HeapPopulation(knowledgeStructure, 100);
+        population.drawAgents(0.3, 0.3, 0.5);
+        new HogwildEngine(new AgentStructure(population.getAgents(), 4), 1).runRound();
+    }
+
+}
@@ -0,0 +1,98 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class IndexedIntSetTest {
+
+    @Test
+    public void testAddAndRemove() {
+        IndexedIntSet set = new IndexedIntSet(10);
+        assertTrue(set.add(3));
+        assertTrue(set.add(7));
+        assertTrue(set.add(0));
+        assertFalse(set.add(7));
+        assertEquals(3, set.size());
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(3));
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(0));
+        // the last element was moved into the freed position
+        assertEquals(0, set.get(0));
+        assertEquals(7, set.get(1));
+        assertEquals(2, set.size());
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(7));
+        assertTrue(set.add(7));
+    }
+
+    @Test
+    public void testRandomElement() {
+        IndexedIntSet set = new IndexedIntSet(100);
+        RandomSource random = new Xoroshiro128PlusPlus(1);
+        assertEquals(-1, set.randomElement(random));
+        for (int i = 0; i < 100; i += 25) {
+            set.add(i);
+        }
+        int[] counts = new int[100];
+        for (int i = 0; i < 40000; i++) {
+            counts[set.randomElement(random)]++;
+        }
+        for (int i = 0; i < 100; i += 25) {
+            assertEquals(10000, counts[i], 500);
+        }
+    }
+
+    @Test
+    public void testAgainstHashSet() {
+        IndexedIntSet set = new IndexedIntSet(1000);
+        Set<Integer> expected = new HashSet<Integer>();
+        RandomSource random = new Xoroshiro128PlusPlus(2);
+        for (int i = 0; i < 100000; i++) {
+            int element = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(element), set.remove(element));
+            } else {
+                assertEquals(expected.add(element), set.add(element));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int element = 0; element < 1000; element++) {
+            assertEquals(expected.contains(element), set.contains(element));
+        }
+        Set<Integer> elements = new HashSet<Integer>();
+        for (int i = 0; i < set.size(); i++) {
+            elements.add(set.get(i));
+        }
+        assertEquals(expected, elements);
+    }
+
+    @Test
+    public void testByteSize() {
+        // the size depends on the number of elements, not on the range
+        IndexedIntSet set = new IndexedIntSet(1 << 24);
+        for (int i = 0; i < 10; i++) {
+            set.add(i << 20);
+        }
+        assertTrue(set.getByteSize() <= 16 * 4 * 5);
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        assertTrue(set.getByteSize() <= 1024 * 4 * 5);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() {
+        new IndexedIntSet(10).add(10);
+    }
+
+}
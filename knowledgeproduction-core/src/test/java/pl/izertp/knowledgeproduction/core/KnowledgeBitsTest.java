@@ -0,0 +1,69 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class KnowledgeBitsTest {
+
+    @Test
+    public void testSetAndCount() {
+        long[] bits = new long[KnowledgeBits.wordCount(130)];
+        assertEquals(3, bits.length);
+        assertTrue(KnowledgeBits.set(bits, 5));
+        assertTrue(KnowledgeBits.set(bits, 64));
+        assertTrue(KnowledgeBits.set(bits, 129));
+        assertFalse(KnowledgeBits.set(bits, 64));
+        assertTrue(KnowledgeBits.get(bits, 129));
+        assertFalse(KnowledgeBits.get(bits, 128));
+        assertEquals(3, KnowledgeBits.count(bits));
+    }
+
+    @Test
+    public void testIterateAndSelect() {
+        long[] bits = new long[3];
+        int[] elements = new int[] { 0, 63, 64, 100, 191 };
+        for (int element : elements) {
+            KnowledgeBits.set(bits, element);
+        }
+        int k = 0;
+        for (int i = KnowledgeBits.nextSetBit(bits, 0); i >= 0; i = KnowledgeBits.nextSetBit(bits, i + 1)) {
+            assertEquals(elements[k], i);
+            assertEquals(i, KnowledgeBits.select(bits, k));
+            k++;
+        }
+        assertEquals(elements.length, k);
+        assertEquals(-1, KnowledgeBits.select(bits, elements.length));
+        assertEquals(-1, KnowledgeBits.nextSetBit(bits, 192));
+    }
+
+    @Test
+    public void testAndAndNot() {
+        long[] a = new long[] { 0xF0L, 1L };
+        long[] b = new long[] { 0x3CL };
+        long[] target = new long[2];
+        assertEquals(2, KnowledgeBits.and(a, b, target));
+        assertArrayEquals(new long[] { 0x30L, 0 }, target);
+        assertEquals(3, KnowledgeBits.andNot(a, b, target));
+        assertArrayEquals(new long[] { 0xC0L, 1L }, target);
+        assertEquals(3, KnowledgeBits.andNotCount(a, b));
+        assertEquals(2, KnowledgeBits.andNotCount(b, a));
+    }
+
+    @Test
+    public void testSelectAndNot() {
+        long[] a = new long[] { 0xF0L, 0x3L };
+        long[] b = new long[] { 0x30L };
+        long[] difference = new long[2];
+        int count = KnowledgeBits.andNot(a, b, difference);
+        for (int k = 0; k < count; k++) {
+            assertEquals(KnowledgeBits.select(difference, k), KnowledgeBits.selectAndNot(a, b, k));
+        }
+        assertEquals(64, KnowledgeBits.selectAndNot(a, b, 2));
+        assertEquals(-1, KnowledgeBits.selectAndNot(a, b, count));
+    }
+
+}
@@ -0,0 +1,89 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+
+public class KnowledgeClosureTest {
+
+    private static final int SIZE = 7;
+
+    private static final int BASESIZE = 3;
+
+    private KnowledgeStructure knowledgeStructure;
+
+    @Before
+    public void setUp() {
+        // 0 + 1 -> 3, 3 + 2 -> 4, 4 + 5 -> 6
+        HyperGraph graph = new MixedHyperGraph(SIZE);
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(3, 2, 4);
+        graph.addEdge(4, 5, 6);
+        knowledgeStructure = new KnowledgeStructure(graph, BASESIZE);
+    }
+
+    @Test
+    public void testClose() {
+        KnowledgeClosure closure = new KnowledgeClosure(knowledgeStructure);
+        assertArrayEquals(new long[] { 0x1F }, closure.close(new long[] { 0x7 }));
+        assertArrayEquals(new long[] { 0xB }, closure.close(new long[] { 0x3 }));
+        assertArrayEquals(new long[] { 0x7F }, closure.close(new long[] { 0x27 }));
+        assertArrayEquals(new long[] { 0x5 }, closure.close(new long[] { 0x5 }));
+    }
+
+    @Test
+    public void testReachableCounts() {
+        Agent[] agents = new Agent[200];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = new Agent(knowledgeStructure, i % 2, 1, 0);
+        }
+        int[] counts = new KnowledgeClosure(knowledgeStructure).reachableCounts(agents);
+        for (int i = 0; i < agents.length; i++) {
+            assertEquals(i % 2 == 0 ? 0 : 5, counts[i]);
+        }
+    }
+
+    @Test
+    public void testRandomStructure() {
+        KnowledgeStructure structure = new KnowledgeStructure(10, 300, 2);
+        KnowledgeClosure closure = new KnowledgeClosure(structure);
+        Random random = new Random(3);
+        for (int test = 0; test < 20; test++) {
+            boolean[] known = new boolean[structure.getSize()];
+            long[] bits = new long[closure.getWordCount()];
+            for (int i = 0; i < structure.getBaseSize(); i++) {
+                if (random.nextBoolean()) {
+                    known[i] = true;
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            // naive fixpoint over all the pairs
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int i = 0; i < known.length; i++) {
+                    for (int j = i + 1; j < known.length; j++) {
+                        if (known[i] && known[j]) {
+                            for (int result : structure.getResultElements(i, j)) {
+                                changed |= !known[result];
+                                known[result] = true;
+                            }
+                        }
+                    }
+                }
+            }
+            long[] closed = closure.close(bits);
+            for (int i = 0; i < known.length; i++) {
+                assertEquals(known[i], (closed[i >>> 6] & (1L << i)) != 0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KnowledgeStructureFilesTest {
+
+    private static final int SIZE = 200;
+
+    private static final int BASESIZE = 8;
+
+    private static final int CONNECTIONS = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        KnowledgeStructure structure = new KnowledgeStructure(BASESIZE, SIZE, CONNECTIONS);
+        File file = folder.newFile("structure.bin");
+        KnowledgeStructureFiles.write(structure, file);
+        KnowledgeStructure loaded = KnowledgeStructureFiles.map(file);
+
+        assertEquals(BASESIZE, loaded.getBaseSize());
+        assertEquals(SIZE, loaded.getSize());
+        assertEquals(structure.getMaxDepth(), loaded.getMaxDepth());
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(structure.getElementDepth(i), loaded.getElementDepth(i));
+            assertEquals(structure.getParents(i).size(), loaded.getParents(i).size());
+            for (int j = i + 1; j < SIZE; j++) {
+                assertEquals(structure.getResultElements(i, j).size(), loaded.getResultElements(i, j).size());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        KnowledgeStructure structure = new KnowledgeStructure(BASESIZE, SIZE, CONNECTIONS);
+        File file = folder.newFile("truncated.bin");
+        KnowledgeStructureFiles.write(structure, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // cut inside the depths, before the hypergraph section
+            randomAccessFile.setLength(16 + 2 * SIZE);
+        } finally {
+            randomAccessFile.close();
+        }
+        KnowledgeStructureFiles.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedHyperGraph() throws IOException {
+        KnowledgeStructure structure = new KnowledgeStructure(BASESIZE, SIZE, CONNECTIONS);
+        File file = folder.newFile("truncated.bin");
+        KnowledgeStructureFiles.write(structure, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(file.length() - 4);
+        } finally {
+            randomAccessFile.close();
+        }
+        KnowledgeStructureFiles.map(file);
+    }
+
+}
@@ -1,6 +1,7 @@
 package pl.izertp.knowledgeproduction.core;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 import java.util.List;
 
@@ -61,4 +62,20 @@ public class KnowledgeStructureTest {
 
     }
 
+    @Test
+    public void testRecipeIndex() {
+        RecipeIndex index = knowledgeStructure.getRecipeIndex();
+        assertEquals(2, index.getEnd(FROM1a) - index.getStart(FROM1a));
+        for (int r = index.getStart(FROM1a); r < index.getEnd(FROM1a); r++) {
+            assertEquals(FROM1b, index.getOtherParent(r));
+        }
+        assertEquals(TO1a, index.getResult(index.getStart(FROM1b)));
+        assertEquals(TO1b, index.getResult(index.getStart(FROM1b) + 1));
+        int r = index.getStart(FROM2b);
+        assertEquals(1, index.getEnd(FROM2b) - r);
+        assertEquals(FROM2a, index.getOtherParent(r));
+        assertEquals(TO2a, index.getResult(r));
+        assertEquals(index.getStart(TO1a), index.getEnd(TO1a));
+    }
+
 }
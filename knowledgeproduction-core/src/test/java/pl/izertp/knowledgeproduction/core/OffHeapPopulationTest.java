@@ -0,0 +1,158 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.graph.CompleteGraph;
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+
+public class OffHeapPopulationTest {
+
+    private static final int SIZE = 100;
+
+    private static final int BASESIZE = 4;
+
+    private static final int AGENTS = 30;
+
+    /**
+     * Small chunks, so rows of the population are split into many buffers.
+     */
+    private static final int CHUNK_SIZE = 4 * SIZE;
+
+    private KnowledgeStructure knowledgeStructure;
+
+    @Before
+    public void setUp() {
+        // 0 + 1 -> 70, 70 + 2 -> 99
+        HyperGraph graph = new MixedHyperGraph(SIZE);
+        graph.addEdge(0, 1, 70);
+        graph.addEdge(70, 2, 99);
+        knowledgeStructure = new KnowledgeStructure(graph, BASESIZE);
+    }
+
+    @Test
+    public void testStorage() {
+        OffHeapPopulation population = new OffHeapPopulation(knowledgeStructure, AGENTS, true, CHUNK_SIZE);
+        population.drawAgents(1, 0.5, 0);
+        population.setTrade(AGENTS - 1, true);
+        population.setProductionChance(AGENTS - 1, 0.25);
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(BASESIZE, population.getKnowledgeCount(a));
+            assertEquals(a == AGENTS - 1, population.isTrade(a));
+        }
+        assertEquals(0.5, population.getProductionChance(0), 0);
+        assertEquals(0.25, population.getProductionChance(AGENTS - 1), 0);
+
+        assertEquals(70, population.produceKnowledge(AGENTS - 1));
+        assertEquals(99, population.produceKnowledge(AGENTS - 1));
+        assertEquals(-1, population.produceKnowledge(AGENTS - 1));
+        assertEquals(-1, population.getGotFrom(AGENTS - 1, 99));
+        assertEquals(0, population.getGotFrom(AGENTS - 2, 99));
+        assertTrue(population.hasKnowledgeElement(AGENTS - 1, 99));
+        assertFalse(population.hasKnowledgeElement(AGENTS - 2, 99));
+        assertEquals(BASESIZE + 2, population.getKnowledgeCount(AGENTS - 1));
+
+        Agent[] agents = population.getAgents();
+        assertEquals(2, agents[AGENTS - 1].countMissingIn(agents[0]));
+        assertEquals(99, agents[AGENTS - 1].selectMissingIn(agents[0], 1));
+        assertEquals(70, agents[AGENTS - 1].nextKnowledgeElement(BASESIZE));
+    }
+
+    @Test
+    public void testMixedPopulations() {
+        OffHeapPopulation offHeap = new OffHeapPopulation(knowledgeStructure, 1, false, CHUNK_SIZE);
+        HeapPopulation heap = new HeapPopulation(knowledgeStructure, 1);
+        boolean[] knowledgeSet = new boolean[SIZE];
+        knowledgeSet[1] = true;
+        knowledgeSet[70] = true;
+        offHeap.setKnowledgeSet(0, knowledgeSet);
+        knowledgeSet[70] = false;
+        knowledgeSet[3] = true;
+        heap.setKnowledgeSet(0, knowledgeSet);
+        assertEquals(1, offHeap.getAgent(0).countMissingIn(heap.getAgent(0)));
+        assertEquals(70, offHeap.getAgent(0).selectMissingIn(heap.getAgent(0), 0));
+        assertEquals(3, heap.getAgent(0).selectMissingIn(offHeap.getAgent(0), 0));
+    }
+
+    @Test
+    public void testAgentStructure() {
+        OffHeapPopulation population = new OffHeapPopulation(knowledgeStructure, AGENTS, false, CHUNK_SIZE);
+        population.drawAgents(0.5, 0, 0);
+        Agent[] agents = population.getAgents();
+        int numberOfElements = SimulationStatistics.numberOfElements(agents);
+
+        AgentStructure agentStructure = new AgentStructure();
+        agentStructure.setAgents(agents);
+        agentStructure.setAgentsGraph(new CompleteGraph(AGENTS));
+        agentStructure.initNeighborList();
+        agentStructure.setRandom(new Xoroshiro128PlusPlus(7));
+        for (int i = 0; i < 100 * AGENTS; i++) {
+            agentStructure.makeStep(i % AGENTS);
+        }
+        // only propagation - every agent gets all the elements present in the population
+        assertEquals(numberOfElements, SimulationStatistics.numberOfElements(agents));
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(numberOfElements, population.getKnowledgeCount(a));
+        }
+        assertEquals(numberOfElements * AGENTS, SimulationStatistics.sumOfElements(agents));
+    }
+
+    @Test
+    public void testFileBacked() throws IOException {
+        File file = File.createTempFile("population", ".bin");
+        file.deleteOnExit();
+        OffHeapPopulation population = new OffHeapPopulation(knowledgeStructure, AGENTS, file, true, CHUNK_SIZE);
+        population.initAgent(AGENTS - 1);
+        population.addKnowledgeElement(AGENTS - 1, 70);
+        population.setGotFrom(AGENTS - 1, 70, 5);
+        population.force();
+        // knowledge rows, rows of scalars and got-from rows
+        assertEquals(AGENTS * (16 + 16 + 4 * SIZE), file.length());
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            randomAccessFile.readFully(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+            assertEquals(1L << (70 - 64), buffer.getLong((AGENTS - 1) * 16 + 8));
+            assertEquals(1, buffer.getInt(AGENTS * 16 + (AGENTS - 1) * 16));
+            assertEquals(5, buffer.getInt(AGENTS * 32 + (AGENTS - 1) * 4 * SIZE + 4 * 70));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGotFromNotTracked() throws IOException {
+        File file = File.createTempFile("population", ".bin");
+        file.deleteOnExit();
+        OffHeapPopulation population = new OffHeapPopulation(knowledgeStructure, AGENTS, file, false, CHUNK_SIZE);
+        population.initAgent(AGENTS - 1);
+        population.addKnowledgeElement(AGENTS - 1, 70);
+        population.setGotFrom(AGENTS - 1, 70, 5);
+        population.force();
+        // only knowledge rows and rows of scalars
+        assertEquals(AGENTS * (16 + 16), file.length());
+        population.getGotFrom(AGENTS - 1, 70);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHeapBound() {
+        long agents = Runtime.getRuntime().maxMemory() / Population.HEAP_BYTES_PER_AGENT + 1;
+        Assume.assumeTrue(agents <= Integer.MAX_VALUE);
+        new OffHeapPopulation(knowledgeStructure, (int) agents);
+    }
+
+}
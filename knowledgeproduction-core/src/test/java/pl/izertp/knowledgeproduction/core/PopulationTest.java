@@ -0,0 +1,113 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.SparseHyperGraph;
+
+public class PopulationTest {
+
+    private static final int SIZE = 100;
+
+    private static final int BASESIZE = 4;
+
+    private static final int AGENTS = 3;
+
+    private HeapPopulation population;
+
+    @Before
+    public void setUp() {
+        // 0 + 1 -> 70, 70 + 2 -> 99
+        HyperGraph graph = new MixedHyperGraph(SIZE);
+        graph.addEdge(0, 1, 70);
+        graph.addEdge(70, 2, 99);
+        population = new HeapPopulation(new KnowledgeStructure(graph, BASESIZE), AGENTS);
+    }
+
+    @Test
+    public void testKnowledgeMatrix() {
+        assertEquals(2, population.getWordCount());
+        population.initAgent(1);
+        assertFalse(population.addKnowledgeElement(1, 70));
+        assertFalse(population.addKnowledgeElement(1, 3));
+        assertTrue(population.addKnowledgeElement(1, 70));
+        long[] matrix = population.getKnowledgeMatrix();
+        assertEquals(1L << 3, matrix[population.getRowOffset(1)]);
+        assertEquals(1L << (70 - 64), matrix[population.getRowOffset(1) + 1]);
+        assertEquals(0, matrix[population.getRowOffset(0)]);
+        assertEquals(0, matrix[population.getRowOffset(2) + 1]);
+        assertEquals(2, population.getKnowledgeCount(1));
+    }
+
+    @Test
+    public void testFrontierByteSize() {
+        // every base element is a parent of a single recipe
+        int size = 10000;
+        HyperGraph graph = new SparseHyperGraph(size, 4);
+        for (int i = 0; i < 8; i += 2) {
+            graph.addEdge(i, i + 1, size - 1 - i);
+        }
+        HeapPopulation large = new HeapPopulation(new KnowledgeStructure(graph, 8), AGENTS);
+        large.drawAgents(1, 0.5, 0);
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(4, large.getPossibleElements(a).size());
+            // smaller than the agent's row of the knowledge matrix
+            assertTrue(large.getPossibleElements(a).getByteSize() < size / 8);
+        }
+    }
+
+    @Test
+    public void testDrawAgents() {
+        population.drawAgents(1, 0.5, 1);
+        for (int a = 0; a < AGENTS; a++) {
+            assertEquals(BASESIZE, population.getKnowledgeCount(a));
+            assertEquals(0.5, population.getProductionChance(a), 0);
+            assertTrue(population.isTrade(a));
+        }
+        assertEquals(70, population.produceKnowledge(0));
+        assertEquals(99, population.produceKnowledge(0));
+        assertEquals(-1, population.produceKnowledge(0));
+        assertEquals(-1, population.getGotFrom(0, 99));
+        assertEquals(BASESIZE, population.getKnowledgeCount(1));
+    }
+
+    @Test
+    public void testAgentViews() {
+        Agent[] agents = population.getAgents();
+        assertSame(agents[2], population.getAgent(2));
+        agents[2].setTrade(true);
+        agents[2].setProductionChance(0.25);
+        assertTrue(population.isTrade(2));
+        assertFalse(population.isTrade(1));
+        assertEquals(0.25, population.getProductionChance(2), 0);
+
+        boolean[] knowledgeSet = new boolean[SIZE];
+        knowledgeSet[0] = true;
+        knowledgeSet[1] = true;
+        agents[2].setKnowledgeSet(knowledgeSet);
+        agents[2].initAgent();
+        assertEquals(70, agents[2].produceKnowledge());
+        assertTrue(population.hasKnowledgeElement(2, 70));
+        assertEquals(3, agents[2].countMissingIn(agents[0]));
+        assertEquals(70, agents[2].selectMissingIn(agents[0], 2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongKnowledgeSize() {
+        population.getAgent(0).setKnowledgeSet(new boolean[SIZE + 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        // 250k agents with 10k elements have more than 2^31 entries of gotFrom
+        new HeapPopulation(250000, 10000);
+    }
+
+}
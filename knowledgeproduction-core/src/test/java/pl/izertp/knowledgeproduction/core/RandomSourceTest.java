@@ -0,0 +1,83 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RandomSourceTest {
+
+    @Test
+    public void testXoroshiroReference() {
+        // values of the reference implementation seeded with SplitMix64(1)
+        Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(1);
+        assertEquals(587168960929266860L, random.nextLong());
+        random = new Xoroshiro128PlusPlus(1);
+        random.jump();
+        assertEquals(8574407431928367326L, random.nextLong());
+    }
+
+    @Test
+    public void testSplit() {
+        Xoroshiro128PlusPlus random = new Xoroshiro128PlusPlus(5);
+        RandomSource first = random.split();
+        RandomSource second = random.split();
+        // the first stream starts at the original state, the second one 2^64 numbers later
+        Xoroshiro128PlusPlus expected = new Xoroshiro128PlusPlus(5);
+        assertEquals(expected.nextLong(), first.nextLong());
+        expected = new Xoroshiro128PlusPlus(5);
+        expected.jump();
+        assertEquals(expected.nextLong(), second.nextLong());
+        assertNotEquals(first.nextLong(), second.nextLong());
+    }
+
+    @Test
+    public void testSeed() {
+        RandomSource[] sources = { new Xoroshiro128PlusPlus(3), new SplittableRandomSource(3) };
+        RandomSource[] copies = { new Xoroshiro128PlusPlus(3), new SplittableRandomSource(3) };
+        for (int s = 0; s < sources.length; s++) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(copies[s].nextLong(), sources[s].nextLong());
+            }
+            assertEquals(copies[s].split().nextLong(), sources[s].split().nextLong());
+        }
+    }
+
+    @Test
+    public void testNextInt() {
+        RandomSource random = new Xoroshiro128PlusPlus(11);
+        int[] counts = new int[7];
+        for (int i = 0; i < 70000; i++) {
+            counts[random.nextInt(7)]++;
+        }
+        for (int count : counts) {
+            assertEquals(10000, count, 500);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(Integer.MAX_VALUE);
+            assertTrue(value >= 0);
+            assertEquals(0, random.nextInt(1));
+            double d = random.nextDouble();
+            assertTrue(d >= 0 && d < 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongBound() {
+        new Xoroshiro128PlusPlus(1).nextInt(0);
+    }
+
+    @Test
+    public void testAsRandom() {
+        Random random = new Xoroshiro128PlusPlus(2).asRandom();
+        Xoroshiro128PlusPlus expected = new Xoroshiro128PlusPlus(2);
+        assertEquals(expected.nextLong(), random.nextLong());
+        assertEquals(expected.nextInt(10), random.nextInt(10));
+        random.setSeed(1);
+        assertEquals(expected.nextDouble(), random.nextDouble(), 0);
+    }
+
+}
@@ -2,11 +2,16 @@ package pl.izertp.knowledgeproduction.core;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import pl.izertp.knowledgeproduction.graph.CompleteGraph;
+import pl.izertp.knowledgeproduction.graph.RingGraph;
+import pl.izertp.knowledgeproduction.graph.analysis.GraphAnalysis;
+
 public class SimulationStatisticsTest {
 
     private static double EPS = 1E-10;
@@ -75,4 +80,10 @@ public class SimulationStatisticsTest {
         assertTrue("Variance calculated wrong", Math.abs(variance - 1) < EPS);
     }
 
+    @Test
+    public void testClusteringFeasible() {
+        assertTrue(SimulationStatistics.isClusteringFeasible(GraphAnalysis.degreeHistogram(new RingGraph(20000, 10))));
+        assertFalse(SimulationStatistics.isClusteringFeasible(GraphAnalysis.degreeHistogram(new CompleteGraph(20000))));
+    }
+
 }
@@ -0,0 +1,58 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SimulationTest {
+
+    @Test
+    public void testSeed() {
+        Simulation first = new Simulation(0.5, 42);
+        Simulation second = new Simulation(0.5, 42);
+        assertEquals(42, first.getSeed());
+        Agent[] firstAgents = first.getAgents();
+        Agent[] secondAgents = second.getAgents();
+        assertEquals(firstAgents.length, secondAgents.length);
+        for (int a = 0; a < firstAgents.length; a++) {
+            assertEquals(firstAgents[a].getHaveKnowledge(), secondAgents[a].getHaveKnowledge());
+            assertEquals(firstAgents[a].isTrade(), secondAgents[a].isTrade());
+        }
+    }
+
+    @Test
+    public void testColoredMode() {
+        Simulation first = new Simulation(0.5, 7, Simulation.Mode.COLORED);
+        Simulation second = new Simulation(0.5, 7, Simulation.Mode.COLORED);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(first.runRound(), second.runRound());
+        }
+        for (int a = 0; a < first.getAgents().length; a++) {
+            assertEquals(first.getAgents()[a].getHaveKnowledge(), second.getAgents()[a].getHaveKnowledge());
+        }
+    }
+
+    @Test
+    public void testHogwildMode() {
+        Simulation simulation = new Simulation(0.5, 7, Simulation.Mode.HOGWILD);
+        int effects = 0;
+        for (int i = 0; i < 5; i++) {
+            effects += simulation.runRound();
+        }
+        assertTrue(effects > 0);
+    }
+
+    @Test
+    public void testSynchronousMode() {
+        Simulation first = new Simulation(0.5, 7, Simulation.Mode.SYNCHRONOUS);
+        Simulation second = new Simulation(0.5, 7, Simulation.Mode.SYNCHRONOUS);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(first.runRound(), second.runRound());
+        }
+        for (int a = 0; a < first.getAgents().length; a++) {
+            assertEquals(first.getAgents()[a].getHaveKnowledge(), second.getAgents()[a].getHaveKnowledge());
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.graph.GraphFactory;
+import pl.izertp.knowledgeproduction.hypergraph.HyperGraph;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+
+public class SynchronousEngineTest {
+
+    private static final EngineFixture.EngineFactory FACTORY = new EngineFixture.EngineFactory() {
+        public SimulationEngine create(AgentStructure agentStructure, long seed, ForkJoinPool pool) {
+            return new SynchronousEngine(agentStructure, seed, pool);
+        }
+    };
+
+    @Test
+    public void testDeterministic() {
+        EngineFixture.assertDeterministic(FACTORY);
+    }
+
+    @Test
+    public void testRounds() {
+        SynchronousEngine engine = new SynchronousEngine(EngineFixture.createStructure(), 5);
+        for (int i = 0; i < EngineFixture.ROUNDS; i++) {
+            engine.runRound();
+        }
+        assertEquals(EngineFixture.ROUNDS, engine.getRound());
+    }
+
+    @Test
+    public void testPreviousState() {
+        HyperGraph graph = new MixedHyperGraph(10);
+        graph.addEdge(0, 1, 5);
+        KnowledgeStructure knowledgeStructure = new KnowledgeStructure(graph, 4);
+        HeapPopulation population = new HeapPopulation(knowledgeStructure, 3);
+        population.drawAgents(0, 0, 0);
+        population.setKnowledgeSet(0, new boolean[] { true, false, false, false, false, false, false, false, false, false });
+        population.initAgent(0);
+        // agents 0 - 1 - 2 connected in a path, they only propagate
+        AgentStructure agentStructure = new AgentStructure(population.getAgents(), GraphFactory.lattice(false, 3));
+        SynchronousEngine engine = new SynchronousEngine(agentStructure, 1);
+
+        // agent 1 gets the element, but can't pass it on in the same round
+        assertEquals(1, engine.runRound());
+        assertTrue(population.hasKnowledgeElement(1, 0));
+        assertEquals(0, population.getGotFrom(1, 0));
+        assertFalse(population.hasKnowledgeElement(2, 0));
+    }
+
+    @Test
+    public void testTradeGotFrom() {
+        AgentStructure sequential = createTraders();
+        AgentStructure synchronous = createTraders();
+        assertTrue(sequential.makeStep(0, new Xoroshiro128PlusPlus(1)));
+        assertTrue(new SynchronousEngine(synchronous, 1).runRound() > 0);
+        // traded elements get no source in both modes
+        for (int a = 0; a < 2; a++) {
+            for (int e = 0; e < 2; e++) {
+                assertTrue(synchronous.getAgents()[a].hasKnowledgeElement(e));
+                assertEquals(sequential.getAgents()[a].getGotFrom(e), synchronous.getAgents()[a].getGotFrom(e));
+            }
+        }
+        assertEquals(0, synchronous.getAgents()[0].getGotFrom(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRewiring() {
+        EngineFixture.runRewired(FACTORY);
+    }
+
+    /**
+     * Two connected trading agents, agent i has only element i.
+     */
+    private static AgentStructure createTraders() {
+        KnowledgeStructure knowledgeStructure = new KnowledgeStructure(new MixedHyperGraph(4), 2);
+        HeapPopulation population = new HeapPopulation(knowledgeStructure, 2);
+        population.drawAgents(0, 0, 1);
+        population.setKnowledgeSet(0, new boolean[] { true, false, false, false });
+        population.initAgent(0);
+        population.setKnowledgeSet(1, new boolean[] { false, true, false, false });
+        population.initAgent(1);
+        return new AgentStructure(population.getAgents(), GraphFactory.lattice(false, 2));
+    }
+
+}
@@ -0,0 +1,107 @@
+package pl.izertp.knowledgeproduction.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.graph.AdjacencyListGraph;
+import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.GraphFactory;
+import pl.izertp.knowledgeproduction.hypergraph.MixedHyperGraph;
+
+public class TradeMarketTest {
+
+    private static final int SIZE = 6;
+
+    private static final int AGENTS = 4;
+
+    private Agent[] agents;
+
+    private TradeMarket market;
+
+    /**
+     * Agents 0 - 1 - 2 - 3 form a path, agent i has only element i and all but agent 3 trade.
+     */
+    @Before
+    public void setUp() {
+        KnowledgeStructure knowledgeStructure = new KnowledgeStructure(new MixedHyperGraph(SIZE), AGENTS);
+        agents = new Agent[AGENTS];
+        Graph graph = new AdjacencyListGraph(AGENTS);
+        for (int i = 0; i < AGENTS; i++) {
+            boolean[] knowledgeSet = new boolean[SIZE];
+            knowledgeSet[i] = true;
+            agents[i] = new Agent();
+            agents[i].setKnowledgeStructure(knowledgeStructure);
+            agents[i].setKnowledgeSet(knowledgeSet);
+            agents[i].setTrade(i < AGENTS - 1);
+            agents[i].initAgent();
+            if (i > 0) {
+                graph.addEdge(i - 1, i);
+            }
+        }
+        market = new TradeMarket(agents, graph);
+    }
+
+    @Test
+    public void testTrade() {
+        assertEquals(1, market.getPartnerCount(0));
+        assertEquals(2, market.getPartnerCount(1));
+        assertEquals(0, market.getPartnerCount(3));
+        RandomSource random = new Xoroshiro128PlusPlus(1);
+        assertTrue(market.trade(0, random));
+        assertTrue(agents[0].hasKnowledgeElement(1));
+        assertTrue(agents[1].hasKnowledgeElement(0));
+        assertFalse("Agents have nothing more to trade", market.trade(0, random));
+        assertFalse(market.trade(3, random));
+    }
+
+    @Test
+    public void testTradeRound() {
+        // agent 1 is a neighbor of both other traders, so only one trade is possible
+        assertEquals(1, market.tradeRound(new Xoroshiro128PlusPlus(2)));
+        assertEquals(AGENTS + 2, SimulationStatistics.sumOfElements(agents));
+        // agent 2 still has element 2 nobody else has
+        assertEquals(1, market.tradeRound(new Xoroshiro128PlusPlus(3)));
+    }
+
+    @Test
+    public void testTradeFlagChanges() {
+        assertEquals(1, market.getPartnerCount(2));
+        agents[3].setTrade(true);
+        assertEquals(2, market.getPartnerCount(2));
+        assertEquals(1, market.getPartnerCount(3));
+        // an agent, which stopped trading, is never drawn as a partner
+        agents[1].setTrade(false);
+        assertEquals(0, market.getPartnerCount(0));
+        assertFalse(market.trade(0, new Xoroshiro128PlusPlus(1)));
+        assertFalse(agents[1].hasKnowledgeElement(0));
+    }
+
+    @Test
+    public void testTradeFlagChangesOfPopulation() {
+        KnowledgeStructure knowledgeStructure = new KnowledgeStructure(new MixedHyperGraph(SIZE), AGENTS);
+        HeapPopulation population = new HeapPopulation(knowledgeStructure, AGENTS);
+        population.drawAgents(1, 0, 1);
+        TradeMarket populationMarket = new TradeMarket(population.getAgents(), GraphFactory.lattice(false, AGENTS).createGraph(AGENTS));
+        assertEquals(2, populationMarket.getPartnerCount(1));
+        population.setTrade(0, false);
+        assertEquals(1, populationMarket.getPartnerCount(1));
+        assertEquals(0, populationMarket.getPartnerCount(0));
+    }
+
+    @Test
+    public void testInvalidate() {
+        Graph graph = new AdjacencyListGraph(AGENTS);
+        graph.addEdge(0, 1);
+        TradeMarket graphMarket = new TradeMarket(agents, graph);
+        assertEquals(0, graphMarket.getPartnerCount(2));
+        graph.addEdge(1, 2);
+        assertEquals("Rows are kept until invalidated", 0, graphMarket.getPartnerCount(2));
+        graphMarket.invalidate();
+        assertEquals(1, graphMarket.getPartnerCount(2));
+    }
+
+}
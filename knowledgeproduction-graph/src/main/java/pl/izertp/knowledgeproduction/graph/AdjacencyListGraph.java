@@ -50,6 +50,14 @@ public class AdjacencyListGraph implements Graph {
         return false;
     }
 
+    public boolean removeEdge(int from, int to) {
+        if (!neighbors[from].remove(Integer.valueOf(to))) {
+            return false;
+        }
+        neighbors[to].remove(Integer.valueOf(from));
+        return true;
+    }
+
     public boolean getEdge(int from, int to) {
         return neighbors[from].contains(to);
     }
@@ -58,6 +66,14 @@ public class AdjacencyListGraph implements Graph {
         return neighbors[v];
     }
 
+    public int getDegree(int v) {
+        return neighbors[v].size();
+    }
+
+    public int getNeighbor(int v, int i) {
+        return neighbors[v].get(i);
+    }
+
     private void checkArgs(int from, int to) {
         if (from == to) {
             throw new IllegalArgumentException("Loops are not allowed");
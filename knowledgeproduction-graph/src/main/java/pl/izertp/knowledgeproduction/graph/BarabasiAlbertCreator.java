@@ -0,0 +1,80 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.Random;
+
+/**
+ * Helper class which fills an empty graph with edges using Barabasi-Albert preferential attachment.
+ * The first (edgesPerVertex + 1) vertices form a complete graph. Every next vertex is connected
+ * to edgesPerVertex distinct, already existing vertices, chosen with probability proportional
+ * to their degree.
+ * Degree-proportional choice is done with the repeated-nodes array: every edge puts both its ends
+ * into the array, so a uniformly chosen entry of the array is a degree-weighted vertex.
+ * Runs in O(n * edgesPerVertex) time.
+ */
+public class BarabasiAlbertCreator {
+
+    /**
+     * Fills the graph with edges using Barabasi-Albert algorithm.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param edgesPerVertex number of edges added with every new vertex
+     */
+    public static void InitBarabasiAlbertGraph(Graph graph, int edgesPerVertex) {
+        InitBarabasiAlbertGraph(graph, edgesPerVertex, new Random());
+    }
+
+    /**
+     * Fills the graph with edges using Barabasi-Albert algorithm.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param edgesPerVertex number of edges added with every new vertex
+     * @param random random number generator
+     */
+    public static void InitBarabasiAlbertGraph(Graph graph, int edgesPerVertex, Random random) {
+        int n = graph.getSize();
+        int m = edgesPerVertex;
+        if (m < 1 || m >= n) {
+            throw new IllegalArgumentException("Number of edges per vertex must be [1, number of vertices)");
+        }
+        long entries = (long) m * (m + 1) + 2L * m * (n - m - 1);
+        if (entries > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph too big for Barabasi-Albert construction");
+        }
+        int[] repeatedNodes = new int[(int) entries];
+        int length = 0;
+
+        for (int i = 0; i <= m; i++) {
+            for (int j = i + 1; j <= m; j++) {
+                graph.addEdge(i, j);
+                repeatedNodes[length++] = i;
+                repeatedNodes[length++] = j;
+            }
+        }
+
+        int[] targets = new int[m];
+        for (int v = m + 1; v < n; v++) {
+            int chosen = 0;
+            while (chosen < m) {
+                int candidate = repeatedNodes[random.nextInt(length)];
+                if (!contains(targets, chosen, candidate)) {
+                    targets[chosen++] = candidate;
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                graph.addEdge(v, targets[i]);
+                repeatedNodes[length++] = v;
+                repeatedNodes[length++] = targets[i];
+            }
+        }
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
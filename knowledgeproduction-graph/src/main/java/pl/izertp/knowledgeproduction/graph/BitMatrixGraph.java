@@ -0,0 +1,247 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the Graph using an adjacency bit matrix. Row of every vertex is kept
+ * as consecutive words of one long array, so adding and checking an edge is O(1) and
+ * neighbors are enumerated word by word with Long.numberOfTrailingZeros.
+ * The matrix takes n^2 / 8 bytes, so it pays off for dense graphs - see {@link GraphRepresentation}.
+ */
+public class BitMatrixGraph implements Graph {
+
+    /**
+     * Maximal length of the bit matrix array.
+     */
+    private static final long MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    /**
+     * Number of words in a single row.
+     */
+    private final int rowWords;
+
+    /**
+     * Edge {u, v} is stored as bit v of row u and bit u of row v.
+     */
+    private final long[] bits;
+
+    /**
+     * Degree of every vertex.
+     */
+    private final int[] degrees;
+
+    private int edgeNumber;
+
+    /**
+     * Initializes an empty graph.
+     * 
+     * @param n number of vertices
+     * @throws IllegalArgumentException when the matrix would be too big
+     */
+    public BitMatrixGraph(int n) {
+        if (!fits(n)) {
+            throw new IllegalArgumentException(String.format("Bit matrix of %d vertices is too big", n));
+        }
+        vertexNumber = n;
+        rowWords = (n + 63) >>> 6;
+        bits = new long[n * rowWords];
+        degrees = new int[n];
+    }
+
+    /**
+     * @param n number of vertices
+     * @return true if a bit matrix of the graph with n vertices fits in a single array
+     */
+    public static boolean fits(int n) {
+        return n >= 0 && (long) n * ((n + 63) >>> 6) <= MAX_WORDS;
+    }
+
+    /**
+     * Creates a bit matrix copy of any graph.
+     * 
+     * @param graph graph to copy
+     * @return copy of the graph
+     */
+    public static BitMatrixGraph copyOf(Graph graph) {
+        BitMatrixGraph copy = new BitMatrixGraph(graph.getSize());
+        for (int v = 0; v < graph.getSize(); v++) {
+            for (int neighbor : graph.getNeighbors(v)) {
+                if (neighbor > v) {
+                    copy.addEdge(v, neighbor);
+                }
+            }
+        }
+        return copy;
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    public boolean addEdge(int from, int to) {
+        checkArgs(from, to);
+        int word = from * rowWords + (to >>> 6);
+        long mask = 1L << to;
+        if ((bits[word] & mask) != 0) {
+            return true;
+        }
+        bits[word] |= mask;
+        bits[to * rowWords + (from >>> 6)] |= 1L << from;
+        degrees[from]++;
+        degrees[to]++;
+        edgeNumber++;
+        return false;
+    }
+
+    public boolean removeEdge(int from, int to) {
+        checkArgs(from, to);
+        int word = from * rowWords + (to >>> 6);
+        long mask = 1L << to;
+        if ((bits[word] & mask) == 0) {
+            return false;
+        }
+        bits[word] &= ~mask;
+        bits[to * rowWords + (from >>> 6)] &= ~(1L << from);
+        degrees[from]--;
+        degrees[to]--;
+        edgeNumber--;
+        return true;
+    }
+
+    public boolean getEdge(int from, int to) {
+        return (bits[from * rowWords + (to >>> 6)] & (1L << to)) != 0;
+    }
+
+    /**
+     * Returns a new list of neighbors of the vertex, sorted ascending. Takes O(n / 64).
+     */
+    public List<Integer> getNeighbors(int v) {
+        List<Integer> neighbors = new ArrayList<Integer>(degrees[v]);
+        int start = v * rowWords;
+        for (int w = 0; w < rowWords; w++) {
+            long word = bits[start + w];
+            while (word != 0) {
+                neighbors.add((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * @param v vertex
+     * @return number of neighbors of the vertex
+     */
+    public int getDegree(int v) {
+        return degrees[v];
+    }
+
+    /**
+     * Returns i-th neighbor of the vertex (neighbors are sorted ascending). Takes O(n / 64),
+     * whole words are skipped using their bit counts.
+     * 
+     * @param v vertex
+     * @param i index of the neighbor, must be [0, getDegree(v))
+     * @return i-th neighbor
+     */
+    public int getNeighbor(int v, int i) {
+        if (i < 0 || i >= degrees[v]) {
+            throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+        }
+        int start = v * rowWords;
+        int w = 0;
+        long word = bits[start];
+        int count = Long.bitCount(word);
+        while (i >= count) {
+            i -= count;
+            word = bits[start + ++w];
+            count = Long.bitCount(word);
+        }
+        for (; i > 0; i--) {
+            word &= word - 1;
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public int copyNeighbors(int v, int[] target) {
+        int count = 0;
+        int start = v * rowWords;
+        for (int w = 0; w < rowWords; w++) {
+            long word = bits[start + w];
+            while (word != 0) {
+                target[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return count;
+    }
+
+    public NeighborCursor newNeighborCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return number of undirected edges
+     */
+    public int getEdgeNumber() {
+        return edgeNumber;
+    }
+
+    /**
+     * Cursor walking the row word by word.
+     */
+    private class Cursor implements NeighborCursor {
+
+        private int wordIndex;
+
+        private int end;
+
+        /**
+         * Bits of the current word, which are not read yet.
+         */
+        private long word;
+
+        public NeighborCursor reset(int v) {
+            wordIndex = v * rowWords;
+            end = wordIndex + rowWords;
+            word = bits[wordIndex];
+            return this;
+        }
+
+        public boolean hasNext() {
+            while (word == 0) {
+                if (++wordIndex >= end) {
+                    return false;
+                }
+                word = bits[wordIndex];
+            }
+            return true;
+        }
+
+        public int next() {
+            if (!hasNext()) {
+                throw new IllegalStateException("No more neighbors");
+            }
+            int neighbor = ((wordIndex - (end - rowWords)) << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return neighbor;
+        }
+
+    }
+
+    private void checkArgs(int from, int to) {
+        if (from == to) {
+            throw new IllegalArgumentException("Loops are not allowed");
+        }
+        if (from < 0 || to < 0 || from >= vertexNumber || to >= vertexNumber) {
+            throw new IndexOutOfBoundsException(String.format("Edge {%d, %d} out of graph bounds", from, to));
+        }
+    }
+
+}
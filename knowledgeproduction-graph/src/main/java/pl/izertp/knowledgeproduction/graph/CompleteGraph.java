@@ -0,0 +1,41 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Complete graph - every vertex is connected to all the others ("well-mixed" population).
+ * Neighbors are computed from the vertex index, so the graph takes O(1) memory.
+ */
+public class CompleteGraph extends ImplicitGraph {
+
+    /**
+     * @param n number of vertices
+     */
+    public CompleteGraph(int n) {
+        super(n);
+        if (n < 0) {
+            throw new IllegalArgumentException("Number of vertices can't be negative");
+        }
+    }
+
+    public boolean getEdge(int from, int to) {
+        return from != to;
+    }
+
+    public int getDegree(int v) {
+        return vertexNumber - 1;
+    }
+
+    /**
+     * Neighbors are all the other vertices in ascending order.
+     */
+    public int getNeighbor(int v, int i) {
+        if (i < 0 || i >= vertexNumber - 1) {
+            throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+        }
+        return i < v ? i : i + 1;
+    }
+
+    public long getEdgeNumber() {
+        return (long) vertexNumber * (vertexNumber - 1) / 2;
+    }
+
+}
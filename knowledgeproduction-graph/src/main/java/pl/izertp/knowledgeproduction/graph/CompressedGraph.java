@@ -0,0 +1,388 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, compressed implementation of the Graph. Sorted neighbors of every vertex are
+ * gap-encoded with variable-length integers (7 bits per byte), which typically takes 1-2 bytes
+ * per neighbor instead of 4 in CompressedSparseRowGraph:
+ * 
+ * <pre>
+ * varint   number of bytes of the gaps
+ * varint   first neighbor - v (zigzag encoded, may be negative)
+ * varint   next neighbor - previous neighbor - 1, repeated d - 1 times
+ * </pre>
+ * 
+ * Rows are kept in pages of one paged byte array, so the graph may exceed 2GB. Only every
+ * 16th row has its position stored in the offset index - other rows are found by skipping
+ * at most 15 rows using their lengths. Degrees are kept outside of the rows - one byte per
+ * vertex, degrees of 255 and more in a hash map - so getDegree doesn't decode anything.
+ * Neighbors are decoded sequentially, so getNeighbor is O(degree) and iterating with
+ * a cursor is O(1) per neighbor. Neither getDegree nor getNeighbor allocates, so a random
+ * neighbor may be drawn in every step of a simulation.
+ */
+public class CompressedGraph implements Graph {
+
+    /**
+     * Position of every 2^INDEX_SHIFT-th row is kept in the index.
+     */
+    static final int INDEX_SHIFT = 4;
+
+    static final int PAGE_SHIFT = 30;
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    private final long edgeNumber;
+
+    private final byte[][] pages;
+
+    private final int pageShift;
+
+    private final int pageMask;
+
+    /**
+     * Position of the row of vertex (i << INDEX_SHIFT) for every i.
+     */
+    private final long[] index;
+
+    /**
+     * Degree of every vertex as an unsigned byte, LARGE_DEGREE for degrees kept in largeDegrees.
+     */
+    private final byte[] degrees;
+
+    private final LongIntHashMap largeDegrees;
+
+    private static final int LARGE_DEGREE = 0xFF;
+
+    private CompressedGraph(int vertexNumber, long edgeNumber, byte[][] pages, int pageShift, long[] index, byte[] degrees, LongIntHashMap largeDegrees) {
+        this.vertexNumber = vertexNumber;
+        this.edgeNumber = edgeNumber;
+        this.pages = pages;
+        this.pageShift = pageShift;
+        this.pageMask = (1 << pageShift) - 1;
+        this.index = index;
+        this.degrees = degrees;
+        this.largeDegrees = largeDegrees;
+    }
+
+    /**
+     * Creates a compressed copy of any graph.
+     * 
+     * @param graph graph to copy
+     * @return immutable compressed copy of the graph
+     */
+    public static CompressedGraph copyOf(Graph graph) {
+        return copyOf(graph, PAGE_SHIFT);
+    }
+
+    static CompressedGraph copyOf(Graph graph, int pageShift) {
+        int n = graph.getSize();
+        long[] index = new long[(n + (1 << INDEX_SHIFT) - 1) >>> INDEX_SHIFT];
+        PagedOutput output = new PagedOutput(pageShift);
+        PagedOutput gaps = new PagedOutput(pageShift);
+        byte[] degrees = new byte[n];
+        LongIntHashMap largeDegrees = new LongIntHashMap(0);
+        int[] row = new int[16];
+        long directedEdges = 0;
+        for (int v = 0; v < n; v++) {
+            if ((v & ((1 << INDEX_SHIFT) - 1)) == 0) {
+                index[v >>> INDEX_SHIFT] = output.size();
+            }
+            int degree = graph.getDegree(v);
+            if (degree < LARGE_DEGREE) {
+                degrees[v] = (byte) degree;
+            } else {
+                degrees[v] = (byte) LARGE_DEGREE;
+                largeDegrees.put(v, degree);
+            }
+            if (row.length < degree) {
+                row = new int[Math.max(degree, 2 * row.length)];
+            }
+            graph.copyNeighbors(v, row);
+            Arrays.sort(row, 0, degree);
+            gaps.clear();
+            for (int i = 0; i < degree; i++) {
+                if (i == 0) {
+                    int difference = row[0] - v;
+                    gaps.writeVarint((difference << 1) ^ (difference >> 31));
+                } else {
+                    gaps.writeVarint(row[i] - row[i - 1] - 1);
+                }
+            }
+            output.writeVarint((int) gaps.size());
+            output.write(gaps);
+            directedEdges += degree;
+        }
+        return new CompressedGraph(n, directedEdges / 2, output.toPages(), pageShift, index, degrees, largeDegrees);
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    /**
+     * Not supported - the graph is immutable.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    public boolean addEdge(int from, int to) {
+        throw new UnsupportedOperationException("CompressedGraph is immutable");
+    }
+
+    public boolean getEdge(int from, int to) {
+        Cursor cursor = new Cursor().reset(from);
+        while (cursor.hasNext()) {
+            int neighbor = cursor.next();
+            if (neighbor >= to) {
+                return neighbor == to;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a new list of neighbors of the vertex, sorted ascending.
+     */
+    public List<Integer> getNeighbors(int v) {
+        Cursor cursor = new Cursor().reset(v);
+        List<Integer> neighbors = new ArrayList<Integer>(cursor.degree);
+        while (cursor.hasNext()) {
+            neighbors.add(cursor.next());
+        }
+        return neighbors;
+    }
+
+    public int getDegree(int v) {
+        checkVertex(v);
+        return degree(v);
+    }
+
+    /**
+     * Returns i-th neighbor of the vertex (neighbors are sorted ascending). Takes O(i),
+     * as the gaps are decoded one by one.
+     */
+    public int getNeighbor(int v, int i) {
+        long position = rowPosition(v);
+        if (i < 0 || i >= degree(v)) {
+            throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+        }
+        int gap = readVarint(position);
+        position += varintSize(gap);
+        int neighbor = v + ((gap >>> 1) ^ -(gap & 1));
+        for (; i > 0; i--) {
+            gap = readVarint(position);
+            position += varintSize(gap);
+            neighbor += gap + 1;
+        }
+        return neighbor;
+    }
+
+    public int copyNeighbors(int v, int[] target) {
+        Cursor cursor = new Cursor().reset(v);
+        int count = 0;
+        while (cursor.hasNext()) {
+            target[count++] = cursor.next();
+        }
+        return count;
+    }
+
+    public NeighborCursor newNeighborCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return number of undirected edges
+     */
+    public long getEdgeNumber() {
+        return edgeNumber;
+    }
+
+    /**
+     * @return number of bytes taken by the encoded rows, the offset index and the degrees
+     */
+    public long getByteSize() {
+        long size = 8L * index.length + degrees.length;
+        for (byte[] page : pages) {
+            size += page.length;
+        }
+        return size;
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= vertexNumber) {
+            throw new IndexOutOfBoundsException("Vertex out of graph bounds: " + v);
+        }
+    }
+
+    private int degree(int v) {
+        int degree = degrees[v] & 0xFF;
+        return degree == LARGE_DEGREE ? largeDegrees.get(v) : degree;
+    }
+
+    /**
+     * @return position of the first gap of the row of the vertex
+     */
+    private long rowPosition(int v) {
+        checkVertex(v);
+        long position = index[v >>> INDEX_SHIFT];
+        for (int u = v & ~((1 << INDEX_SHIFT) - 1); u < v; u++) {
+            int length = readVarint(position);
+            position += varintSize(length) + length;
+        }
+        return position + varintSize(readVarint(position));
+    }
+
+    /**
+     * @return varint at the position
+     */
+    private int readVarint(long position) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = pages[(int) (position >>> pageShift)][(int) (position & pageMask)];
+            position++;
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * @return number of bytes of the varint encoding of the value
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Sequential decoder of a single row.
+     */
+    private class Cursor implements NeighborCursor {
+
+        private long position;
+
+        private int vertex;
+
+        private int degree;
+
+        private int remaining;
+
+        private int previous;
+
+        public Cursor reset(int v) {
+            position = rowPosition(v);
+            vertex = v;
+            degree = degree(v);
+            remaining = degree;
+            return this;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int next() {
+            if (remaining == 0) {
+                throw new IllegalStateException("No more neighbors");
+            }
+            int gap = readVarint(position);
+            position += varintSize(gap);
+            if (remaining == degree) {
+                previous = vertex + ((gap >>> 1) ^ -(gap & 1));
+            } else {
+                previous += gap + 1;
+            }
+            remaining--;
+            return previous;
+        }
+
+    }
+
+    /**
+     * Growable byte output split into pages of 2^pageShift bytes.
+     */
+    private static class PagedOutput {
+
+        private final int pageShift;
+
+        private final List<byte[]> pages = new ArrayList<byte[]>();
+
+        private byte[] page;
+
+        private int pagePosition;
+
+        private PagedOutput(int pageShift) {
+            this.pageShift = pageShift;
+            clear();
+        }
+
+        /**
+         * Empties the output, keeping its first page.
+         */
+        private void clear() {
+            page = pages.isEmpty() ? new byte[Math.min(1 << pageShift, 64)] : pages.get(0);
+            pages.clear();
+            pages.add(page);
+            pagePosition = 0;
+        }
+
+        private long size() {
+            return ((long) (pages.size() - 1) << pageShift) + pagePosition;
+        }
+
+        private void write(int b) {
+            if (pagePosition == page.length) {
+                if (page.length < (1 << pageShift)) {
+                    // the only page grows up to the full page size
+                    page = Arrays.copyOf(page, Math.min(2 * page.length, 1 << pageShift));
+                    pages.set(pages.size() - 1, page);
+                } else {
+                    page = new byte[1 << pageShift];
+                    pages.add(page);
+                    pagePosition = 0;
+                }
+            }
+            page[pagePosition++] = (byte) b;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void write(PagedOutput other) {
+            for (int p = 0; p < other.pages.size(); p++) {
+                byte[] otherPage = other.pages.get(p);
+                int length = p == other.pages.size() - 1 ? other.pagePosition : otherPage.length;
+                for (int i = 0; i < length; i++) {
+                    write(otherPage[i]);
+                }
+            }
+        }
+
+        /**
+         * @return pages with the last one trimmed to its content
+         */
+        private byte[][] toPages() {
+            byte[][] result = pages.toArray(new byte[pages.size()][]);
+            result[result.length - 1] = Arrays.copyOf(page, pagePosition);
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,301 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable implementation of the Graph in compressed sparse row (CSR) form.
+ * Neighbors of all the vertices are kept in one int array, sorted within each vertex,
+ * and a second array holds the offset of every vertex's neighbors. Each undirected edge
+ * is stored twice (once for each of its ends).
+ * Graphs are created with the {@link Builder} or copied from another Graph.
+ */
+public class CompressedSparseRowGraph implements Graph {
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    /**
+     * Neighbors of vertex v are kept in targets[offsets[v]] .. targets[offsets[v + 1] - 1].
+     */
+    private final int[] offsets;
+
+    /**
+     * Concatenated, sorted neighbor lists of all the vertices.
+     */
+    private final int[] targets;
+
+    CompressedSparseRowGraph(int vertexNumber, int[] offsets, int[] targets) {
+        this.vertexNumber = vertexNumber;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Creates a CSR copy of any graph.
+     * 
+     * @param graph graph to copy
+     * @return immutable copy of the graph
+     */
+    public static CompressedSparseRowGraph copyOf(Graph graph) {
+        if (graph instanceof CompressedSparseRowGraph) {
+            return (CompressedSparseRowGraph) graph;
+        }
+        int n = graph.getSize();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + graph.getNeighbors(v).size();
+        }
+        int[] targets = new int[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            int position = offsets[v];
+            for (int neighbor : graph.getNeighbors(v)) {
+                targets[position++] = neighbor;
+            }
+            Arrays.sort(targets, offsets[v], offsets[v + 1]);
+        }
+        return new CompressedSparseRowGraph(n, offsets, targets);
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    /**
+     * Not supported - the graph is immutable.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    public boolean addEdge(int from, int to) {
+        throw new UnsupportedOperationException("CompressedSparseRowGraph is immutable, use CompressedSparseRowGraph.Builder");
+    }
+
+    public boolean getEdge(int from, int to) {
+        return Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+    }
+
+    public List<Integer> getNeighbors(int v) {
+        return new NeighborList(offsets[v], offsets[v + 1]);
+    }
+
+    /**
+     * @param v vertex
+     * @return number of neighbors of the vertex
+     */
+    public int getDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Returns i-th neighbor of the vertex (neighbors are sorted ascending).
+     * 
+     * @param v vertex
+     * @param i index of the neighbor, must be [0, getDegree(v))
+     * @return i-th neighbor
+     */
+    public int getNeighbor(int v, int i) {
+        return targets[offsets[v] + i];
+    }
+
+    public int copyNeighbors(int v, int[] target) {
+        int degree = offsets[v + 1] - offsets[v];
+        System.arraycopy(targets, offsets[v], target, 0, degree);
+        return degree;
+    }
+
+    public NeighborCursor newNeighborCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return number of undirected edges
+     */
+    public int getEdgeNumber() {
+        return targets.length / 2;
+    }
+
+    /**
+     * Cursor reading the targets array directly.
+     */
+    private class Cursor implements NeighborCursor {
+
+        private int position;
+
+        private int end;
+
+        public NeighborCursor reset(int v) {
+            position = offsets[v];
+            end = offsets[v + 1];
+            return this;
+        }
+
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        public int next() {
+            return targets[position++];
+        }
+
+    }
+
+    /**
+     * Read-only view of a single neighbor list (a slice of targets array).
+     */
+    private class NeighborList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int from;
+
+        private final int to;
+
+        private NeighborList(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + index);
+            }
+            return targets[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
+    /**
+     * Collects edges and creates a CompressedSparseRowGraph. Edges are kept as two
+     * primitive arrays and a hashed set of vertex pairs, so adding an edge (and checking,
+     * if it's present) is O(1). Implements Graph, so it can be filled by the graph creators.
+     * Loops are not allowed and duplicate edges are added only once, like in AdjacencyListGraph.
+     */
+    public static class Builder implements Graph {
+
+        private final int vertexNumber;
+
+        private int[] edgeFrom;
+
+        private int[] edgeTo;
+
+        private int edgeNumber;
+
+        private final LongHashSet pairs;
+
+        /**
+         * Creates a builder of a graph with given number of vertices.
+         * 
+         * @param n number of vertices
+         */
+        public Builder(int n) {
+            this(n, 16);
+        }
+
+        /**
+         * Creates a builder of a graph with given number of vertices.
+         * 
+         * @param n number of vertices
+         * @param expectedEdges expected number of edges, used to presize the buffers
+         */
+        public Builder(int n, int expectedEdges) {
+            vertexNumber = n;
+            int capacity = Math.max(expectedEdges, 16);
+            edgeFrom = new int[capacity];
+            edgeTo = new int[capacity];
+            pairs = new LongHashSet(capacity);
+        }
+
+        public int getSize() {
+            return vertexNumber;
+        }
+
+        public boolean addEdge(int from, int to) {
+            checkArgs(from, to);
+            if (pairs.add(LongHashSet.pairKey(from, to))) {
+                return true;
+            }
+            if (edgeNumber == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeNumber * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeNumber * 2);
+            }
+            edgeFrom[edgeNumber] = from;
+            edgeTo[edgeNumber] = to;
+            edgeNumber++;
+            return false;
+        }
+
+        public boolean getEdge(int from, int to) {
+            return pairs.contains(LongHashSet.pairKey(from, to));
+        }
+
+        /**
+         * Returns a list of neighbors of the vertex. Note, that this scans all the edges
+         * added so far - use build() and query the built graph instead.
+         */
+        public List<Integer> getNeighbors(int v) {
+            List<Integer> neighbors = new ArrayList<Integer>();
+            for (int i = 0; i < edgeNumber; i++) {
+                if (edgeFrom[i] == v) {
+                    neighbors.add(edgeTo[i]);
+                } else if (edgeTo[i] == v) {
+                    neighbors.add(edgeFrom[i]);
+                }
+            }
+            return neighbors;
+        }
+
+        /**
+         * @return number of edges added so far
+         */
+        public int getEdgeNumber() {
+            return edgeNumber;
+        }
+
+        /**
+         * Creates the immutable graph from all the edges added so far.
+         * The builder can still be used afterwards.
+         * 
+         * @return CSR graph
+         */
+        public CompressedSparseRowGraph build() {
+            int[] offsets = new int[vertexNumber + 1];
+            for (int i = 0; i < edgeNumber; i++) {
+                offsets[edgeFrom[i] + 1]++;
+                offsets[edgeTo[i] + 1]++;
+            }
+            for (int v = 0; v < vertexNumber; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] position = Arrays.copyOf(offsets, vertexNumber);
+            int[] targets = new int[2 * edgeNumber];
+            for (int i = 0; i < edgeNumber; i++) {
+                targets[position[edgeFrom[i]]++] = edgeTo[i];
+                targets[position[edgeTo[i]]++] = edgeFrom[i];
+            }
+            for (int v = 0; v < vertexNumber; v++) {
+                Arrays.sort(targets, offsets[v], offsets[v + 1]);
+            }
+            return new CompressedSparseRowGraph(vertexNumber, offsets, targets);
+        }
+
+        private void checkArgs(int from, int to) {
+            if (from == to) {
+                throw new IllegalArgumentException("Loops are not allowed");
+            }
+            if (from < 0 || to < 0 || from >= vertexNumber || to >= vertexNumber) {
+                throw new IndexOutOfBoundsException(String.format("Edge {%d, %d} out of graph bounds", from, to));
+            }
+        }
+
+    }
+
+}
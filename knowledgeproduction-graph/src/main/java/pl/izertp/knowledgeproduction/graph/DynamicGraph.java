@@ -0,0 +1,220 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+/**
+ * Implementation of the Graph supporting fast changes of the edges. Neighbors of every vertex
+ * are kept in an unordered int array, and a hash map keeps the position of every neighbor in
+ * the array. Adding an edge appends to the arrays, removing one moves the last neighbor into
+ * the freed position, so addEdge, removeEdge and getEdge are O(1) (amortized) and a random
+ * neighbor is drawn in O(1).
+ * Loops are not allowed and duplicate edges are added only once, like in AdjacencyListGraph.
+ */
+public class DynamicGraph implements Graph {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    /**
+     * Neighbors of every vertex, only first degrees[v] positions are used.
+     */
+    private final int[][] neighbors;
+
+    private final int[] degrees;
+
+    /**
+     * Position of neighbor b in neighbors[a], keyed by directedKey(a, b).
+     */
+    private final LongIntHashMap positions;
+
+    private int edgeNumber;
+
+    /**
+     * Initializes an empty graph.
+     * 
+     * @param n number of vertices
+     */
+    public DynamicGraph(int n) {
+        this(n, 16);
+    }
+
+    /**
+     * Initializes an empty graph.
+     * 
+     * @param n number of vertices
+     * @param expectedEdges expected number of edges, used to presize the position map
+     */
+    public DynamicGraph(int n, int expectedEdges) {
+        vertexNumber = n;
+        neighbors = new int[n][];
+        degrees = new int[n];
+        positions = new LongIntHashMap(2 * expectedEdges);
+    }
+
+    /**
+     * Creates a dynamic copy of any graph.
+     * 
+     * @param graph graph to copy
+     * @return mutable copy of the graph
+     */
+    public static DynamicGraph copyOf(Graph graph) {
+        int n = graph.getSize();
+        long directedEdges = 0;
+        for (int v = 0; v < n; v++) {
+            directedEdges += graph.getDegree(v);
+        }
+        DynamicGraph copy = new DynamicGraph(n, (int) Math.min(directedEdges / 2, Integer.MAX_VALUE / 4));
+        NeighborCursor cursor = graph.newNeighborCursor();
+        for (int v = 0; v < n; v++) {
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int neighbor = cursor.next();
+                if (neighbor > v) {
+                    copy.addEdge(v, neighbor);
+                }
+            }
+        }
+        return copy;
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    public boolean addEdge(int from, int to) {
+        checkArgs(from, to);
+        if (positions.get(directedKey(from, to)) >= 0) {
+            return true;
+        }
+        append(from, to);
+        append(to, from);
+        edgeNumber++;
+        return false;
+    }
+
+    public boolean removeEdge(int from, int to) {
+        int position = positions.remove(directedKey(from, to));
+        if (position < 0) {
+            return false;
+        }
+        removeAt(from, position);
+        removeAt(to, positions.remove(directedKey(to, from)));
+        edgeNumber--;
+        return true;
+    }
+
+    public boolean getEdge(int from, int to) {
+        return positions.get(directedKey(from, to)) >= 0;
+    }
+
+    /**
+     * Returns a live view of neighbors of the vertex. The order changes when edges are removed.
+     */
+    public List<Integer> getNeighbors(int v) {
+        return new NeighborList(v);
+    }
+
+    public int getDegree(int v) {
+        return degrees[v];
+    }
+
+    public int getNeighbor(int v, int i) {
+        if (i < 0 || i >= degrees[v]) {
+            throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+        }
+        return neighbors[v][i];
+    }
+
+    public int copyNeighbors(int v, int[] target) {
+        if (degrees[v] > 0) {
+            System.arraycopy(neighbors[v], 0, target, 0, degrees[v]);
+        }
+        return degrees[v];
+    }
+
+    /**
+     * @param v vertex
+     * @param random random number generator
+     * @return uniformly chosen neighbor of the vertex, -1 if the vertex has no neighbors
+     */
+    public int getRandomNeighbor(int v, Random random) {
+        if (degrees[v] == 0) {
+            return -1;
+        }
+        return neighbors[v][random.nextInt(degrees[v])];
+    }
+
+    /**
+     * @return number of undirected edges
+     */
+    public int getEdgeNumber() {
+        return edgeNumber;
+    }
+
+    private static long directedKey(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    private void append(int v, int neighbor) {
+        if (neighbors[v] == null) {
+            neighbors[v] = new int[INITIAL_CAPACITY];
+        } else if (degrees[v] == neighbors[v].length) {
+            neighbors[v] = Arrays.copyOf(neighbors[v], 2 * degrees[v]);
+        }
+        positions.put(directedKey(v, neighbor), degrees[v]);
+        neighbors[v][degrees[v]++] = neighbor;
+    }
+
+    /**
+     * Moves the last neighbor of the vertex into the given position.
+     */
+    private void removeAt(int v, int position) {
+        int last = --degrees[v];
+        if (position != last) {
+            int moved = neighbors[v][last];
+            neighbors[v][position] = moved;
+            positions.put(directedKey(v, moved), position);
+        }
+    }
+
+    private void checkArgs(int from, int to) {
+        if (from == to) {
+            throw new IllegalArgumentException("Loops are not allowed");
+        }
+        if (from < 0 || to < 0 || from >= vertexNumber || to >= vertexNumber) {
+            throw new IndexOutOfBoundsException(String.format("Edge {%d, %d} out of graph bounds", from, to));
+        }
+    }
+
+    /**
+     * Live read-only view of neighbors of a vertex.
+     */
+    private class NeighborList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int vertex;
+
+        private NeighborList(int vertex) {
+            this.vertex = vertex;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return getNeighbor(vertex, index);
+        }
+
+        @Override
+        public int size() {
+            return degrees[vertex];
+        }
+
+    }
+
+}
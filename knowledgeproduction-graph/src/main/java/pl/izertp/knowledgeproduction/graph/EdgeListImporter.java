@@ -0,0 +1,283 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Imports graphs from text edge lists (SNAP style): one edge per line, two vertex identifiers
+ * separated by whitespace or a comma, any further columns (weights, timestamps) are ignored.
+ * Lines starting with '#' or '%' are comments.
+ * <p>
+ * The file is memory-mapped and read twice - the first pass assigns dense indices to the
+ * identifiers (in order of their first appearance) and counts degrees, the second one fills
+ * the neighbor array of a CompressedSparseRowGraph directly. Like in AdjacencyListGraph,
+ * loops are dropped and duplicate edges are kept only once. Files bigger than 2GB are mapped
+ * in consecutive windows.
+ */
+public class EdgeListImporter {
+
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private final File file;
+
+    private final long windowSize;
+
+    /**
+     * Original identifier of every vertex of the last imported graph.
+     */
+    private long[] originalIds;
+
+    /**
+     * Creates an importer of the file.
+     * 
+     * @param file edge list file
+     */
+    public EdgeListImporter(File file) {
+        this(file, WINDOW_SIZE);
+    }
+
+    EdgeListImporter(File file, long windowSize) {
+        this.file = file;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Imports the graph from the file.
+     * 
+     * @param file edge list file
+     * @return imported graph
+     * @throws IOException when the file can't be read or has a wrong format
+     */
+    public static CompressedSparseRowGraph importGraph(File file) throws IOException {
+        return new EdgeListImporter(file).importGraph();
+    }
+
+    /**
+     * Imports the graph from the file. Original identifiers of the vertices are available
+     * afterwards from getOriginalId.
+     * 
+     * @return imported graph
+     * @throws IOException when the file can't be read or has a wrong format
+     */
+    public CompressedSparseRowGraph importGraph() throws IOException {
+        LongIntHashMap ids = new LongIntHashMap(1 << 16);
+        long[] idList = new long[1024];
+        int[] degrees = new int[1024];
+        long halfEdges = 0;
+        EdgeReader reader = new EdgeReader(file, windowSize);
+        try {
+            while (reader.nextEdge()) {
+                if (ids.size() + 2 > idList.length) {
+                    idList = Arrays.copyOf(idList, 2 * idList.length);
+                    degrees = Arrays.copyOf(degrees, 2 * degrees.length);
+                }
+                int from = ids.putIfAbsent(reader.from, ids.size());
+                idList[from] = reader.from;
+                int to = ids.putIfAbsent(reader.to, ids.size());
+                idList[to] = reader.to;
+                if (from != to) {
+                    degrees[from]++;
+                    degrees[to]++;
+                    halfEdges += 2;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (halfEdges > Integer.MAX_VALUE - 8) {
+            throw new IOException(String.format("File %s has too many edges", file));
+        }
+
+        int n = ids.size();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + degrees[v];
+        }
+        // degrees are reused as fill positions
+        int[] position = degrees;
+        System.arraycopy(offsets, 0, position, 0, n);
+        int[] targets = new int[(int) halfEdges];
+        reader = new EdgeReader(file, windowSize);
+        try {
+            while (reader.nextEdge()) {
+                int from = ids.get(reader.from);
+                int to = ids.get(reader.to);
+                if (from < 0 || to < 0 || (from != to && (position[from] == offsets[from + 1] || position[to] == offsets[to + 1]))) {
+                    throw new IOException(String.format("File %s changed during import", file));
+                }
+                if (from != to) {
+                    targets[position[from]++] = to;
+                    targets[position[to]++] = from;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // sort every row and drop duplicate edges, compacting the targets in place
+        int write = 0;
+        for (int v = 0; v < n; v++) {
+            int start = offsets[v];
+            int end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = write;
+            for (int i = start; i < end; i++) {
+                if (i == start || targets[i] != targets[i - 1]) {
+                    targets[write++] = targets[i];
+                }
+            }
+        }
+        offsets[n] = write;
+        if (write < targets.length) {
+            targets = Arrays.copyOf(targets, write);
+        }
+        originalIds = Arrays.copyOf(idList, n);
+        return new CompressedSparseRowGraph(n, offsets, targets);
+    }
+
+    /**
+     * @param v vertex of the last imported graph
+     * @return identifier of the vertex in the file
+     */
+    public long getOriginalId(int v) {
+        if (originalIds == null) {
+            throw new IllegalStateException("No graph has been imported");
+        }
+        return originalIds[v];
+    }
+
+    /**
+     * Sequential reader of edges from a file mapped in windows.
+     */
+    private static class EdgeReader implements Closeable {
+
+        private final RandomAccessFile randomAccessFile;
+
+        private final FileChannel channel;
+
+        private final long fileSize;
+
+        private final long windowSize;
+
+        private MappedByteBuffer window;
+
+        private long windowStart;
+
+        private long position;
+
+        private long line = 1;
+
+        /**
+         * Identifiers of the ends of the last read edge.
+         */
+        private long from;
+
+        private long to;
+
+        private EdgeReader(File file, long windowSize) throws IOException {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            channel = randomAccessFile.getChannel();
+            fileSize = channel.size();
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Reads the next edge into from and to.
+         * 
+         * @return false if there are no more edges
+         */
+        private boolean nextEdge() throws IOException {
+            while (true) {
+                int c = peek();
+                while (c == '\n' || c == '\r' || isSeparator(c)) {
+                    advance();
+                    c = peek();
+                }
+                if (c < 0) {
+                    return false;
+                }
+                if (c == '#' || c == '%') {
+                    skipLine();
+                    continue;
+                }
+                from = readId();
+                skipSeparators();
+                to = readId();
+                skipLine();
+                return true;
+            }
+        }
+
+        private long readId() throws IOException {
+            boolean negative = false;
+            if (peek() == '-') {
+                negative = true;
+                advance();
+            }
+            int c = peek();
+            if (c < '0' || c > '9') {
+                throw new IOException(String.format("Line %d: expected a vertex identifier", line));
+            }
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = 10 * value + (c - '0');
+                advance();
+                c = peek();
+            }
+            return negative ? -value : value;
+        }
+
+        private void skipSeparators() throws IOException {
+            while (isSeparator(peek())) {
+                advance();
+            }
+        }
+
+        private void skipLine() throws IOException {
+            int c = peek();
+            while (c >= 0 && c != '\n') {
+                advance();
+                c = peek();
+            }
+        }
+
+        private boolean isSeparator(int c) {
+            return c == ' ' || c == '\t' || c == ',';
+        }
+
+        /**
+         * @return current byte, -1 at the end of the file
+         */
+        private int peek() throws IOException {
+            if (position >= fileSize) {
+                return -1;
+            }
+            if (window == null || position - windowStart >= window.limit()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, fileSize - windowStart));
+            }
+            return window.get((int) (position - windowStart)) & 0xFF;
+        }
+
+        /**
+         * Moves to the next byte, must be called after peek.
+         */
+        private void advance() {
+            if (window.get((int) (position - windowStart)) == '\n') {
+                line++;
+            }
+            position++;
+        }
+
+        public void close() throws IOException {
+            randomAccessFile.close();
+        }
+
+    }
+
+}
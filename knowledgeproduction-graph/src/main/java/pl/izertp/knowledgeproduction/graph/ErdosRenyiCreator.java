@@ -1,63 +1,181 @@
 package pl.izertp.knowledgeproduction.graph;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Random;
 
 /**
  * Helper class which fills an empty graph with edges using Erdos-Renyi construction.
- * In every step an edge is added between random vertices which are not already connected by an edge.
- * The total number of edges is given as a parameter.
+ * Two models are supported:
+ * 
+ * <pre>
+ * G(n, m) - the total number of edges is given as a parameter, every set of m edges is equally probable.
+ * G(n, p) - every edge is present independently with given probability.
+ * </pre>
+ * 
+ * Both run in O(n + m) time and write the edges straight into the given graph.
  * 
  * @author Piotr Izert
  */
 public class ErdosRenyiCreator {
-    
+
+    /**
+     * Upper bound of a single geometric skip (more than the number of pairs in any graph).
+     */
+    private static final long MAX_SKIP = 1L << 62;
+
     /**
-     * Fills the graph with edges using Erdos-Renyi algorithm.
+     * Fills the graph with edges using Erdos-Renyi G(n, m) algorithm.
      * 
      * @param graph empty graph to fill with edges
      * @param edgeNumber number of edges to put
      */
     public static void InitErdosRenyiGraph(Graph graph, int edgeNumber) {
-        if (edgeNumber > (graph.getSize() * (graph.getSize() - 1)) / 2) {
+        InitErdosRenyiGraph(graph, edgeNumber, new Random());
+    }
+
+    /**
+     * Fills the graph with edges using Erdos-Renyi G(n, m) algorithm.
+     * Edges are drawn uniformly and rejected, if they were already drawn (drawn pairs are kept
+     * in a hashed set). When more than half of all possible edges is requested, the missing
+     * edges are drawn instead, so the expected number of draws is always below 2 * m.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param edgeNumber number of edges to put
+     * @param random random number generator
+     */
+    public static void InitErdosRenyiGraph(Graph graph, int edgeNumber, Random random) {
+        int n = graph.getSize();
+        long allPairs = (long) n * (n - 1) / 2;
+        if (edgeNumber > allPairs) {
             throw new IllegalArgumentException("Number of edges is higher than the number of all possible edges");
         }
+        if (edgeNumber > allPairs / 2) {
+            LongHashSet missing = drawPairs(n, (int) (allPairs - edgeNumber), random);
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (!missing.contains(LongHashSet.pairKey(i, j))) {
+                        graph.addEdge(i, j);
+                    }
+                }
+            }
+            return;
+        }
+        LongHashSet drawn = new LongHashSet(edgeNumber);
+        while (drawn.size() < edgeNumber) {
+            int a = random.nextInt(n);
+            int b = randomOtherVertex(n, a, random);
+            if (!drawn.add(LongHashSet.pairKey(a, b))) {
+                graph.addEdge(a, b);
+            }
+        }
+    }
 
-        ErdosRenyiCreator creator = new ErdosRenyiCreator();
-
-        List<VertexPair> vertexPairs = new ArrayList<VertexPair>();
+    /**
+     * Fills the graph with edges using Erdos-Renyi G(n, p) algorithm.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param probability probability of every edge, must be [0, 1]
+     */
+    public static void InitErdosRenyiGnpGraph(Graph graph, double probability) {
+        InitErdosRenyiGnpGraph(graph, probability, new Random());
+    }
 
-        for (int i = 0; i < graph.getSize(); i++) {
-            for (int j = i + 1; j < graph.getSize(); j++) {
-                vertexPairs.add(creator.new VertexPair(i, j));
+    /**
+     * Fills the graph with edges using Erdos-Renyi G(n, p) algorithm.
+     * Uses geometric skipping (Batagelj and Brandes): instead of tossing a coin for every pair,
+     * the number of pairs to skip before the next edge is drawn from the geometric distribution.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param probability probability of every edge, must be [0, 1]
+     * @param random random number generator
+     */
+    public static void InitErdosRenyiGnpGraph(Graph graph, double probability, Random random) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Edge probability must be [0, 1]");
+        }
+        int n = graph.getSize();
+        if (probability == 0) {
+            return;
+        }
+        if (probability == 1) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    graph.addEdge(i, j);
+                }
             }
+            return;
         }
+        addRandomEdges(graph, 0, n, probability, random);
+    }
 
-        for (int i = 0; i < edgeNumber; i++) {
-            Collections.shuffle(vertexPairs);
-            VertexPair randomPair = vertexPairs.get(0);
-            graph.addEdge(randomPair.vertexA, randomPair.vertexB);
-            vertexPairs.remove(0);
+    /**
+     * Adds every edge between vertices [offset, offset + size) with given probability,
+     * using geometric skipping over the lower triangle of the adjacency matrix.
+     * 
+     * @param graph graph to fill with edges
+     * @param offset first vertex
+     * @param size number of vertices
+     * @param probability probability of every edge, must be (0, 1)
+     * @param random random number generator
+     */
+    static void addRandomEdges(Graph graph, int offset, int size, double probability, Random random) {
+        double logQ = Math.log(1 - probability);
+        int v = 1;
+        long w = -1;
+        while (v < size) {
+            w += 1 + geometricSkip(logQ, random);
+            while (w >= v && v < size) {
+                w -= v;
+                v++;
+            }
+            if (v < size) {
+                graph.addEdge(offset + v, offset + (int) w);
+            }
         }
     }
 
     /**
-     * Class used for holding a pair of vertices, needed for Erdos-Renyi construction.
+     * Returns the number of failures before the first success in Bernoulli trials,
+     * capped so that it can be safely added to any pair index.
      * 
-     * @author Piotr Izert
+     * @param logQ logarithm of the failure probability
+     * @param random random number generator
+     * @return number of pairs to skip
      */
-    private class VertexPair {
+    static long geometricSkip(double logQ, Random random) {
+        return geometricSkip(logQ, random.nextDouble());
+    }
 
-        private int vertexA;
+    /**
+     * Returns the number of failures before the first success in Bernoulli trials.
+     * 
+     * @param logQ logarithm of the failure probability
+     * @param uniform random number [0, 1)
+     * @return number of pairs to skip, at most MAX_SKIP
+     */
+    static long geometricSkip(double logQ, double uniform) {
+        double skip = Math.floor(Math.log(1 - uniform) / logQ);
+        // logQ rounds to 0 for probabilities below 1e-16, giving an infinite or NaN skip
+        return skip >= 0 && skip < MAX_SKIP ? (long) skip : MAX_SKIP;
+    }
 
-        private int vertexB;
+    /**
+     * Returns a random vertex different from the given one.
+     */
+    static int randomOtherVertex(int n, int vertex, Random random) {
+        int other = random.nextInt(n - 1);
+        return other >= vertex ? other + 1 : other;
+    }
 
-        public VertexPair(int a, int b) {
-            vertexA = a;
-            vertexB = b;
+    /**
+     * Draws given number of distinct vertex pairs.
+     */
+    private static LongHashSet drawPairs(int n, int pairNumber, Random random) {
+        LongHashSet drawn = new LongHashSet(pairNumber);
+        while (drawn.size() < pairNumber) {
+            int a = random.nextInt(n);
+            drawn.add(LongHashSet.pairKey(a, randomOtherVertex(n, a, random)));
         }
-
-    };
+        return drawn;
+    }
 
 }
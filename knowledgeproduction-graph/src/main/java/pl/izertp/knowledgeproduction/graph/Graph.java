@@ -6,6 +6,9 @@ import java.util.List;
  * Interface of a graph. Contains basic graph operations:
  * - adding and removing edges
  * - getters for graph size and neighbors of given vertex.
+ * Neighbors can also be read without boxing - by index, copied into an int array or with
+ * a reusable cursor. Default implementations use getNeighbors, implementations override them
+ * with direct access to their storage.
  * 
  * @author Piotr Izert
  */
@@ -25,6 +28,18 @@ public interface Graph {
      */
     public boolean addEdge(int from, int to);
 
+    /**
+     * Removes an edge from the graph. Not supported by immutable and implicit graphs.
+     * 
+     * @param from start vertex
+     * @param to end vertex
+     * @return if the edge was present or not
+     * @throws UnsupportedOperationException if the graph doesn't support removing edges
+     */
+    public default boolean removeEdge(int from, int to) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support removing edges");
+    }
+
     /**
      * Checks if the edge is present.
      * 
@@ -42,4 +57,47 @@ public interface Graph {
      */
     public List<Integer> getNeighbors(int v);
 
+    /**
+     * @param v vertex
+     * @return number of neighbors of the vertex
+     */
+    public default int getDegree(int v) {
+        return getNeighbors(v).size();
+    }
+
+    /**
+     * Returns i-th neighbor of the vertex, in the order of getNeighbors.
+     * 
+     * @param v vertex
+     * @param i index of the neighbor, must be [0, getDegree(v))
+     * @return i-th neighbor
+     */
+    public default int getNeighbor(int v, int i) {
+        return getNeighbors(v).get(i);
+    }
+
+    /**
+     * Copies neighbors of the vertex into the array.
+     * 
+     * @param v vertex
+     * @param target array of at least getDegree(v) length
+     * @return number of copied neighbors (degree of the vertex)
+     */
+    public default int copyNeighbors(int v, int[] target) {
+        int i = 0;
+        for (int neighbor : getNeighbors(v)) {
+            target[i++] = neighbor;
+        }
+        return i;
+    }
+
+    /**
+     * Creates a cursor over neighbors, which should be reused for many vertices.
+     * 
+     * @return new cursor, reset must be called before reading
+     */
+    public default NeighborCursor newNeighborCursor() {
+        return new IndexedNeighborCursor(this);
+    }
+
 }
@@ -0,0 +1,243 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Factory of graphs with a given number of vertices. Used for plugging different network
+ * topologies into the simulation.
+ * Static methods return factories of the random graphs from the creator classes,
+ * stored as CompressedSparseRowGraph or, when dense, as BitMatrixGraph (see GraphRepresentation),
+ * of implicit topologies computed from vertex indices (lattices, rings, complete graph),
+ * or of graphs imported from edge list files.
+ */
+public interface GraphFactory {
+
+    /**
+     * Creates a new graph.
+     * 
+     * @param n number of vertices
+     * @return graph with n vertices
+     */
+    public Graph createGraph(int n);
+
+    /**
+     * @param edgeNumber number of edges
+     * @return factory of Erdos-Renyi G(n, m) graphs
+     */
+    public static GraphFactory erdosRenyi(int edgeNumber) {
+        return erdosRenyi(edgeNumber, new Random());
+    }
+
+    /**
+     * @param edgeNumber number of edges
+     * @param random random number generator used by all the created graphs
+     * @return factory of Erdos-Renyi G(n, m) graphs
+     */
+    public static GraphFactory erdosRenyi(final int edgeNumber, final Random random) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                Graph graph = GraphRepresentation.newGraph(n, edgeNumber);
+                ErdosRenyiCreator.InitErdosRenyiGraph(graph, edgeNumber, random);
+                return GraphRepresentation.finish(graph);
+            }
+        };
+    }
+
+    /**
+     * @param probability probability of every edge
+     * @return factory of Erdos-Renyi G(n, p) graphs
+     */
+    public static GraphFactory erdosRenyiGnp(double probability) {
+        return erdosRenyiGnp(probability, new Random());
+    }
+
+    /**
+     * @param probability probability of every edge
+     * @param random random number generator used by all the created graphs
+     * @return factory of Erdos-Renyi G(n, p) graphs
+     */
+    public static GraphFactory erdosRenyiGnp(final double probability, final Random random) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                Graph graph = GraphRepresentation.newGraph(n, (long) (probability * n * (n - 1.0) / 2));
+                ErdosRenyiCreator.InitErdosRenyiGnpGraph(graph, probability, random);
+                return GraphRepresentation.finish(graph);
+            }
+        };
+    }
+
+    /**
+     * @param probability probability of every edge
+     * @param seed master seed, the same seed always gives the same graph
+     * @return factory of Erdos-Renyi G(n, p) graphs generated in parallel on the common pool
+     */
+    public static GraphFactory parallelErdosRenyiGnp(final double probability, final long seed) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                return ParallelGraphGenerator.erdosRenyiGnp(n, probability, seed);
+            }
+        };
+    }
+
+    /**
+     * @param edgesPerVertex number of edges added with every new vertex
+     * @return factory of Barabasi-Albert graphs
+     */
+    public static GraphFactory barabasiAlbert(int edgesPerVertex) {
+        return barabasiAlbert(edgesPerVertex, new Random());
+    }
+
+    /**
+     * @param edgesPerVertex number of edges added with every new vertex
+     * @param random random number generator used by all the created graphs
+     * @return factory of Barabasi-Albert graphs
+     */
+    public static GraphFactory barabasiAlbert(final int edgesPerVertex, final Random random) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                Graph graph = GraphRepresentation.newGraph(n, (long) n * edgesPerVertex);
+                BarabasiAlbertCreator.InitBarabasiAlbertGraph(graph, edgesPerVertex, random);
+                return GraphRepresentation.finish(graph);
+            }
+        };
+    }
+
+    /**
+     * @param nearestNeighbors initial degree of every vertex, must be even
+     * @param rewiringProbability probability of rewiring an edge
+     * @return factory of Watts-Strogatz graphs
+     */
+    public static GraphFactory wattsStrogatz(int nearestNeighbors, double rewiringProbability) {
+        return wattsStrogatz(nearestNeighbors, rewiringProbability, new Random());
+    }
+
+    /**
+     * @param nearestNeighbors initial degree of every vertex, must be even
+     * @param rewiringProbability probability of rewiring an edge
+     * @param random random number generator used by all the created graphs
+     * @return factory of Watts-Strogatz graphs
+     */
+    public static GraphFactory wattsStrogatz(final int nearestNeighbors, final double rewiringProbability, final Random random) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                Graph graph = GraphRepresentation.newGraph(n, (long) n * (nearestNeighbors / 2));
+                WattsStrogatzCreator.InitWattsStrogatzGraph(graph, nearestNeighbors, rewiringProbability, random);
+                return GraphRepresentation.finish(graph);
+            }
+        };
+    }
+
+    /**
+     * @param blockSizes sizes of consecutive blocks, must sum up to the graph size
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     * @return factory of stochastic block model graphs
+     */
+    public static GraphFactory stochasticBlockModel(int[] blockSizes, double[][] probabilities) {
+        return stochasticBlockModel(blockSizes, probabilities, new Random());
+    }
+
+    /**
+     * @param blockSizes sizes of consecutive blocks, must sum up to the graph size
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     * @param random random number generator used by all the created graphs
+     * @return factory of stochastic block model graphs
+     */
+    public static GraphFactory stochasticBlockModel(final int[] blockSizes, final double[][] probabilities, final Random random) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                // validates the block sizes and probabilities
+                StochasticBlockModelCreator.blockOffsets(n, blockSizes, probabilities);
+                double expectedEdges = 0;
+                for (int i = 0; i < blockSizes.length; i++) {
+                    expectedEdges += probabilities[i][i] * blockSizes[i] * (blockSizes[i] - 1.0) / 2;
+                    for (int j = i + 1; j < blockSizes.length; j++) {
+                        expectedEdges += probabilities[i][j] * blockSizes[i] * (double) blockSizes[j];
+                    }
+                }
+                Graph graph = GraphRepresentation.newGraph(n, (long) expectedEdges);
+                StochasticBlockModelCreator.InitStochasticBlockModelGraph(graph, blockSizes, probabilities, random);
+                return GraphRepresentation.finish(graph);
+            }
+        };
+    }
+
+    /**
+     * @param periodic if true, the lattice wraps around (torus)
+     * @param dimensions size of the lattice along every axis, must multiply to the graph size
+     * @return factory of lattices (see {@link LatticeGraph})
+     */
+    public static GraphFactory lattice(final boolean periodic, final int... dimensions) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                LatticeGraph graph = new LatticeGraph(periodic, dimensions);
+                if (graph.getSize() != n) {
+                    throw new IllegalArgumentException(String.format("Lattice has %d vertices, %d expected", graph.getSize(), n));
+                }
+                return graph;
+            }
+        };
+    }
+
+    /**
+     * @param nearestNeighbors degree of every vertex, must be even
+     * @return factory of ring lattices (see {@link RingGraph})
+     */
+    public static GraphFactory ring(final int nearestNeighbors) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                return new RingGraph(n, nearestNeighbors);
+            }
+        };
+    }
+
+    /**
+     * @return factory of complete graphs (see {@link CompleteGraph})
+     */
+    public static GraphFactory complete() {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                return new CompleteGraph(n);
+            }
+        };
+    }
+
+    /**
+     * @param factory factory of the initial graph
+     * @return factory of DynamicGraph copies of the graphs, so their edges can be changed
+     */
+    public static GraphFactory dynamic(final GraphFactory factory) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                return DynamicGraph.copyOf(factory.createGraph(n));
+            }
+        };
+    }
+
+    /**
+     * Factory of a graph imported from an edge list file (see {@link EdgeListImporter}).
+     * The file is read on every call and must contain exactly n vertices.
+     * 
+     * @param file edge list file
+     * @return factory of the imported graph
+     */
+    public static GraphFactory edgeList(final File file) {
+        return new GraphFactory() {
+            public Graph createGraph(int n) {
+                CompressedSparseRowGraph graph;
+                try {
+                    graph = EdgeListImporter.importGraph(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (graph.getSize() != n) {
+                    throw new IllegalArgumentException(String.format("Graph in %s has %d vertices, %d expected", file, graph.getSize(), n));
+                }
+                return graph;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,180 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads and writes graphs in a versioned binary format. The format is the CSR layout
+ * (big-endian, as written by DataOutputStream):
+ * 
+ * <pre>
+ * int      magic number ("KPGR")
+ * int      format version
+ * int      number of vertices n
+ * int      length of the targets array (2 * number of edges)
+ * int[n+1] offsets
+ * int[]    targets, neighbors of every vertex sorted ascending
+ * </pre>
+ * 
+ * Files are read by mapping them into memory in windows of 1GB, so a graph file is limited only
+ * by the int offsets (2^31 - 1 targets) - see {@link MappedGraph}.
+ */
+public class GraphFiles {
+
+    static final int MAGIC = 0x4B504752;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Writes the graph to a file.
+     * 
+     * @param graph graph to write
+     * @param file destination file
+     * @throws IOException when writing fails
+     */
+    public static void write(Graph graph, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            write(graph, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the graph to a stream.
+     * 
+     * @param graph graph to write
+     * @param out destination stream
+     * @throws IOException when writing fails
+     */
+    public static void write(Graph graph, DataOutputStream out) throws IOException {
+        int n = graph.getSize();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + graph.getDegree(v);
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(offsets[n]);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        int[] row = new int[0];
+        for (int v = 0; v < n; v++) {
+            int degree = offsets[v + 1] - offsets[v];
+            if (row.length < degree) {
+                row = new int[Math.max(degree, row.length * 2)];
+            }
+            graph.copyNeighbors(v, row);
+            Arrays.sort(row, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                out.writeInt(row[i]);
+            }
+        }
+    }
+
+    /**
+     * Maps a graph file into memory. The file is mapped read-only, so it can be shared
+     * by many processes through the page cache.
+     * 
+     * @param file graph file
+     * @return graph served directly from the mapped file
+     * @throws IOException when the file can't be mapped or has a wrong format
+     */
+    public static MappedGraph map(File file) throws IOException {
+        return map(file, MappedInts.WINDOW_SHIFT);
+    }
+
+    /**
+     * Maps a graph file into memory in windows of 2^windowShift ints.
+     */
+    static MappedGraph map(File file, int windowShift) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_SIZE));
+            int vertexNumber = MappedGraph.checkHeader(header, size);
+            MappedInts offsets = MappedInts.map(channel, HEADER_SIZE, vertexNumber + 1L, windowShift);
+            MappedInts targets = MappedInts.map(channel, HEADER_SIZE + 4L * (vertexNumber + 1), header.getInt(12), windowShift);
+            return new MappedGraph(vertexNumber, offsets, targets);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Maps the whole file read-only in a single buffer.
+     * 
+     * @param file file to map
+     * @return mapped buffer
+     * @throws IOException when the file can't be mapped or is bigger than 2GB
+     */
+    public static ByteBuffer mapReadOnly(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("File %s is too big to be mapped", file));
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Checks a count read from a file header.
+     * 
+     * @param count value of the count
+     * @param name name of the count for the message
+     * @throws IOException when the count is negative
+     */
+    public static void checkCount(int count, String name) throws IOException {
+        if (count < 0) {
+            throw new IOException(String.format("Negative %s %d in the file header", name, count));
+        }
+    }
+
+    /**
+     * Checks that the buffer has exactly the size following from its header, so a truncated
+     * or corrupted file is rejected before any of its sections is sliced.
+     * 
+     * @param size size of the file in bytes
+     * @param expectedSize size in bytes following from the header
+     * @throws IOException when the sizes differ
+     */
+    public static void checkSize(long size, long expectedSize) throws IOException {
+        if (size != expectedSize) {
+            throw new IOException(String.format("File has %d bytes, but its header describes %d bytes", size, expectedSize));
+        }
+    }
+
+    /**
+     * Returns a big-endian slice of the buffer.
+     * 
+     * @param buffer source buffer
+     * @param position first byte of the slice
+     * @param length length of the slice in bytes
+     * @return slice of the buffer
+     */
+    public static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+}
@@ -0,0 +1,92 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Selects the graph representation by the graph density and size. A bit matrix takes n^2 bits
+ * and a CSR graph 64 bits per undirected edge, so above the density of 1/32 the bit matrix is not
+ * bigger, and it gives O(1) addEdge and getEdge. Very large sparse graphs can be compressed
+ * with CompressedGraph, trading decode time for a 2-4 times smaller footprint.
+ */
+public class GraphRepresentation {
+
+    /**
+     * Fraction of all the vertex pairs, above which graphs are kept as bit matrices.
+     */
+    public static final double DENSITY_THRESHOLD = 1.0 / 32;
+
+    /**
+     * Number of undirected edges, above which sparse graphs are compressed by forLookup.
+     */
+    public static final long COMPRESSION_THRESHOLD = 1L << 27;
+
+    /**
+     * @param n number of vertices
+     * @param edgeNumber number of edges
+     * @return true if the graph should be kept as a bit matrix
+     */
+    public static boolean isDense(int n, long edgeNumber) {
+        return n > 1 && BitMatrixGraph.fits(n) && edgeNumber >= DENSITY_THRESHOLD * n * (n - 1.0) / 2;
+    }
+
+    /**
+     * Creates an empty graph to be filled by a creator - a BitMatrixGraph if the graph will be
+     * dense, a CompressedSparseRowGraph.Builder otherwise. The result should be passed to finish
+     * after filling.
+     * 
+     * @param n number of vertices
+     * @param expectedEdges expected number of edges
+     * @return empty graph
+     */
+    public static Graph newGraph(int n, long expectedEdges) {
+        if (isDense(n, expectedEdges)) {
+            return new BitMatrixGraph(n);
+        }
+        return new CompressedSparseRowGraph.Builder(n, (int) Math.min(expectedEdges, Integer.MAX_VALUE / 2));
+    }
+
+    /**
+     * @param graph graph created by newGraph and filled
+     * @return graph ready to be queried (builders are built)
+     */
+    public static Graph finish(Graph graph) {
+        if (graph instanceof CompressedSparseRowGraph.Builder) {
+            return ((CompressedSparseRowGraph.Builder) graph).build();
+        }
+        return graph;
+    }
+
+    /**
+     * Returns an immutable-layout copy of any graph in the representation matching its density.
+     * Graphs already in the right representation are returned as they are.
+     * 
+     * @param graph graph to copy
+     * @return BitMatrixGraph for dense graphs, CompressedSparseRowGraph otherwise
+     */
+    public static Graph select(Graph graph) {
+        int n = graph.getSize();
+        long edgeNumber = 0;
+        for (int v = 0; v < n; v++) {
+            edgeNumber += graph.getNeighbors(v).size();
+        }
+        if (isDense(n, edgeNumber / 2)) {
+            return graph instanceof BitMatrixGraph ? graph : BitMatrixGraph.copyOf(graph);
+        }
+        return CompressedSparseRowGraph.copyOf(graph);
+    }
+
+    /**
+     * Prepares a graph for neighbor lookups: builders are built and CSR graphs with more than
+     * compressionThreshold edges are compressed. Other graphs are returned as they are.
+     * 
+     * @param graph graph to prepare
+     * @param compressionThreshold number of edges, above which CSR graphs are compressed
+     * @return graph ready to be queried
+     */
+    public static Graph forLookup(Graph graph, long compressionThreshold) {
+        Graph result = finish(graph);
+        if (result instanceof CompressedSparseRowGraph && ((CompressedSparseRowGraph) result).getEdgeNumber() > compressionThreshold) {
+            return CompressedGraph.copyOf(result);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,77 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Base of read-only graphs, whose neighbors are computed from the vertex index,
+ * so no memory is used per edge. Subclasses define getDegree and getNeighbor.
+ */
+abstract class ImplicitGraph implements Graph {
+
+    /**
+     * Number of graph vertices.
+     */
+    protected final int vertexNumber;
+
+    ImplicitGraph(int vertexNumber) {
+        this.vertexNumber = vertexNumber;
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    /**
+     * Not supported - the edges are defined by the topology.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    public boolean addEdge(int from, int to) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is read-only");
+    }
+
+    public List<Integer> getNeighbors(int v) {
+        return new NeighborList(v);
+    }
+
+    public abstract int getDegree(int v);
+
+    public abstract int getNeighbor(int v, int i);
+
+    /**
+     * @return number of undirected edges
+     */
+    public abstract long getEdgeNumber();
+
+    /**
+     * Read-only view of neighbors of a vertex, computed on access.
+     */
+    private class NeighborList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int vertex;
+
+        private final int degree;
+
+        private NeighborList(int vertex) {
+            this.vertex = vertex;
+            this.degree = getDegree(vertex);
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= degree) {
+                throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + index);
+            }
+            return getNeighbor(vertex, index);
+        }
+
+        @Override
+        public int size() {
+            return degree;
+        }
+
+    }
+
+}
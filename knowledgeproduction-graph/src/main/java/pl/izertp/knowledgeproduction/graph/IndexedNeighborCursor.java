@@ -0,0 +1,35 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * NeighborCursor using getDegree and getNeighbor of the graph.
+ */
+class IndexedNeighborCursor implements NeighborCursor {
+
+    private final Graph graph;
+
+    private int vertex;
+
+    private int index;
+
+    private int degree;
+
+    IndexedNeighborCursor(Graph graph) {
+        this.graph = graph;
+    }
+
+    public NeighborCursor reset(int v) {
+        vertex = v;
+        index = 0;
+        degree = graph.getDegree(v);
+        return this;
+    }
+
+    public boolean hasNext() {
+        return index < degree;
+    }
+
+    public int next() {
+        return graph.getNeighbor(vertex, index++);
+    }
+
+}
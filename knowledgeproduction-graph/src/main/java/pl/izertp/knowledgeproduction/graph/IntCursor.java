@@ -0,0 +1,19 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Iterator over primitive ints. Cursors are meant to be created once and reset for
+ * every iteration, so iterating doesn't allocate anything and doesn't box the values.
+ */
+public interface IntCursor {
+
+    /**
+     * @return true if there are more values
+     */
+    public boolean hasNext();
+
+    /**
+     * @return next value
+     */
+    public int next();
+
+}
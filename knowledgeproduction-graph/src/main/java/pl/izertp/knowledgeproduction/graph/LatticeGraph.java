@@ -0,0 +1,135 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Regular lattice of any dimension (square lattice in 2D, cubic in 3D). Vertices are numbered
+ * row by row - the first dimension changes fastest - and every vertex is connected to its
+ * neighbors along each axis. If the lattice is periodic (a torus), the neighbors wrap around
+ * the edges. Neighbors are computed from the vertex index, so the graph takes O(dimensions)
+ * memory.
+ */
+public class LatticeGraph extends ImplicitGraph {
+
+    /**
+     * Size of the lattice along every axis.
+     */
+    private final int[] dimensions;
+
+    /**
+     * Index distance between neighbors along every axis.
+     */
+    private final int[] strides;
+
+    private final boolean periodic;
+
+    /**
+     * Creates a lattice.
+     * 
+     * @param periodic if true, the lattice wraps around (torus)
+     * @param dimensions size of the lattice along every axis
+     */
+    public LatticeGraph(boolean periodic, int... dimensions) {
+        super(vertexNumber(dimensions));
+        this.periodic = periodic;
+        this.dimensions = dimensions.clone();
+        this.strides = new int[dimensions.length];
+        int stride = 1;
+        for (int k = 0; k < dimensions.length; k++) {
+            strides[k] = stride;
+            stride *= dimensions[k];
+        }
+    }
+
+    private static int vertexNumber(int[] dimensions) {
+        if (dimensions.length == 0) {
+            throw new IllegalArgumentException("Lattice must have at least one dimension");
+        }
+        long n = 1;
+        for (int size : dimensions) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Lattice dimensions must be positive");
+            }
+            n *= size;
+            if (n > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Lattice has too many vertices");
+            }
+        }
+        return (int) n;
+    }
+
+    public boolean getEdge(int from, int to) {
+        for (int slot = 0; slot < 2 * dimensions.length; slot++) {
+            if (neighborInSlot(from, slot) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getDegree(int v) {
+        int degree = 0;
+        for (int slot = 0; slot < 2 * dimensions.length; slot++) {
+            if (neighborInSlot(v, slot) >= 0) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Neighbors are ordered by axis, along each axis the lower one goes first.
+     */
+    public int getNeighbor(int v, int i) {
+        int remaining = i;
+        for (int slot = 0; slot < 2 * dimensions.length; slot++) {
+            int neighbor = neighborInSlot(v, slot);
+            if (neighbor >= 0 && remaining-- == 0) {
+                return neighbor;
+            }
+        }
+        throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+    }
+
+    public long getEdgeNumber() {
+        long edges = 0;
+        for (int size : dimensions) {
+            long lines = vertexNumber / size;
+            if (periodic && size > 2) {
+                edges += lines * size;
+            } else {
+                edges += lines * (size - 1);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * @return true if the lattice wraps around
+     */
+    public boolean isPeriodic() {
+        return periodic;
+    }
+
+    /**
+     * @param v vertex
+     * @param slot 2 * axis for the lower neighbor, 2 * axis + 1 for the upper one
+     * @return the neighbor, -1 if there is no such neighbor
+     */
+    private int neighborInSlot(int v, int slot) {
+        int axis = slot >> 1;
+        int size = dimensions[axis];
+        int stride = strides[axis];
+        int coordinate = (v / stride) % size;
+        if ((slot & 1) == 0) {
+            if (coordinate > 0) {
+                return v - stride;
+            }
+            // with 2 vertices on the axis the wrapped lower neighbor is the upper one
+            return periodic && size > 2 ? v + (size - 1) * stride : -1;
+        }
+        if (coordinate < size - 1) {
+            return v + stride;
+        }
+        return periodic && size > 2 ? v - (size - 1) * stride : -1;
+    }
+
+}
@@ -0,0 +1,154 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing hash set of non-negative longs (linear probing).
+ * Used for keeping packed vertex pairs without boxing.
+ */
+class LongHashSet {
+
+    private static final long EMPTY = -1L;
+
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] keys;
+
+    private int size;
+
+    private int mask;
+
+    /**
+     * Creates a set able to hold given number of keys without rehashing.
+     * 
+     * @param expectedSize expected number of keys
+     */
+    LongHashSet(int expectedSize) {
+        int capacity = 4;
+        while (capacity < (1 << 30) && capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Packs an unordered pair of vertices into a single key.
+     * 
+     * @param a vertex a
+     * @param b vertex b
+     * @return key identifying the pair {a, b}
+     */
+    static long pairKey(int a, int b) {
+        if (a > b) {
+            return ((long) b << 32) | a;
+        }
+        return ((long) a << 32) | b;
+    }
+
+    /**
+     * Adds a key to the set.
+     * 
+     * @param key non-negative key
+     * @return true if the key was already present
+     */
+    boolean add(long key) {
+        int i = index(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return false;
+    }
+
+    /**
+     * @param key non-negative key
+     * @return true if the key is present
+     */
+    boolean contains(long key) {
+        int i = index(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a key from the set (backward shift deletion, no tombstones).
+     * 
+     * @param key non-negative key
+     * @return true if the key was present
+     */
+    boolean remove(long key) {
+        int i = index(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Closes the gap after removal by moving back keys, which would become unreachable.
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long key = keys[i];
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+            int ideal = index(key);
+            boolean reachable = gap < i ? (ideal > gap && ideal <= i) : (ideal > gap || ideal <= i);
+            if (!reachable) {
+                keys[gap] = key;
+                gap = i;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        allocate(oldKeys.length << 1);
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                int i = index(key);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+}
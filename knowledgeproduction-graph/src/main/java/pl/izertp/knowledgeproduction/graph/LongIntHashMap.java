@@ -0,0 +1,175 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing hash map from longs to non-negative ints (linear probing).
+ * Used for remapping sparse vertex identifiers without boxing.
+ */
+class LongIntHashMap {
+
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] keys;
+
+    /**
+     * Values, -1 for free positions.
+     */
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    /**
+     * Creates a map able to hold given number of keys without rehashing.
+     * 
+     * @param expectedSize expected number of keys
+     */
+    LongIntHashMap(int expectedSize) {
+        int capacity = 4;
+        while (capacity < (1 << 30) && capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @param key key
+     * @return value of the key, -1 if the key is not present
+     */
+    int get(long key) {
+        int i = index(key);
+        while (values[i] >= 0) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns value of the key, putting the given value first if the key is not present.
+     * 
+     * @param key key
+     * @param value non-negative value put for a new key
+     * @return value of the key
+     */
+    int putIfAbsent(long key, int value) {
+        int i = index(key);
+        while (values[i] >= 0) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return value;
+    }
+
+    /**
+     * Puts the value, replacing the previous value of the key.
+     * 
+     * @param key key
+     * @param value non-negative value
+     * @return previous value of the key, -1 if the key was not present
+     */
+    int put(long key, int value) {
+        int i = index(key);
+        while (values[i] >= 0) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the key (backward shift deletion, no tombstones).
+     * 
+     * @param key key
+     * @return value of the removed key, -1 if the key was not present
+     */
+    int remove(long key) {
+        int i = index(key);
+        while (values[i] >= 0) {
+            if (keys[i] == key) {
+                int value = values[i];
+                shiftBack(i);
+                size--;
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Closes the gap after removal by moving back entries, which would become unreachable.
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] < 0) {
+                values[gap] = -1;
+                return;
+            }
+            int ideal = index(keys[i]);
+            boolean reachable = gap < i ? (ideal > gap && ideal <= i) : (ideal > gap || ideal <= i);
+            if (!reachable) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, -1);
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] >= 0) {
+                int i = index(oldKeys[j]);
+                while (values[i] >= 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only Graph served directly from a buffer in the format written by GraphFiles
+ * (usually a file memory-mapped in windows, so it may exceed 2GB). Nothing is copied
+ * to the heap - offsets and neighbors are read from the buffer on every call.
+ */
+public class MappedGraph implements Graph {
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    private final MappedInts offsets;
+
+    private final MappedInts targets;
+
+    /**
+     * Creates a graph over the buffer.
+     * 
+     * @param buffer buffer with a graph written by GraphFiles
+     * @throws IOException when the buffer has a wrong format or its size doesn't match the header
+     */
+    public MappedGraph(ByteBuffer buffer) throws IOException {
+        // the header is checked before the sections are sliced
+        this(checkHeader(buffer, buffer.capacity()),
+                MappedInts.wrap(GraphFiles.slice(buffer, GraphFiles.HEADER_SIZE, 4 * (buffer.getInt(8) + 1))),
+                MappedInts.wrap(GraphFiles.slice(buffer, GraphFiles.HEADER_SIZE + 4 * (buffer.getInt(8) + 1), 4 * buffer.getInt(12))));
+    }
+
+    /**
+     * Creates a graph over the offsets and targets arrays.
+     * 
+     * @param vertexNumber number of vertices
+     * @param offsets n + 1 offsets of the rows
+     * @param targets neighbors of all the vertices
+     * @throws IOException when the offsets don't match the targets
+     */
+    MappedGraph(int vertexNumber, MappedInts offsets, MappedInts targets) throws IOException {
+        this.vertexNumber = vertexNumber;
+        this.offsets = offsets;
+        this.targets = targets;
+        if (offsets.get(0) != 0 || offsets.get(vertexNumber) != targets.length()) {
+            throw new IOException("Offsets of the graph file don't match its number of targets");
+        }
+        // a decreasing offset would give a negative degree and rows overlapping other rows
+        for (int v = 0; v < vertexNumber; v++) {
+            if (offsets.get(v + 1) < offsets.get(v)) {
+                throw new IOException(String.format("Offsets of the graph file decrease at vertex %d", v));
+            }
+        }
+    }
+
+    /**
+     * Checks the header of a graph file.
+     * 
+     * @param header buffer starting with the header
+     * @param size size of the whole file
+     * @return number of vertices
+     * @throws IOException when the header has a wrong format or doesn't match the file size
+     */
+    static int checkHeader(ByteBuffer header, long size) throws IOException {
+        if (size < GraphFiles.HEADER_SIZE || header.capacity() < GraphFiles.HEADER_SIZE || header.getInt(0) != GraphFiles.MAGIC) {
+            throw new IOException("Not a graph file");
+        }
+        if (header.getInt(4) != GraphFiles.VERSION) {
+            throw new IOException(String.format("Unsupported graph file version %d", header.getInt(4)));
+        }
+        int vertexNumber = header.getInt(8);
+        int targetsLength = header.getInt(12);
+        GraphFiles.checkCount(vertexNumber, "number of vertices");
+        GraphFiles.checkCount(targetsLength, "number of targets");
+        GraphFiles.checkSize(size, GraphFiles.HEADER_SIZE + 4L * (vertexNumber + 1) + 4L * targetsLength);
+        return vertexNumber;
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    public boolean addEdge(int from, int to) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    public boolean getEdge(int from, int to) {
+        int low = offsets.get(from);
+        int high = offsets.get(from + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = targets.get(middle);
+            if (value < to) {
+                low = middle + 1;
+            } else if (value > to) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Integer> getNeighbors(int v) {
+        return new NeighborList(offsets.get(v), offsets.get(v + 1));
+    }
+
+    /**
+     * @param v vertex
+     * @return number of neighbors of the vertex
+     */
+    public int getDegree(int v) {
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    /**
+     * @param v vertex
+     * @param i index of the neighbor, must be [0, getDegree(v))
+     * @return i-th neighbor
+     */
+    public int getNeighbor(int v, int i) {
+        return targets.get(offsets.get(v) + i);
+    }
+
+    public int copyNeighbors(int v, int[] target) {
+        int from = offsets.get(v);
+        int degree = offsets.get(v + 1) - from;
+        for (int i = 0; i < degree; i++) {
+            target[i] = targets.get(from + i);
+        }
+        return degree;
+    }
+
+    /**
+     * Read-only view of a single neighbor list.
+     */
+    private class NeighborList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int from;
+
+        private final int to;
+
+        private NeighborList(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + index);
+            }
+            return targets.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only array of big-endian ints kept in a file mapped in windows, so the array may
+ * exceed the 2GB limit of a single mapping. Window i holds the ints
+ * [i * 2^shift, (i + 1) * 2^shift).
+ */
+class MappedInts {
+
+    /**
+     * Windows of 2^28 ints (1GB) are used by default.
+     */
+    static final int WINDOW_SHIFT = 28;
+
+    private final IntBuffer[] windows;
+
+    private final int shift;
+
+    private final long mask;
+
+    private final long length;
+
+    private MappedInts(IntBuffer[] windows, int shift, long length) {
+        this.windows = windows;
+        this.shift = shift;
+        this.mask = (1L << shift) - 1;
+        this.length = length;
+    }
+
+    /**
+     * Creates an array over a single buffer.
+     * 
+     * @param buffer buffer with the ints
+     * @return array of all the ints of the buffer
+     */
+    static MappedInts wrap(ByteBuffer buffer) {
+        IntBuffer ints = buffer.asIntBuffer();
+        return new MappedInts(new IntBuffer[] { ints }, 31, ints.capacity());
+    }
+
+    /**
+     * Maps a region of the file read-only in windows. The mapping stays valid after the channel
+     * is closed.
+     * 
+     * @param channel file channel
+     * @param position first byte of the region
+     * @param length number of ints in the region
+     * @param shift every window has 2^shift ints
+     * @return array of the ints of the region
+     * @throws IOException when mapping fails
+     */
+    static MappedInts map(FileChannel channel, long position, long length, int shift) throws IOException {
+        int windowNumber = (int) ((length + (1L << shift) - 1) >>> shift);
+        IntBuffer[] windows = new IntBuffer[Math.max(windowNumber, 1)];
+        windows[0] = IntBuffer.allocate(0);
+        for (int w = 0; w < windowNumber; w++) {
+            long start = (long) w << shift;
+            long ints = Math.min(1L << shift, length - start);
+            windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, position + 4 * start, 4 * ints).asIntBuffer();
+        }
+        return new MappedInts(windows, shift, length);
+    }
+
+    /**
+     * @param i index of the int, must be [0, length())
+     * @return i-th int
+     */
+    int get(long i) {
+        return windows[(int) (i >>> shift)].get((int) (i & mask));
+    }
+
+    long length() {
+        return length;
+    }
+
+}
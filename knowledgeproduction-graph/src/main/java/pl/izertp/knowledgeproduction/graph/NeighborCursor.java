@@ -0,0 +1,16 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Reusable cursor over neighbors of a vertex, created by Graph.newNeighborCursor.
+ */
+public interface NeighborCursor extends IntCursor {
+
+    /**
+     * Moves the cursor to the first neighbor of the vertex.
+     * 
+     * @param v vertex
+     * @return this cursor
+     */
+    public NeighborCursor reset(int v);
+
+}
@@ -0,0 +1,268 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parallel, deterministic generator of random graphs (G(n, p) and stochastic block model).
+ * The space of vertex pairs is split into chunks of rows of the adjacency matrix. Chunk boundaries
+ * depend only on the graph parameters and every chunk gets its own SplittableRandom, split in
+ * chunk order from one master seed. Chunks are generated in parallel on a fork-join pool and merged
+ * into a CompressedSparseRowGraph with sorted neighbor lists, so for a given seed the result
+ * is identical no matter how many threads are used.
+ */
+public class ParallelGraphGenerator {
+
+    /**
+     * Approximate number of vertex pairs scanned by a single chunk.
+     */
+    static final long PAIRS_PER_CHUNK = 1L << 22;
+
+    /**
+     * Number of vertices, which neighbor lists are sorted by a single task.
+     */
+    private static final int VERTICES_PER_TASK = 1 << 14;
+
+    /**
+     * Generates Erdos-Renyi G(n, p) graph on the common fork-join pool.
+     * 
+     * @param n number of vertices
+     * @param probability probability of every edge, must be [0, 1]
+     * @param seed master seed
+     * @return generated graph
+     */
+    public static CompressedSparseRowGraph erdosRenyiGnp(int n, double probability, long seed) {
+        return erdosRenyiGnp(n, probability, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates Erdos-Renyi G(n, p) graph.
+     * 
+     * @param n number of vertices
+     * @param probability probability of every edge, must be [0, 1]
+     * @param seed master seed
+     * @param pool pool to run the generation on
+     * @return generated graph
+     */
+    public static CompressedSparseRowGraph erdosRenyiGnp(int n, double probability, long seed, ForkJoinPool pool) {
+        return stochasticBlockModel(new int[] { n }, new double[][] { { probability } }, seed, pool);
+    }
+
+    /**
+     * Generates a stochastic block model graph on the common fork-join pool.
+     * 
+     * @param blockSizes sizes of consecutive blocks
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     * @param seed master seed
+     * @return generated graph
+     */
+    public static CompressedSparseRowGraph stochasticBlockModel(int[] blockSizes, double[][] probabilities, long seed) {
+        return stochasticBlockModel(blockSizes, probabilities, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a stochastic block model graph.
+     * 
+     * @param blockSizes sizes of consecutive blocks
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     * @param seed master seed
+     * @param pool pool to run the generation on
+     * @return generated graph
+     */
+    public static CompressedSparseRowGraph stochasticBlockModel(int[] blockSizes, double[][] probabilities, long seed, ForkJoinPool pool) {
+        int n = 0;
+        for (int size : blockSizes) {
+            n += size;
+        }
+        final int[] offsets = StochasticBlockModelCreator.blockOffsets(n, blockSizes, probabilities);
+
+        List<int[]> chunks = new ArrayList<int[]>();
+        for (int a = 0; a < blockSizes.length; a++) {
+            for (int b = a; b < blockSizes.length; b++) {
+                if (probabilities[a][b] > 0) {
+                    addChunks(chunks, a, b, blockSizes);
+                }
+            }
+        }
+
+        SplittableRandom master = new SplittableRandom(seed);
+        final EdgeBuffer[] buffers = new EdgeBuffer[chunks.size()];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < chunks.size(); i++) {
+            final int chunkIndex = i;
+            final int[] chunk = chunks.get(i);
+            final SplittableRandom random = master.split();
+            final double probability = probabilities[chunk[0]][chunk[1]];
+            final int sizeB = blockSizes[chunk[1]];
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    EdgeBuffer buffer = new EdgeBuffer();
+                    if (chunk[0] == chunk[1]) {
+                        generateTriangle(buffer, offsets[chunk[0]], chunk[2], chunk[3], probability, random);
+                    } else {
+                        generateRectangle(buffer, offsets[chunk[0]], offsets[chunk[1]], sizeB, chunk[2], chunk[3], probability, random);
+                    }
+                    buffers[chunkIndex] = buffer;
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+        return merge(n, buffers, pool);
+    }
+
+    /**
+     * Splits rows of block a (paired with block b) into chunks of about PAIRS_PER_CHUNK pairs.
+     * A chunk is {a, b, first row, end row}.
+     */
+    private static void addChunks(List<int[]> chunks, int a, int b, int[] blockSizes) {
+        int rows = blockSizes[a];
+        int from = 0;
+        long pairs = 0;
+        for (int row = 0; row < rows; row++) {
+            pairs += a == b ? row : blockSizes[b];
+            if (pairs >= PAIRS_PER_CHUNK || row == rows - 1) {
+                chunks.add(new int[] { a, b, from, row + 1 });
+                from = row + 1;
+                pairs = 0;
+            }
+        }
+    }
+
+    /**
+     * Generates edges {v, w}, w < v, for rows v [from, to) inside one block.
+     */
+    private static void generateTriangle(EdgeBuffer buffer, int offset, int from, int to, double probability, SplittableRandom random) {
+        if (probability == 1) {
+            for (int v = from; v < to; v++) {
+                for (int w = 0; w < v; w++) {
+                    buffer.add(offset + v, offset + w);
+                }
+            }
+            return;
+        }
+        double logQ = Math.log(1 - probability);
+        int v = from;
+        long w = -1;
+        while (v < to) {
+            w += 1 + ErdosRenyiCreator.geometricSkip(logQ, random.nextDouble());
+            while (w >= v && v < to) {
+                w -= v;
+                v++;
+            }
+            if (v < to) {
+                buffer.add(offset + v, offset + (int) w);
+            }
+        }
+    }
+
+    /**
+     * Generates edges between rows [from, to) of block A and all the vertices of block B.
+     */
+    private static void generateRectangle(EdgeBuffer buffer, int offsetA, int offsetB, int sizeB, int from, int to, double probability,
+            SplittableRandom random) {
+        long pairs = (long) (to - from) * sizeB;
+        if (probability == 1) {
+            for (long index = 0; index < pairs; index++) {
+                buffer.add(offsetA + from + (int) (index / sizeB), offsetB + (int) (index % sizeB));
+            }
+            return;
+        }
+        double logQ = Math.log(1 - probability);
+        long index = -1;
+        while (true) {
+            index += 1 + ErdosRenyiCreator.geometricSkip(logQ, random.nextDouble());
+            if (index >= pairs) {
+                return;
+            }
+            buffer.add(offsetA + from + (int) (index / sizeB), offsetB + (int) (index % sizeB));
+        }
+    }
+
+    /**
+     * Merges edges of all the chunks into a CSR graph. Chunks are placed in parallel, so the order
+     * within a neighbor list depends on scheduling - sorting the lists makes the result deterministic.
+     * Edges must be unique and without loops.
+     */
+    static CompressedSparseRowGraph merge(final int n, final EdgeBuffer[] buffers, ForkJoinPool pool) {
+        final AtomicIntegerArray degrees = new AtomicIntegerArray(n);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final EdgeBuffer buffer : buffers) {
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    for (int i = 0; i < buffer.size; i++) {
+                        degrees.incrementAndGet(buffer.from[i]);
+                        degrees.incrementAndGet(buffer.to[i]);
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+
+        final int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + degrees.get(v);
+        }
+        final AtomicIntegerArray positions = new AtomicIntegerArray(Arrays.copyOf(offsets, n));
+        final int[] targets = new int[offsets[n]];
+        tasks.clear();
+        for (final EdgeBuffer buffer : buffers) {
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    for (int i = 0; i < buffer.size; i++) {
+                        targets[positions.getAndIncrement(buffer.from[i])] = buffer.to[i];
+                        targets[positions.getAndIncrement(buffer.to[i])] = buffer.from[i];
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+
+        tasks.clear();
+        for (int first = 0; first < n; first += VERTICES_PER_TASK) {
+            final int from = first;
+            final int to = Math.min(n, first + VERTICES_PER_TASK);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    for (int v = from; v < to; v++) {
+                        Arrays.sort(targets, offsets[v], offsets[v + 1]);
+                    }
+                    return null;
+                }
+            });
+        }
+        ParallelRanges.invokeAll(pool, tasks);
+        return new CompressedSparseRowGraph(n, offsets, targets);
+    }
+
+    /**
+     * Growable list of edges generated by one chunk.
+     */
+    static class EdgeBuffer {
+
+        int[] from = new int[64];
+
+        int[] to = new int[64];
+
+        int size;
+
+        void add(int a, int b) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = a;
+            to[size] = b;
+            size++;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs tasks on a fork-join pool and waits for all of them - the parallel parts of graph
+ * generation and analysis and of the simulation engines share it.
+ */
+public class ParallelRanges {
+
+    /**
+     * Action on a range of indices [from, to).
+     */
+    public interface RangeAction {
+
+        void run(int chunk, int from, int to);
+
+    }
+
+    /**
+     * @param n number of indices
+     * @param chunkSize number of indices in a chunk
+     * @return number of chunks covering [0, n)
+     */
+    public static int chunkCount(int n, int chunkSize) {
+        return (n + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Splits [0, n) into chunks of chunkSize indices, runs the action on every chunk in parallel
+     * and waits for all of them. Exceptions thrown by the action are rethrown.
+     */
+    public static void run(ForkJoinPool pool, int n, final int chunkSize, final RangeAction action) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int chunk = 0; chunk < chunkCount(n, chunkSize); chunk++) {
+            final int chunkIndex = chunk;
+            final int from = chunk * chunkSize;
+            final int to = (int) Math.min(n, (long) from + chunkSize);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    action.run(chunkIndex, from, to);
+                    return null;
+                }
+            });
+        }
+        invokeAll(pool, tasks);
+    }
+
+    /**
+     * Runs all the tasks on the pool and waits for them. Exceptions thrown by tasks are rethrown
+     * (the pool wraps checked exceptions in RuntimeException).
+     * 
+     * @param pool pool running the tasks
+     * @param tasks tasks to run
+     * @return results of the tasks in the order of the tasks
+     * @throws IllegalStateException when the waiting thread is interrupted
+     */
+    public static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<T>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel tasks interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Parallel task failed", e.getCause());
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,55 @@
+package pl.izertp.knowledgeproduction.graph;
+
+/**
+ * Ring lattice - vertices are placed on a ring and every vertex is connected to k/2 nearest
+ * vertices on each side (the starting graph of the Watts-Strogatz model). Neighbors are computed
+ * from the vertex index, so the graph takes O(1) memory.
+ */
+public class RingGraph extends ImplicitGraph {
+
+    /**
+     * Number of neighbors on each side.
+     */
+    private final int halfDegree;
+
+    /**
+     * @param n number of vertices
+     * @param nearestNeighbors degree of every vertex, must be even and smaller than n
+     */
+    public RingGraph(int n, int nearestNeighbors) {
+        super(n);
+        if (nearestNeighbors < 0 || nearestNeighbors % 2 != 0 || (nearestNeighbors > 0 && nearestNeighbors >= n)) {
+            throw new IllegalArgumentException("Number of nearest neighbors must be even and smaller than the number of vertices");
+        }
+        halfDegree = nearestNeighbors / 2;
+    }
+
+    public boolean getEdge(int from, int to) {
+        int distance = Math.floorMod(to - from, vertexNumber);
+        return distance != 0 && (distance <= halfDegree || distance >= vertexNumber - halfDegree);
+    }
+
+    public int getDegree(int v) {
+        return 2 * halfDegree;
+    }
+
+    /**
+     * Neighbors are v + 1, ..., v + k/2 followed by v - 1, ..., v - k/2 (modulo n).
+     */
+    public int getNeighbor(int v, int i) {
+        if (i < 0 || i >= 2 * halfDegree) {
+            throw new IndexOutOfBoundsException("Neighbor index out of bounds: " + i);
+        }
+        if (i < halfDegree) {
+            int neighbor = v + i + 1;
+            return neighbor >= vertexNumber ? neighbor - vertexNumber : neighbor;
+        }
+        int neighbor = v - (i - halfDegree) - 1;
+        return neighbor < 0 ? neighbor + vertexNumber : neighbor;
+    }
+
+    public long getEdgeNumber() {
+        return (long) vertexNumber * halfDegree;
+    }
+
+}
@@ -0,0 +1,115 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.Random;
+
+/**
+ * Helper class which fills an empty graph with edges using the stochastic block model.
+ * Vertices are divided into consecutive blocks and an edge between vertices from blocks a and b
+ * is present independently with probability probabilities[a][b].
+ * Every pair of blocks is filled with geometric skipping (like G(n, p) in ErdosRenyiCreator),
+ * so it runs in O(n + m + number of blocks^2) time.
+ */
+public class StochasticBlockModelCreator {
+
+    /**
+     * Fills the graph with edges using the stochastic block model.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param blockSizes sizes of consecutive blocks, must sum up to the graph size
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     */
+    public static void InitStochasticBlockModelGraph(Graph graph, int[] blockSizes, double[][] probabilities) {
+        InitStochasticBlockModelGraph(graph, blockSizes, probabilities, new Random());
+    }
+
+    /**
+     * Fills the graph with edges using the stochastic block model.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param blockSizes sizes of consecutive blocks, must sum up to the graph size
+     * @param probabilities symmetric matrix of edge probabilities between blocks
+     * @param random random number generator
+     */
+    public static void InitStochasticBlockModelGraph(Graph graph, int[] blockSizes, double[][] probabilities, Random random) {
+        int[] offsets = blockOffsets(graph.getSize(), blockSizes, probabilities);
+        for (int a = 0; a < blockSizes.length; a++) {
+            for (int b = a; b < blockSizes.length; b++) {
+                double probability = probabilities[a][b];
+                if (probability == 0) {
+                    continue;
+                }
+                if (a == b) {
+                    addBlockEdges(graph, offsets[a], blockSizes[a], probability, random);
+                } else {
+                    addBlockPairEdges(graph, offsets[a], blockSizes[a], offsets[b], blockSizes[b], probability, random);
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates the parameters and returns the first vertex of every block.
+     */
+    static int[] blockOffsets(int n, int[] blockSizes, double[][] probabilities) {
+        if (probabilities.length != blockSizes.length) {
+            throw new IllegalArgumentException("Probability matrix must have a row for every block");
+        }
+        int[] offsets = new int[blockSizes.length];
+        long total = 0;
+        for (int a = 0; a < blockSizes.length; a++) {
+            if (probabilities[a].length != blockSizes.length) {
+                throw new IllegalArgumentException("Probability matrix must be square");
+            }
+            for (int b = 0; b < blockSizes.length; b++) {
+                if (probabilities[a][b] < 0 || probabilities[a][b] > 1 || probabilities[a][b] != probabilities[b][a]) {
+                    throw new IllegalArgumentException("Probability matrix must be symmetric, with values [0, 1]");
+                }
+            }
+            offsets[a] = (int) total;
+            total += blockSizes[a];
+        }
+        if (total != n) {
+            throw new IllegalArgumentException("Block sizes must sum up to the number of vertices");
+        }
+        return offsets;
+    }
+
+    /**
+     * Adds random edges inside a single block.
+     */
+    static void addBlockEdges(Graph graph, int offset, int size, double probability, Random random) {
+        if (probability == 1) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    graph.addEdge(offset + i, offset + j);
+                }
+            }
+        } else {
+            ErdosRenyiCreator.addRandomEdges(graph, offset, size, probability, random);
+        }
+    }
+
+    /**
+     * Adds random edges between two different blocks, skipping geometrically over
+     * the sizeA x sizeB rectangle of the adjacency matrix.
+     */
+    static void addBlockPairEdges(Graph graph, int offsetA, int sizeA, int offsetB, int sizeB, double probability, Random random) {
+        long pairs = (long) sizeA * sizeB;
+        if (probability == 1) {
+            for (long index = 0; index < pairs; index++) {
+                graph.addEdge(offsetA + (int) (index / sizeB), offsetB + (int) (index % sizeB));
+            }
+            return;
+        }
+        double logQ = Math.log(1 - probability);
+        long index = -1;
+        while (true) {
+            index += 1 + ErdosRenyiCreator.geometricSkip(logQ, random);
+            if (index >= pairs) {
+                return;
+            }
+            graph.addEdge(offsetA + (int) (index / sizeB), offsetB + (int) (index % sizeB));
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import java.util.Random;
+
+/**
+ * Helper class which fills an empty graph with edges using Watts-Strogatz small-world construction.
+ * Vertices are placed on a ring and every vertex is connected to its nearestNeighbors closest
+ * vertices (nearestNeighbors / 2 on each side). Then every edge (i, i + j) is rewired with given
+ * probability: its second end is replaced with a random vertex, avoiding loops and duplicate edges.
+ * Edges are kept in a hashed set during rewiring, so it runs in O(n * nearestNeighbors) time.
+ */
+public class WattsStrogatzCreator {
+
+    /**
+     * Fills the graph with edges using Watts-Strogatz algorithm.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param nearestNeighbors initial degree of every vertex, must be even
+     * @param rewiringProbability probability of rewiring an edge, must be [0, 1]
+     */
+    public static void InitWattsStrogatzGraph(Graph graph, int nearestNeighbors, double rewiringProbability) {
+        InitWattsStrogatzGraph(graph, nearestNeighbors, rewiringProbability, new Random());
+    }
+
+    /**
+     * Fills the graph with edges using Watts-Strogatz algorithm.
+     * 
+     * @param graph empty graph to fill with edges
+     * @param nearestNeighbors initial degree of every vertex, must be even
+     * @param rewiringProbability probability of rewiring an edge, must be [0, 1]
+     * @param random random number generator
+     */
+    public static void InitWattsStrogatzGraph(Graph graph, int nearestNeighbors, double rewiringProbability, Random random) {
+        int n = graph.getSize();
+        if (nearestNeighbors % 2 != 0 || nearestNeighbors < 0 || nearestNeighbors >= n) {
+            throw new IllegalArgumentException("Number of nearest neighbors must be even and lower than the number of vertices");
+        }
+        if (rewiringProbability < 0 || rewiringProbability > 1) {
+            throw new IllegalArgumentException("Rewiring probability must be [0, 1]");
+        }
+        int halfDegree = nearestNeighbors / 2;
+        int edgeNumber = n * halfDegree;
+        int[] edgeFrom = new int[edgeNumber];
+        int[] edgeTo = new int[edgeNumber];
+        LongHashSet edges = new LongHashSet(edgeNumber);
+
+        int e = 0;
+        for (int j = 1; j <= halfDegree; j++) {
+            for (int i = 0; i < n; i++) {
+                edgeFrom[e] = i;
+                edgeTo[e] = (i + j) % n;
+                edges.add(LongHashSet.pairKey(i, edgeTo[e]));
+                e++;
+            }
+        }
+
+        // a vertex can't be rewired, if it is already connected to all the others
+        int maxTries = 4 * n;
+        for (e = 0; e < edgeNumber; e++) {
+            if (random.nextDouble() >= rewiringProbability) {
+                continue;
+            }
+            int from = edgeFrom[e];
+            for (int attempt = 0; attempt < maxTries; attempt++) {
+                int to = ErdosRenyiCreator.randomOtherVertex(n, from, random);
+                if (!edges.add(LongHashSet.pairKey(from, to))) {
+                    edges.remove(LongHashSet.pairKey(from, edgeTo[e]));
+                    edgeTo[e] = to;
+                    break;
+                }
+            }
+        }
+
+        for (e = 0; e < edgeNumber; e++) {
+            graph.addEdge(edgeFrom[e], edgeTo[e]);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package pl.izertp.knowledgeproduction.graph.analysis;
+
+/**
+ * Clustering coefficients of a graph, computed by GraphAnalysis.clustering.
+ */
+public class ClusteringCoefficients {
+
+    /**
+     * Local clustering coefficient of every vertex.
+     */
+    private final double[] local;
+
+    private final long triangles;
+
+    private final long triples;
+
+    ClusteringCoefficients(double[] local, long triangles, long triples) {
+        this.local = local;
+        this.triangles = triangles;
+        this.triples = triples;
+    }
+
+    /**
+     * Returns the fraction of pairs of neighbors of the vertex, which are connected.
+     * 
+     * @param v vertex
+     * @return local clustering coefficient, 0 for vertices with less than 2 neighbors
+     */
+    public double getLocal(int v) {
+        return local[v];
+    }
+
+    /**
+     * @return mean local clustering coefficient of all the vertices (Watts-Strogatz definition)
+     */
+    public double getAverage() {
+        if (local.length == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (double value : local) {
+            sum += value;
+        }
+        return sum / local.length;
+    }
+
+    /**
+     * @return global clustering coefficient (transitivity) - 3 * triangles / connected triples
+     */
+    public double getGlobal() {
+        return triples == 0 ? 0 : 3.0 * triangles / triples;
+    }
+
+    /**
+     * @return number of triangles in the graph
+     */
+    public long getTriangles() {
+        return triangles;
+    }
+
+}
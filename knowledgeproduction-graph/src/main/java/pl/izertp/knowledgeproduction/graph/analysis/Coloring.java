@@ -0,0 +1,71 @@
+package pl.izertp.knowledgeproduction.graph.analysis;
+
+/**
+ * Coloring of vertices of a graph, computed by GraphAnalysis.distanceTwoColoring.
+ * Vertices of every color class are kept in ascending order, classes are stored one after
+ * another like rows of a CSR graph.
+ */
+public class Coloring {
+
+    /**
+     * Color of every vertex.
+     */
+    private final int[] colors;
+
+    /**
+     * Vertices of color c are at positions [starts[c], starts[c + 1]) of vertices.
+     */
+    private final int[] starts;
+
+    private final int[] vertices;
+
+    Coloring(int[] colors, int colorCount) {
+        this.colors = colors;
+        starts = new int[colorCount + 1];
+        for (int color : colors) {
+            starts[color + 1]++;
+        }
+        for (int c = 0; c < colorCount; c++) {
+            starts[c + 1] += starts[c];
+        }
+        vertices = new int[colors.length];
+        int[] positions = new int[colorCount];
+        System.arraycopy(starts, 0, positions, 0, colorCount);
+        for (int v = 0; v < colors.length; v++) {
+            vertices[positions[colors[v]]++] = v;
+        }
+    }
+
+    /**
+     * @return number of colors
+     */
+    public int getColorCount() {
+        return starts.length - 1;
+    }
+
+    /**
+     * @param v vertex
+     * @return color of the vertex
+     */
+    public int getColor(int v) {
+        return colors[v];
+    }
+
+    /**
+     * @param color color
+     * @return number of vertices of the color
+     */
+    public int getClassSize(int color) {
+        return starts[color + 1] - starts[color];
+    }
+
+    /**
+     * @param color color
+     * @param i index of the vertex in the class, must be [0, getClassSize(color))
+     * @return i-th vertex of the color
+     */
+    public int getVertex(int color, int i) {
+        return vertices[starts[color] + i];
+    }
+
+}
@@ -0,0 +1,58 @@
+package pl.izertp.knowledgeproduction.graph.analysis;
+
+/**
+ * Connected components of a graph, computed by GraphAnalysis.connectedComponents.
+ * Components are numbered in the order of their smallest vertices.
+ */
+public class ConnectedComponents {
+
+    /**
+     * Component of every vertex.
+     */
+    private final int[] components;
+
+    /**
+     * Number of vertices of every component.
+     */
+    private final int[] sizes;
+
+    ConnectedComponents(int[] components, int[] sizes) {
+        this.components = components;
+        this.sizes = sizes;
+    }
+
+    /**
+     * @return number of components
+     */
+    public int getCount() {
+        return sizes.length;
+    }
+
+    /**
+     * @param v vertex
+     * @return component of the vertex
+     */
+    public int getComponent(int v) {
+        return components[v];
+    }
+
+    /**
+     * @param component component
+     * @return number of vertices of the component
+     */
+    public int getSize(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * @return number of vertices of the largest component, 0 for an empty graph
+     */
+    public int getLargestSize() {
+        int largest = 0;
+        for (int size : sizes) {
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+
+}
@@ -0,0 +1,364 @@
+package pl.izertp.knowledgeproduction.graph.analysis;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.NeighborCursor;
+import pl.izertp.knowledgeproduction.graph.ParallelRanges;
+
+/**
+ * Parallel analysis of graphs. Vertices are split into blocks processed by tasks of
+ * a fork-join pool, every task reads the graph through its own NeighborCursor, so any Graph
+ * implementation may be analysed as long as it is not modified at the same time.
+ * Methods without the pool argument run on the common pool.
+ */
+public class GraphAnalysis {
+
+    /**
+     * Number of vertices processed by a single task.
+     */
+    static final int VERTICES_PER_TASK = 1 << 12;
+
+    private GraphAnalysis() {
+    }
+
+    public static ConnectedComponents connectedComponents(Graph graph) {
+        return connectedComponents(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds connected components with a lock-free union-find: edges are united in parallel
+     * and roots are always linked to smaller roots, so every component ends up labeled with
+     * its smallest vertex.
+     * 
+     * @param graph graph
+     * @param pool pool running the tasks
+     * @return connected components of the graph
+     */
+    public static ConnectedComponents connectedComponents(final Graph graph, ForkJoinPool pool) {
+        final int n = graph.getSize();
+        final AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parents.set(v, v);
+        }
+        ParallelRanges.run(pool, n, VERTICES_PER_TASK, new ParallelRanges.RangeAction() {
+            public void run(int chunk, int from, int to) {
+                NeighborCursor cursor = graph.newNeighborCursor();
+                for (int v = from; v < to; v++) {
+                    cursor.reset(v);
+                    while (cursor.hasNext()) {
+                        int neighbor = cursor.next();
+                        if (neighbor > v) {
+                            union(parents, v, neighbor);
+                        }
+                    }
+                }
+            }
+        });
+        final int[] labels = new int[n];
+        ParallelRanges.run(pool, n, VERTICES_PER_TASK, new ParallelRanges.RangeAction() {
+            public void run(int chunk, int from, int to) {
+                for (int v = from; v < to; v++) {
+                    labels[v] = find(parents, v);
+                }
+            }
+        });
+        // roots are the smallest vertices, so they are numbered before their components
+        int[] components = new int[n];
+        int[] sizes = new int[16];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (labels[v] == v) {
+                if (count == sizes.length) {
+                    sizes = Arrays.copyOf(sizes, 2 * count);
+                }
+                components[v] = count++;
+            } else {
+                components[v] = components[labels[v]];
+            }
+            sizes[components[v]]++;
+        }
+        return new ConnectedComponents(components, Arrays.copyOf(sizes, count));
+    }
+
+    public static long[] degreeHistogram(Graph graph) {
+        return degreeHistogram(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts vertices of every degree. Every task builds its own histogram, which are summed
+     * at the end.
+     * 
+     * @param graph graph
+     * @param pool pool running the tasks
+     * @return array, where i-th element is the number of vertices of degree i; its length is
+     *         the maximal degree + 1
+     */
+    public static long[] degreeHistogram(final Graph graph, ForkJoinPool pool) {
+        int n = graph.getSize();
+        final long[][] partial = new long[ParallelRanges.chunkCount(n, VERTICES_PER_TASK)][];
+        ParallelRanges.run(pool, n, VERTICES_PER_TASK, new ParallelRanges.RangeAction() {
+            public void run(int chunk, int from, int to) {
+                long[] histogram = new long[16];
+                for (int v = from; v < to; v++) {
+                    int degree = graph.getDegree(v);
+                    if (degree >= histogram.length) {
+                        histogram = Arrays.copyOf(histogram, Math.max(degree + 1, 2 * histogram.length));
+                    }
+                    histogram[degree]++;
+                }
+                partial[chunk] = histogram;
+            }
+        });
+        long[] histogram = new long[0];
+        for (long[] part : partial) {
+            if (part.length > histogram.length) {
+                histogram = Arrays.copyOf(histogram, part.length);
+            }
+            for (int degree = 0; degree < part.length; degree++) {
+                histogram[degree] += part[degree];
+            }
+        }
+        int length = histogram.length;
+        while (length > 0 && histogram[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+
+    public static ClusteringCoefficients clustering(Graph graph) {
+        return clustering(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes clustering coefficients by counting triangles at every vertex: the sorted
+     * neighbors of the vertex are intersected with the sorted neighbors of each of them.
+     * Takes O(sum of d(u) log d(u) over edges), buffers are allocated once per task.
+     * 
+     * @param graph graph
+     * @param pool pool running the tasks
+     * @return local and global clustering coefficients
+     */
+    public static ClusteringCoefficients clustering(final Graph graph, ForkJoinPool pool) {
+        int n = graph.getSize();
+        final double[] local = new double[n];
+        int chunks = ParallelRanges.chunkCount(n, VERTICES_PER_TASK);
+        final long[] triangles = new long[chunks];
+        final long[] triples = new long[chunks];
+        ParallelRanges.run(pool, n, VERTICES_PER_TASK, new ParallelRanges.RangeAction() {
+            public void run(int chunk, int from, int to) {
+                int[] neighbors = new int[16];
+                int[] second = new int[16];
+                for (int v = from; v < to; v++) {
+                    int degree = graph.getDegree(v);
+                    if (degree < 2) {
+                        continue;
+                    }
+                    if (neighbors.length < degree) {
+                        neighbors = new int[Math.max(degree, 2 * neighbors.length)];
+                    }
+                    graph.copyNeighbors(v, neighbors);
+                    Arrays.sort(neighbors, 0, degree);
+                    long links = 0;
+                    for (int i = 0; i < degree; i++) {
+                        int u = neighbors[i];
+                        int uDegree = graph.getDegree(u);
+                        if (second.length < uDegree) {
+                            second = new int[Math.max(uDegree, 2 * second.length)];
+                        }
+                        graph.copyNeighbors(u, second);
+                        Arrays.sort(second, 0, uDegree);
+                        links += intersectionSize(neighbors, degree, second, uDegree);
+                    }
+                    // every link between two neighbors was counted from both ends
+                    long pairs = (long) degree * (degree - 1) / 2;
+                    local[v] = (double) (links / 2) / pairs;
+                    triangles[chunk] += links / 2;
+                    triples[chunk] += pairs;
+                }
+            }
+        });
+        long triangleSum = 0;
+        long tripleSum = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            triangleSum += triangles[chunk];
+            tripleSum += triples[chunk];
+        }
+        // every triangle was counted at each of its 3 vertices
+        return new ClusteringCoefficients(local, triangleSum / 3, tripleSum);
+    }
+
+    public static int[] distances(Graph graph, int... sources) {
+        return distances(graph, ForkJoinPool.commonPool(), sources);
+    }
+
+    /**
+     * Multi-source breadth-first search, level by level. Vertices of the current level are
+     * split between tasks, a vertex joins the next level when a task wins the compare-and-set
+     * of its distance.
+     * 
+     * @param graph graph
+     * @param pool pool running the tasks
+     * @param sources vertices with distance 0
+     * @return distance of every vertex to the nearest source, -1 for unreachable vertices
+     */
+    public static int[] distances(final Graph graph, ForkJoinPool pool, int... sources) {
+        int n = graph.getSize();
+        final AtomicIntegerArray distances = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            distances.set(v, -1);
+        }
+        int[] level = new int[sources.length];
+        int levelSize = 0;
+        for (int source : sources) {
+            if (source < 0 || source >= n) {
+                throw new IndexOutOfBoundsException("Vertex out of graph bounds: " + source);
+            }
+            if (distances.compareAndSet(source, -1, 0)) {
+                level[levelSize++] = source;
+            }
+        }
+        for (int distance = 1; levelSize > 0; distance++) {
+            final int[] current = level;
+            final int nextDistance = distance;
+            final int[][] found = new int[ParallelRanges.chunkCount(levelSize, VERTICES_PER_TASK)][];
+            final int[] foundSizes = new int[found.length];
+            ParallelRanges.run(pool, levelSize, VERTICES_PER_TASK, new ParallelRanges.RangeAction() {
+                public void run(int chunk, int from, int to) {
+                    NeighborCursor cursor = graph.newNeighborCursor();
+                    int[] next = new int[16];
+                    int size = 0;
+                    for (int i = from; i < to; i++) {
+                        cursor.reset(current[i]);
+                        while (cursor.hasNext()) {
+                            int neighbor = cursor.next();
+                            if (distances.get(neighbor) < 0 && distances.compareAndSet(neighbor, -1, nextDistance)) {
+                                if (size == next.length) {
+                                    next = Arrays.copyOf(next, 2 * size);
+                                }
+                                next[size++] = neighbor;
+                            }
+                        }
+                    }
+                    found[chunk] = next;
+                    foundSizes[chunk] = size;
+                }
+            });
+            levelSize = 0;
+            for (int size : foundSizes) {
+                levelSize += size;
+            }
+            level = new int[levelSize];
+            int position = 0;
+            for (int chunk = 0; chunk < found.length; chunk++) {
+                System.arraycopy(found[chunk], 0, level, position, foundSizes[chunk]);
+                position += foundSizes[chunk];
+            }
+        }
+        int[] result = new int[n];
+        for (int v = 0; v < n; v++) {
+            result[v] = distances.get(v);
+        }
+        return result;
+    }
+
+    /**
+     * Greedy distance-2 coloring: vertices get, in ascending order, the smallest color not
+     * used by any vertex at distance 1 or 2, so closed neighborhoods of vertices of the same
+     * color don't overlap. Uses at most d^2 + 1 colors for the maximal degree d and takes
+     * O(sum of d(v)^2). It runs sequentially, so the coloring depends only on the graph.
+     * 
+     * @param graph graph
+     * @return coloring of the vertices
+     */
+    public static Coloring distanceTwoColoring(Graph graph) {
+        int n = graph.getSize();
+        int[] colors = new int[n];
+        Arrays.fill(colors, -1);
+        // forbidden[c] == v, if color c is used near vertex v
+        int[] forbidden = new int[16];
+        Arrays.fill(forbidden, -1);
+        int colorCount = 0;
+        NeighborCursor cursor = graph.newNeighborCursor();
+        NeighborCursor secondCursor = graph.newNeighborCursor();
+        for (int v = 0; v < n; v++) {
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int neighbor = cursor.next();
+                if (colors[neighbor] >= 0) {
+                    forbidden[colors[neighbor]] = v;
+                }
+                secondCursor.reset(neighbor);
+                while (secondCursor.hasNext()) {
+                    int second = secondCursor.next();
+                    if (colors[second] >= 0) {
+                        forbidden[colors[second]] = v;
+                    }
+                }
+            }
+            int color = 0;
+            while (color < colorCount && forbidden[color] == v) {
+                color++;
+            }
+            if (color == colorCount) {
+                if (colorCount == forbidden.length) {
+                    forbidden = Arrays.copyOf(forbidden, 2 * colorCount);
+                    Arrays.fill(forbidden, colorCount, forbidden.length, -1);
+                }
+                colorCount++;
+            }
+            colors[v] = color;
+        }
+        return new Coloring(colors, colorCount);
+    }
+
+    /**
+     * @return root of the vertex, halving the path on the way
+     */
+    private static int find(AtomicIntegerArray parents, int v) {
+        int parent = parents.get(v);
+        while (parent != v) {
+            int grandparent = parents.get(parent);
+            parents.compareAndSet(v, parent, grandparent);
+            v = parent;
+            parent = grandparent;
+        }
+        return v;
+    }
+
+    private static void union(AtomicIntegerArray parents, int a, int b) {
+        while (true) {
+            int rootA = find(parents, a);
+            int rootB = find(parents, b);
+            if (rootA == rootB) {
+                return;
+            }
+            // the larger root is linked under the smaller one, only if it is still a root
+            int larger = Math.max(rootA, rootB);
+            if (parents.compareAndSet(larger, larger, Math.min(rootA, rootB))) {
+                return;
+            }
+        }
+    }
+
+    private static long intersectionSize(int[] a, int aLength, int[] b, int bLength) {
+        long count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,20 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import pl.izertp.knowledgeproduction.graph.IntCursor;
+
+/**
+ * Reusable cursor over vertices, to which there is an edge from a pair of vertices.
+ * Created by HyperGraph.newChildCursor.
+ */
+public interface ChildCursor extends IntCursor {
+
+    /**
+     * Moves the cursor to the first child of the pair.
+     * 
+     * @param v1 vertex 1
+     * @param v2 vertex 2
+     * @return this cursor
+     */
+    public ChildCursor reset(int v1, int v2);
+
+}
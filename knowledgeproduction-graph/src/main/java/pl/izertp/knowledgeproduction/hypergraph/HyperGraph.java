@@ -7,6 +7,9 @@ import java.util.List;
  * - adding and removing edges
  * - getter of the graph's size
  * - getter of vertices, to which there is an edge from a given pair
+ * - getter of pairs of vertices, from which there is an edge to a given vertex
+ * Children of a pair can also be read without boxing - by index, copied into an int array
+ * or with a reusable cursor. Default implementations use toVertices.
  * 
  * @author Piotr Izert
  */
@@ -46,4 +49,59 @@ public interface HyperGraph {
      */
     public List<Integer> toVertices(int v1, int v2);
 
+    /**
+     * Returns a list of pairs of vertices, from which there is an edge to vertex v.
+     * 
+     * @param v vertex
+     * @return list of two-element arrays of parent vertices
+     */
+    public List<Integer[]> getParents(int v);
+
+    /**
+     * @param v1 vertex 1
+     * @param v2 vertex 2
+     * @return number of vertices, to which there is an edge from vertices v1 and v2
+     */
+    public default int getChildCount(int v1, int v2) {
+        return toVertices(v1, v2).size();
+    }
+
+    /**
+     * Returns i-th vertex, to which there is an edge from vertices v1 and v2, in the order
+     * of toVertices.
+     * 
+     * @param v1 vertex 1
+     * @param v2 vertex 2
+     * @param i index of the child, must be [0, getChildCount(v1, v2))
+     * @return i-th child of the pair
+     */
+    public default int getChild(int v1, int v2, int i) {
+        return toVertices(v1, v2).get(i);
+    }
+
+    /**
+     * Copies vertices, to which there is an edge from vertices v1 and v2, into the array.
+     * 
+     * @param v1 vertex 1
+     * @param v2 vertex 2
+     * @param target array of at least getChildCount(v1, v2) length
+     * @return number of copied vertices
+     */
+    public default int copyChildren(int v1, int v2, int[] target) {
+        int i = 0;
+        for (int child : toVertices(v1, v2)) {
+            target[i++] = child;
+        }
+        return i;
+    }
+
+    /**
+     * Creates a cursor over children of pairs, which should be reused for many pairs.
+     * 
+     * @return new cursor, reset must be called before reading
+     */
+    public default ChildCursor newChildCursor() {
+        return new ListChildCursor(this);
+    }
+
 }
@@ -0,0 +1,142 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import pl.izertp.knowledgeproduction.graph.GraphFiles;
+
+/**
+ * Reads and writes hypergraphs in a versioned binary format (big-endian, as written by
+ * DataOutputStream). The format keeps the pair table of SparseHyperGraph, so children
+ * of a pair can be found in O(1) directly in a mapped file:
+ * 
+ * <pre>
+ * int      magic number ("KPHG")
+ * int      format version
+ * int      number of vertices n
+ * int      number of pairs p
+ * int      capacity of the pair table c (power of 2)
+ * int      number of edges e
+ * long[c]  pair table keys, packed (min, max) pairs, -1 for free positions
+ * int[c]   pair table values, index of the pair
+ * int[p+1] offsets of children of every pair
+ * int[e]   children of all the pairs
+ * int[n+1] offsets of parents of every vertex
+ * int[2e]  parent pairs of all the vertices
+ * </pre>
+ * 
+ * Files are read by mapping them into memory - see {@link MappedHyperGraph}. A file is mapped
+ * as a single buffer, so it is limited to 2GB (some tens of millions of edges).
+ */
+public class HyperGraphFiles {
+
+    static final int MAGIC = 0x4B504847;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 24;
+
+    /**
+     * Writes the hypergraph to a file.
+     * 
+     * @param graph hypergraph to write
+     * @param file destination file
+     * @throws IOException when writing fails
+     */
+    public static void write(HyperGraph graph, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            write(graph, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the hypergraph to a stream. Edges are enumerated with getParents.
+     * 
+     * @param graph hypergraph to write
+     * @param out destination stream
+     * @throws IOException when writing fails
+     */
+    public static void write(HyperGraph graph, DataOutputStream out) throws IOException {
+        int n = graph.getSize();
+        int[] parentOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            parentOffsets[v + 1] = parentOffsets[v] + graph.getParents(v).size();
+        }
+        int edgeNumber = parentOffsets[n];
+        int[] parents = new int[2 * edgeNumber];
+        int[] edgePair = new int[edgeNumber];
+        PairTable table = new PairTable(edgeNumber);
+        int[] childCounts = new int[edgeNumber + 1];
+        int edge = 0;
+        for (int v = 0; v < n; v++) {
+            for (Integer[] pair : graph.getParents(v)) {
+                parents[2 * edge] = pair[0];
+                parents[2 * edge + 1] = pair[1];
+                long key = PairTable.pairKey(pair[0], pair[1]);
+                int pairIndex = table.get(key);
+                if (pairIndex < 0) {
+                    pairIndex = table.size();
+                    table.putNew(key, pairIndex);
+                }
+                edgePair[edge] = pairIndex;
+                childCounts[pairIndex + 1]++;
+                edge++;
+            }
+        }
+        int pairNumber = table.size();
+        int[] childOffsets = new int[pairNumber + 1];
+        for (int p = 0; p < pairNumber; p++) {
+            childOffsets[p + 1] = childOffsets[p] + childCounts[p + 1];
+        }
+        int[] children = new int[edgeNumber];
+        int[] position = new int[pairNumber];
+        edge = 0;
+        for (int v = 0; v < n; v++) {
+            for (int i = parentOffsets[v]; i < parentOffsets[v + 1]; i++) {
+                int pairIndex = edgePair[edge++];
+                children[childOffsets[pairIndex] + position[pairIndex]++] = v;
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(pairNumber);
+        out.writeInt(table.capacity());
+        out.writeInt(edgeNumber);
+        for (int i = 0; i < table.capacity(); i++) {
+            out.writeLong(table.keyAt(i));
+        }
+        for (int i = 0; i < table.capacity(); i++) {
+            out.writeInt(table.keyAt(i) == PairTable.EMPTY ? -1 : table.valueAt(i));
+        }
+        writeInts(out, childOffsets);
+        writeInts(out, children);
+        writeInts(out, parentOffsets);
+        writeInts(out, parents);
+    }
+
+    /**
+     * Maps a hypergraph file into memory (read-only).
+     * 
+     * @param file hypergraph file
+     * @return hypergraph served directly from the mapped file
+     * @throws IOException when the file can't be mapped or has a wrong format
+     */
+    public static MappedHyperGraph map(File file) throws IOException {
+        return new MappedHyperGraph(GraphFiles.mapReadOnly(file));
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+}
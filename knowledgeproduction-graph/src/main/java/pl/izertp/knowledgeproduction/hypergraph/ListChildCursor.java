@@ -0,0 +1,34 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import java.util.List;
+
+/**
+ * ChildCursor iterating over the list returned by toVertices of the hypergraph.
+ */
+class ListChildCursor implements ChildCursor {
+
+    private final HyperGraph graph;
+
+    private List<Integer> children;
+
+    private int index;
+
+    ListChildCursor(HyperGraph graph) {
+        this.graph = graph;
+    }
+
+    public ChildCursor reset(int v1, int v2) {
+        children = graph.toVertices(v1, v2);
+        index = 0;
+        return this;
+    }
+
+    public boolean hasNext() {
+        return index < children.size();
+    }
+
+    public int next() {
+        return children.get(index++);
+    }
+
+}
@@ -0,0 +1,225 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+import pl.izertp.knowledgeproduction.graph.GraphFiles;
+
+/**
+ * Read-only HyperGraph served directly from a buffer in the format written by HyperGraphFiles
+ * (usually a memory-mapped file). Pairs are found by probing the stored pair table, so toVertices
+ * is O(1) and nothing is copied to the heap.
+ */
+public class MappedHyperGraph implements HyperGraph {
+
+    /**
+     * Number of graph vertices.
+     */
+    private final int vertexNumber;
+
+    private final int tableMask;
+
+    private final LongBuffer tableKeys;
+
+    private final IntBuffer tablePairs;
+
+    private final IntBuffer childOffsets;
+
+    private final IntBuffer children;
+
+    private final IntBuffer parentOffsets;
+
+    private final IntBuffer parents;
+
+    /**
+     * Creates a hypergraph over the buffer.
+     * 
+     * @param buffer buffer with a hypergraph written by HyperGraphFiles
+     * @throws IOException when the buffer has a wrong format or its size doesn't match the header
+     */
+    public MappedHyperGraph(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HyperGraphFiles.HEADER_SIZE || buffer.getInt(0) != HyperGraphFiles.MAGIC) {
+            throw new IOException("Not a hypergraph file");
+        }
+        if (buffer.getInt(4) != HyperGraphFiles.VERSION) {
+            throw new IOException(String.format("Unsupported hypergraph file version %d", buffer.getInt(4)));
+        }
+        vertexNumber = buffer.getInt(8);
+        int pairNumber = buffer.getInt(12);
+        int tableCapacity = buffer.getInt(16);
+        int edgeNumber = buffer.getInt(20);
+        GraphFiles.checkCount(vertexNumber, "number of vertices");
+        GraphFiles.checkCount(pairNumber, "number of pairs");
+        GraphFiles.checkCount(edgeNumber, "number of edges");
+        if (tableCapacity <= 0 || Integer.bitCount(tableCapacity) != 1) {
+            throw new IOException(String.format("Capacity of the pair table %d is not a power of 2", tableCapacity));
+        }
+        GraphFiles.checkSize(buffer.capacity(), HyperGraphFiles.HEADER_SIZE + 12L * tableCapacity + 4L * (pairNumber + 1) + 4L * edgeNumber
+                + 4L * (vertexNumber + 1) + 8L * edgeNumber);
+        tableMask = tableCapacity - 1;
+
+        int position = HyperGraphFiles.HEADER_SIZE;
+        tableKeys = GraphFiles.slice(buffer, position, 8 * tableCapacity).asLongBuffer();
+        position += 8 * tableCapacity;
+        tablePairs = GraphFiles.slice(buffer, position, 4 * tableCapacity).asIntBuffer();
+        position += 4 * tableCapacity;
+        childOffsets = GraphFiles.slice(buffer, position, 4 * (pairNumber + 1)).asIntBuffer();
+        position += 4 * (pairNumber + 1);
+        children = GraphFiles.slice(buffer, position, 4 * edgeNumber).asIntBuffer();
+        position += 4 * edgeNumber;
+        parentOffsets = GraphFiles.slice(buffer, position, 4 * (vertexNumber + 1)).asIntBuffer();
+        position += 4 * (vertexNumber + 1);
+        parents = GraphFiles.slice(buffer, position, 8 * edgeNumber).asIntBuffer();
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    /**
+     * Not supported - the hypergraph is read-only.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    public boolean addEdge(int from1, int from2, int to) {
+        throw new UnsupportedOperationException("MappedHyperGraph is read-only");
+    }
+
+    public boolean getEdge(int from1, int from2, int to) {
+        int pair = findPair(from1, from2);
+        if (pair < 0) {
+            return false;
+        }
+        for (int i = childOffsets.get(pair); i < childOffsets.get(pair + 1); i++) {
+            if (children.get(i) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Integer> toVertices(int v1, int v2) {
+        int pair = findPair(v1, v2);
+        if (pair < 0) {
+            return Collections.emptyList();
+        }
+        return new ChildList(childOffsets.get(pair), childOffsets.get(pair + 1));
+    }
+
+    public int getChildCount(int v1, int v2) {
+        int pair = findPair(v1, v2);
+        return pair < 0 ? 0 : childOffsets.get(pair + 1) - childOffsets.get(pair);
+    }
+
+    public int getChild(int v1, int v2, int i) {
+        int pair = findPair(v1, v2);
+        if (pair < 0 || i < 0 || i >= childOffsets.get(pair + 1) - childOffsets.get(pair)) {
+            throw new IndexOutOfBoundsException("Child index out of bounds: " + i);
+        }
+        return children.get(childOffsets.get(pair) + i);
+    }
+
+    public int copyChildren(int v1, int v2, int[] target) {
+        int pair = findPair(v1, v2);
+        if (pair < 0) {
+            return 0;
+        }
+        int from = childOffsets.get(pair);
+        int count = childOffsets.get(pair + 1) - from;
+        for (int i = 0; i < count; i++) {
+            target[i] = children.get(from + i);
+        }
+        return count;
+    }
+
+    public ChildCursor newChildCursor() {
+        return new Cursor();
+    }
+
+    public List<Integer[]> getParents(int v) {
+        List<Integer[]> result = new ArrayList<Integer[]>();
+        for (int i = parentOffsets.get(v); i < parentOffsets.get(v + 1); i++) {
+            result.add(new Integer[] { parents.get(2 * i), parents.get(2 * i + 1) });
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the pair, -1 if the pair has no edges
+     */
+    private int findPair(int v1, int v2) {
+        long key = PairTable.pairKey(v1, v2);
+        int i = PairTable.index(key, tableMask);
+        long stored;
+        while ((stored = tableKeys.get(i)) != PairTable.EMPTY) {
+            if (stored == key) {
+                return tablePairs.get(i);
+            }
+            i = (i + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Cursor reading the children buffer directly. The pair is looked up once per reset.
+     */
+    private class Cursor implements ChildCursor {
+
+        private int position;
+
+        private int end;
+
+        public ChildCursor reset(int v1, int v2) {
+            int pair = findPair(v1, v2);
+            position = pair < 0 ? 0 : childOffsets.get(pair);
+            end = pair < 0 ? 0 : childOffsets.get(pair + 1);
+            return this;
+        }
+
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        public int next() {
+            return children.get(position++);
+        }
+
+    }
+
+    /**
+     * Read-only view of children of a pair.
+     */
+    private class ChildList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int from;
+
+        private final int to;
+
+        private ChildList(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Child index out of bounds: " + index);
+            }
+            return children.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+    }
+
+}
@@ -74,10 +74,26 @@ public class MixedHyperGraph implements HyperGraph {
         return edges[v1][v2];
     }
 
-    public List<Integer[]> getParrents(int v) {
+    public int getChildCount(int v1, int v2) {
+        return edges[v1][v2].size();
+    }
+
+    public int getChild(int v1, int v2, int i) {
+        return edges[v1][v2].get(i);
+    }
+
+    public List<Integer[]> getParents(int v) {
         return parents[v];
     }
 
+    /**
+     * @deprecated use {@link #getParents(int)}
+     */
+    @Deprecated
+    public List<Integer[]> getParrents(int v) {
+        return getParents(v);
+    }
+
     private void checkArgs(int from1, int from2, int to) {
         if (from1 == from2) {
             throw new IllegalArgumentException("Source vertices have to be different");
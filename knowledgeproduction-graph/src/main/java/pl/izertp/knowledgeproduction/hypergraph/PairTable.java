@@ -0,0 +1,129 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing (linear probing) map from packed pairs of vertices to non-negative ints.
+ * The same hashing is used by MappedHyperGraph to probe a table stored in a file.
+ */
+class PairTable {
+
+    static final long EMPTY = -1L;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    private int size;
+
+    /**
+     * Creates a table able to hold given number of pairs without rehashing.
+     * 
+     * @param expectedSize expected number of pairs
+     */
+    PairTable(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Packs an unordered pair of vertices into a single key: (min(v1, v2), max(v1, v2)).
+     */
+    static long pairKey(int v1, int v2) {
+        if (v1 > v2) {
+            return ((long) v2 << 32) | v1;
+        }
+        return ((long) v1 << 32) | v2;
+    }
+
+    /**
+     * @return first table position probed for the key
+     */
+    static int index(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * @return power of 2 table capacity, which keeps the load factor at most 0.5
+     */
+    static int capacityFor(int size) {
+        int capacity = 4;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * @return value of the key, -1 if the key is absent
+     */
+    int get(long key) {
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a key, which is not present in the table.
+     */
+    void putNew(long key, int value) {
+        insert(key, value);
+        size++;
+        if (size * 2 > keys.length) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return key at given table position (EMPTY if the position is free)
+     */
+    long keyAt(int position) {
+        return keys[position];
+    }
+
+    /**
+     * @return value at given table position
+     */
+    int valueAt(int position) {
+        return values[position];
+    }
+
+    private void insert(long key, int value) {
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+}
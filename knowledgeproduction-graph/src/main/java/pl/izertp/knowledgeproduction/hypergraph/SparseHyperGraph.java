@@ -0,0 +1,325 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Implementation of HyperGraph, which keeps only the pairs of vertices having at least one edge.
+ * Pairs are keyed by packed (min(v1, v2), max(v1, v2)) in a primitive open-addressing table
+ * (linear probing). Children of all the pairs are kept in one shared int array (slab) - each pair
+ * owns a growing slice of it. Memory is proportional to the number of edges, not to size^2,
+ * and toVertices is still O(1).
+ */
+public class SparseHyperGraph implements HyperGraph {
+
+    private static final int INITIAL_CHILD_CAPACITY = 2;
+
+    /**
+     * Number of graph vertices.
+     */
+    private int vertexNumber;
+
+    /**
+     * Index of every pair of vertices with at least one edge, keyed by packed pair.
+     */
+    private PairTable pairs;
+
+    /**
+     * Number of distinct pairs of vertices with at least one edge.
+     */
+    private int pairNumber;
+
+    /**
+     * Offset, length and capacity of children slice of every pair.
+     */
+    private int[] pairOffset;
+
+    private int[] pairLength;
+
+    private int[] pairCapacity;
+
+    /**
+     * Shared storage of children of all the pairs.
+     */
+    private int[] children;
+
+    private int childrenEnd;
+
+    /**
+     * Edges in order of insertion: parents of the edge and link to the previous edge
+     * leading to the same child (-1 ends the list).
+     */
+    private int[] edgeFrom1;
+
+    private int[] edgeFrom2;
+
+    private int[] edgeTo;
+
+    private int[] edgePrevious;
+
+    private int edgeNumber;
+
+    /**
+     * Last added edge leading to every vertex (-1 if none).
+     */
+    private int[] lastParentEdge;
+
+    /**
+     * Creates a new, empty SparseHyperGraph.
+     * 
+     * @param n number of vertices
+     */
+    public SparseHyperGraph(int n) {
+        this(n, 16);
+    }
+
+    /**
+     * Creates a new, empty SparseHyperGraph.
+     * 
+     * @param n number of vertices
+     * @param expectedEdges expected number of edges, used to presize the arrays
+     */
+    public SparseHyperGraph(int n, int expectedEdges) {
+        vertexNumber = n;
+        int capacity = Math.max(expectedEdges, 16);
+        pairs = new PairTable(capacity);
+        pairOffset = new int[capacity];
+        pairLength = new int[capacity];
+        pairCapacity = new int[capacity];
+        children = new int[capacity * INITIAL_CHILD_CAPACITY];
+        edgeFrom1 = new int[capacity];
+        edgeFrom2 = new int[capacity];
+        edgeTo = new int[capacity];
+        edgePrevious = new int[capacity];
+        lastParentEdge = new int[n];
+        Arrays.fill(lastParentEdge, -1);
+    }
+
+    public int getSize() {
+        return vertexNumber;
+    }
+
+    public boolean addEdge(int from1, int from2, int to) {
+        checkArgs(from1, from2, to);
+        int pair = findPair(from1, from2);
+        if (pair < 0) {
+            pair = addPair(PairTable.pairKey(from1, from2));
+        } else if (indexOfChild(pair, to) >= 0) {
+            return true;
+        }
+        if (pairLength[pair] == pairCapacity[pair]) {
+            relocate(pair, pairCapacity[pair] * 2);
+        }
+        children[pairOffset[pair] + pairLength[pair]] = to;
+        pairLength[pair]++;
+        addParents(from1, from2, to);
+        return false;
+    }
+
+    public boolean getEdge(int from1, int from2, int to) {
+        int pair = findPair(from1, from2);
+        return pair >= 0 && indexOfChild(pair, to) >= 0;
+    }
+
+    public List<Integer> toVertices(int v1, int v2) {
+        int pair = findPair(v1, v2);
+        if (pair < 0) {
+            return Collections.emptyList();
+        }
+        return new ChildList(pair);
+    }
+
+    public int getChildCount(int v1, int v2) {
+        int pair = findPair(v1, v2);
+        return pair < 0 ? 0 : pairLength[pair];
+    }
+
+    public int getChild(int v1, int v2, int i) {
+        int pair = findPair(v1, v2);
+        if (pair < 0 || i < 0 || i >= pairLength[pair]) {
+            throw new IndexOutOfBoundsException("Child index out of bounds: " + i);
+        }
+        return children[pairOffset[pair] + i];
+    }
+
+    public int copyChildren(int v1, int v2, int[] target) {
+        int pair = findPair(v1, v2);
+        if (pair < 0) {
+            return 0;
+        }
+        System.arraycopy(children, pairOffset[pair], target, 0, pairLength[pair]);
+        return pairLength[pair];
+    }
+
+    public ChildCursor newChildCursor() {
+        return new Cursor();
+    }
+
+    public List<Integer[]> getParents(int v) {
+        List<Integer[]> parents = new ArrayList<Integer[]>();
+        for (int edge = lastParentEdge[v]; edge >= 0; edge = edgePrevious[edge]) {
+            parents.add(new Integer[] { edgeFrom1[edge], edgeFrom2[edge] });
+        }
+        Collections.reverse(parents);
+        return parents;
+    }
+
+    /**
+     * @return number of edges in the graph
+     */
+    public int getEdgeNumber() {
+        return edgeNumber;
+    }
+
+    /**
+     * @return index of the pair, -1 if the pair has no edges
+     */
+    private int findPair(int v1, int v2) {
+        return pairs.get(PairTable.pairKey(v1, v2));
+    }
+
+    private int addPair(long key) {
+        if (pairNumber == pairOffset.length) {
+            int capacity = pairNumber * 2;
+            pairOffset = Arrays.copyOf(pairOffset, capacity);
+            pairLength = Arrays.copyOf(pairLength, capacity);
+            pairCapacity = Arrays.copyOf(pairCapacity, capacity);
+        }
+        int pair = pairNumber++;
+        pairOffset[pair] = allocateChildren(INITIAL_CHILD_CAPACITY);
+        pairCapacity[pair] = INITIAL_CHILD_CAPACITY;
+        pairs.putNew(key, pair);
+        return pair;
+    }
+
+    private int indexOfChild(int pair, int child) {
+        int offset = pairOffset[pair];
+        for (int i = 0; i < pairLength[pair]; i++) {
+            if (children[offset + i] == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reserves space at the end of the slab.
+     * 
+     * @return offset of the reserved slice
+     */
+    private int allocateChildren(int length) {
+        if (childrenEnd + length > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenEnd + length));
+        }
+        int offset = childrenEnd;
+        childrenEnd += length;
+        return offset;
+    }
+
+    /**
+     * Moves children of the pair to a bigger slice at the end of the slab.
+     * If the pair already ends the slab, it is just extended.
+     */
+    private void relocate(int pair, int capacity) {
+        if (pairOffset[pair] + pairCapacity[pair] == childrenEnd) {
+            allocateChildren(capacity - pairCapacity[pair]);
+        } else {
+            int offset = allocateChildren(capacity);
+            System.arraycopy(children, pairOffset[pair], children, offset, pairLength[pair]);
+            pairOffset[pair] = offset;
+        }
+        pairCapacity[pair] = capacity;
+    }
+
+    private void addParents(int from1, int from2, int to) {
+        if (edgeNumber == edgeTo.length) {
+            int capacity = edgeNumber * 2;
+            edgeFrom1 = Arrays.copyOf(edgeFrom1, capacity);
+            edgeFrom2 = Arrays.copyOf(edgeFrom2, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgePrevious = Arrays.copyOf(edgePrevious, capacity);
+        }
+        edgeFrom1[edgeNumber] = from1;
+        edgeFrom2[edgeNumber] = from2;
+        edgeTo[edgeNumber] = to;
+        edgePrevious[edgeNumber] = lastParentEdge[to];
+        lastParentEdge[to] = edgeNumber;
+        edgeNumber++;
+    }
+
+    private void checkArgs(int from1, int from2, int to) {
+        if (from1 == from2) {
+            throw new IllegalArgumentException("Source vertices have to be different");
+        }
+        if (from1 == to || from2 == to) {
+            throw new IllegalArgumentException("Source cant be the same as destination");
+        }
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int edge = 0; edge < edgeNumber; edge++) {
+            int from1 = Math.min(edgeFrom1[edge], edgeFrom2[edge]);
+            int from2 = Math.max(edgeFrom1[edge], edgeFrom2[edge]);
+            sb.append(String.format("[{%d} {%d} -> {%d}\n", from1, from2, edgeTo[edge]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Cursor reading the children slab directly. The pair is looked up once per reset.
+     */
+    private class Cursor implements ChildCursor {
+
+        private int position;
+
+        private int end;
+
+        public ChildCursor reset(int v1, int v2) {
+            int pair = findPair(v1, v2);
+            position = pair < 0 ? 0 : pairOffset[pair];
+            end = pair < 0 ? 0 : position + pairLength[pair];
+            return this;
+        }
+
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        public int next() {
+            return children[position++];
+        }
+
+    }
+
+    /**
+     * Read-only view of children of a pair. Follows the pair's slice, if it is relocated.
+     */
+    private class ChildList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int pair;
+
+        private ChildList(int pair) {
+            this.pair = pair;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= pairLength[pair]) {
+                throw new IndexOutOfBoundsException("Child index out of bounds: " + index);
+            }
+            return children[pairOffset[pair] + index];
+        }
+
+        @Override
+        public int size() {
+            return pairLength[pair];
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BarabasiAlbertCreatorTest {
+
+    private static final int SIZE = 1000;
+
+    private static final int EDGES_PER_VERTEX = 3;
+
+    @Test
+    public void testEdgeNumberAndDegrees() {
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        BarabasiAlbertCreator.InitBarabasiAlbertGraph(builder, EDGES_PER_VERTEX, new Random(1));
+        CompressedSparseRowGraph graph = builder.build();
+        int expectedEdges = EDGES_PER_VERTEX * (EDGES_PER_VERTEX + 1) / 2 + (SIZE - EDGES_PER_VERTEX - 1) * EDGES_PER_VERTEX;
+        assertEquals(expectedEdges, graph.getEdgeNumber());
+        int maxDegree = 0;
+        for (int v = 0; v < SIZE; v++) {
+            assertTrue("Every vertex should have at least edgesPerVertex neighbors", graph.getDegree(v) >= EDGES_PER_VERTEX);
+            maxDegree = Math.max(maxDegree, graph.getDegree(v));
+        }
+        assertTrue("Preferential attachment should create hubs", maxDegree > 10 * EDGES_PER_VERTEX);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyEdgesPerVertex() {
+        BarabasiAlbertCreator.InitBarabasiAlbertGraph(new AdjacencyListGraph(3), 3);
+    }
+
+}
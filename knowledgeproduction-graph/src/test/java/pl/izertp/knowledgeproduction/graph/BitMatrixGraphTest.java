@@ -0,0 +1,75 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitMatrixGraphTest {
+
+    private static final int SIZE = 150;
+
+    @Test
+    public void testAddEdge() {
+        BitMatrixGraph graph = new BitMatrixGraph(SIZE);
+        assertFalse("Adding new edge should return false", graph.addEdge(3, 100));
+        assertTrue("Adding existing edge should return true", graph.addEdge(3, 100));
+        assertTrue("Adding reversed existing edge should return true", graph.addEdge(100, 3));
+        assertTrue(graph.getEdge(100, 3));
+        assertFalse(graph.getEdge(3, 4));
+        assertEquals(1, graph.getEdgeNumber());
+        assertEquals(1, graph.getDegree(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLoop() {
+        new BitMatrixGraph(SIZE).addEdge(5, 5);
+    }
+
+    @Test
+    public void testSameAsAdjacencyList() {
+        Graph expected = new AdjacencyListGraph(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(expected, 4000, new Random(7));
+        BitMatrixGraph graph = BitMatrixGraph.copyOf(expected);
+        CompressedSparseRowGraph sorted = CompressedSparseRowGraph.copyOf(expected);
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(sorted.getNeighbors(v), graph.getNeighbors(v));
+            assertEquals(sorted.getDegree(v), graph.getDegree(v));
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                assertEquals(sorted.getNeighbor(v, i), graph.getNeighbor(v, i));
+            }
+        }
+        assertEquals(4000, graph.getEdgeNumber());
+    }
+
+    @Test
+    public void testRepresentationSelection() {
+        assertTrue(GraphRepresentation.newGraph(SIZE, 4000) instanceof BitMatrixGraph);
+        assertTrue(GraphRepresentation.newGraph(SIZE, 100) instanceof CompressedSparseRowGraph.Builder);
+        assertFalse(GraphRepresentation.isDense(1 << 20, 1L << 40));
+        assertTrue(GraphFactory.erdosRenyi(4000).createGraph(SIZE) instanceof BitMatrixGraph);
+        assertTrue(GraphFactory.erdosRenyi(100).createGraph(SIZE) instanceof CompressedSparseRowGraph);
+    }
+
+    @Test
+    public void testCursorAndCopy() {
+        Graph source = new AdjacencyListGraph(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(source, 2000, new Random(11));
+        BitMatrixGraph graph = BitMatrixGraph.copyOf(source);
+        NeighborCursor cursor = graph.newNeighborCursor();
+        int[] neighbors = new int[SIZE];
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(graph.getDegree(v), graph.copyNeighbors(v, neighbors));
+            cursor.reset(v);
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                assertEquals(graph.getNeighbor(v, i), neighbors[i]);
+                assertTrue(cursor.hasNext());
+                assertEquals(neighbors[i], cursor.next());
+            }
+            assertFalse(cursor.hasNext());
+        }
+    }
+}
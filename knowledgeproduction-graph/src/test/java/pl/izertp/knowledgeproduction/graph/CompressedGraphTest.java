@@ -0,0 +1,71 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompressedGraphTest {
+
+    private static final int SIZE = 1000;
+
+    @Test
+    public void testSameAsCsr() {
+        Graph source = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(source, 8000, new Random(13));
+        CompressedSparseRowGraph expected = ((CompressedSparseRowGraph.Builder) source).build();
+        // tiny pages make varints cross page boundaries
+        CompressedGraph graph = CompressedGraph.copyOf(expected, 5);
+
+        assertEquals(SIZE, graph.getSize());
+        assertEquals(8000, graph.getEdgeNumber());
+        NeighborCursor cursor = graph.newNeighborCursor();
+        int[] neighbors = new int[SIZE];
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(expected.getNeighbors(v), graph.getNeighbors(v));
+            assertEquals(expected.getDegree(v), graph.copyNeighbors(v, neighbors));
+            cursor.reset(v);
+            for (int i = 0; i < expected.getDegree(v); i++) {
+                assertEquals(expected.getNeighbor(v, i), graph.getNeighbor(v, i));
+                assertEquals(neighbors[i], cursor.next());
+                assertTrue(graph.getEdge(v, neighbors[i]));
+            }
+            assertFalse(cursor.hasNext());
+        }
+        assertFalse(graph.getEdge(0, 0));
+    }
+
+    @Test
+    public void testFootprint() {
+        CompressedSparseRowGraph csr = CompressedSparseRowGraph.copyOf(new RingGraph(SIZE, 10));
+        CompressedGraph graph = CompressedGraph.copyOf(csr);
+        // neighbors at small distances take a single byte instead of four
+        assertTrue(graph.getByteSize() * 3 < 4L * 2 * csr.getEdgeNumber());
+        assertTrue(graph.getEdge(0, SIZE - 5));
+        assertFalse(graph.getEdge(0, SIZE - 6));
+    }
+
+    @Test
+    public void testSelection() {
+        Graph graph = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(graph, 2000, new Random(17));
+        assertTrue(GraphRepresentation.forLookup(graph, 1000) instanceof CompressedGraph);
+        assertTrue(GraphRepresentation.forLookup(graph, 5000) instanceof CompressedSparseRowGraph);
+    }
+
+    @Test
+    public void testLargeDegrees() {
+        // degrees above 254 are kept outside of the byte array
+        CompressedGraph graph = CompressedGraph.copyOf(new CompleteGraph(300));
+        for (int v = 0; v < 300; v++) {
+            assertEquals(299, graph.getDegree(v));
+        }
+        assertEquals(1, graph.getNeighbor(0, 0));
+        assertEquals(299, graph.getNeighbor(7, 298));
+        assertEquals(8, graph.getNeighbor(7, 7));
+    }
+
+}
@@ -0,0 +1,97 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressedSparseRowGraphTest {
+
+    private static final int SIZE = 10;
+
+    private static final int FROM1 = 0;
+
+    private static final int TO1 = 1;
+
+    private static final int TO2 = 2;
+
+    private CompressedSparseRowGraph.Builder builder;
+
+    @Before
+    public void setUpBuilder() {
+        builder = new CompressedSparseRowGraph.Builder(SIZE);
+    }
+
+    @Test
+    public void testBuilderAddEdge() {
+        assertFalse("Adding new edge should return false", builder.addEdge(FROM1, TO1));
+        assertTrue("Adding existing edge should return true", builder.addEdge(FROM1, TO1));
+        assertTrue("Adding reversed existing edge should return true", builder.addEdge(TO1, FROM1));
+        assertEquals(1, builder.build().getEdgeNumber());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLoop() {
+        builder.addEdge(FROM1, FROM1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        builder.build().addEdge(FROM1, TO1);
+    }
+
+    @Test
+    public void testSymmetric() {
+        builder.addEdge(FROM1, TO1);
+        Graph graph = builder.build();
+        assertTrue(graph.getEdge(FROM1, TO1));
+        assertTrue(graph.getEdge(TO1, FROM1));
+        assertFalse(graph.getEdge(FROM1, TO2));
+    }
+
+    @Test
+    public void testNeighborsSorted() {
+        builder.addEdge(FROM1, TO2);
+        builder.addEdge(TO1, FROM1);
+        CompressedSparseRowGraph graph = builder.build();
+        assertEquals(2, graph.getDegree(FROM1));
+        assertEquals(1, graph.getDegree(TO1));
+        assertEquals(TO1, graph.getNeighbor(FROM1, 0));
+        assertEquals(TO2, graph.getNeighbor(FROM1, 1));
+        assertArrayEquals(new Integer[] { TO1, TO2 }, graph.getNeighbors(FROM1).toArray());
+    }
+
+    @Test
+    public void testCopyOf() {
+        Graph source = new AdjacencyListGraph(SIZE);
+        source.addEdge(FROM1, TO2);
+        source.addEdge(FROM1, TO1);
+        CompressedSparseRowGraph graph = CompressedSparseRowGraph.copyOf(source);
+        assertEquals(SIZE, graph.getSize());
+        assertArrayEquals(new Integer[] { TO1, TO2 }, graph.getNeighbors(FROM1).toArray());
+        assertArrayEquals(new Integer[] { FROM1 }, graph.getNeighbors(TO2).toArray());
+    }
+
+    @Test
+    public void testCursorAndCopy() {
+        builder.addEdge(FROM1, TO2);
+        builder.addEdge(TO1, FROM1);
+        CompressedSparseRowGraph graph = builder.build();
+        int[] neighbors = new int[SIZE];
+        assertEquals(2, graph.copyNeighbors(FROM1, neighbors));
+        assertEquals(TO1, neighbors[0]);
+        assertEquals(TO2, neighbors[1]);
+        NeighborCursor cursor = graph.newNeighborCursor();
+        for (int v : new int[] { FROM1, TO2 }) {
+            cursor.reset(v);
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                assertTrue(cursor.hasNext());
+                assertEquals(graph.getNeighbor(v, i), cursor.next());
+            }
+            assertFalse(cursor.hasNext());
+        }
+    }
+}
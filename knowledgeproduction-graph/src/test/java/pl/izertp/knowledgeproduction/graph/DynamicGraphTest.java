@@ -0,0 +1,66 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DynamicGraphTest {
+
+    private static final int SIZE = 60;
+
+    @Test
+    public void testAddAndRemove() {
+        DynamicGraph graph = new DynamicGraph(SIZE);
+        assertFalse("Adding new edge should return false", graph.addEdge(1, 2));
+        assertTrue("Adding existing edge should return true", graph.addEdge(2, 1));
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        assertTrue(graph.removeEdge(2, 1));
+        assertFalse(graph.removeEdge(1, 2));
+        assertFalse(graph.getEdge(1, 2));
+        assertEquals(2, graph.getDegree(1));
+        assertEquals(new HashSet<Integer>(graph.getNeighbors(1)), new HashSet<Integer>(Arrays.asList(3, 4)));
+        assertEquals(0, graph.getDegree(2));
+        assertEquals(-1, graph.getRandomNeighbor(2, new Random()));
+        assertEquals(2, graph.getEdgeNumber());
+    }
+
+    @Test
+    public void testRandomChanges() {
+        Random random = new Random(19);
+        DynamicGraph graph = new DynamicGraph(SIZE);
+        Graph expected = new AdjacencyListGraph(SIZE);
+        for (int step = 0; step < 20000; step++) {
+            int from = random.nextInt(SIZE);
+            int to = random.nextInt(SIZE);
+            if (from == to) {
+                continue;
+            }
+            if (random.nextBoolean()) {
+                assertEquals(expected.addEdge(from, to), graph.addEdge(from, to));
+            } else {
+                assertEquals(expected.removeEdge(from, to), graph.removeEdge(from, to));
+            }
+        }
+        int[] neighbors = new int[SIZE];
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(new HashSet<Integer>(expected.getNeighbors(v)), new HashSet<Integer>(graph.getNeighbors(v)));
+            int degree = graph.copyNeighbors(v, neighbors);
+            for (int i = 0; i < degree; i++) {
+                assertTrue(graph.getEdge(neighbors[i], v));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveFromImmutable() {
+        CompressedSparseRowGraph.copyOf(new AdjacencyListGraph(SIZE)).removeEdge(0, 1);
+    }
+
+}
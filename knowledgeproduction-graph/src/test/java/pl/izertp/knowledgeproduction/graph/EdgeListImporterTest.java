@@ -0,0 +1,96 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EdgeListImporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testImport() throws IOException {
+        File file = write("# comment\n"
+                + "100 7\n"
+                + "7\t100\n"
+                + "% another comment\n"
+                + "\n"
+                + "7 7\n"
+                + "-3,100,0.5\n"
+                + "5000000000 7 12 1\r\n"
+                + "100 7");
+        EdgeListImporter importer = new EdgeListImporter(file);
+        CompressedSparseRowGraph graph = importer.importGraph();
+
+        assertEquals(4, graph.getSize());
+        assertEquals(3, graph.getEdgeNumber());
+        assertEquals(100, importer.getOriginalId(0));
+        assertEquals(7, importer.getOriginalId(1));
+        assertEquals(-3, importer.getOriginalId(2));
+        assertEquals(5000000000L, importer.getOriginalId(3));
+        assertTrue(graph.getEdge(0, 1));
+        assertTrue(graph.getEdge(2, 0));
+        assertTrue(graph.getEdge(1, 3));
+        assertFalse(graph.getEdge(1, 1));
+        assertFalse(graph.getEdge(2, 3));
+    }
+
+    @Test
+    public void testSameAsGeneratedGraph() throws IOException {
+        int size = 500;
+        Graph expected = new AdjacencyListGraph(size);
+        ErdosRenyiCreator.InitErdosRenyiGraph(expected, 3000, new Random(5));
+        StringBuilder text = new StringBuilder();
+        for (int v = 0; v < size; v++) {
+            text.append(v).append(' ').append((v + 1) % size).append(" 1.0\n");
+        }
+        for (int v = 0; v < size; v++) {
+            for (int neighbor : expected.getNeighbors(v)) {
+                text.append(v).append('\t').append(neighbor).append('\n');
+            }
+        }
+        for (int v = 0; v < size; v++) {
+            if (!expected.getEdge(v, (v + 1) % size)) {
+                expected.addEdge(v, (v + 1) % size);
+            }
+        }
+        // a tiny window checks identifiers split between two mappings
+        CompressedSparseRowGraph graph = new EdgeListImporter(write(text.toString()), 7).importGraph();
+
+        assertEquals(size, graph.getSize());
+        CompressedSparseRowGraph copy = CompressedSparseRowGraph.copyOf(expected);
+        for (int v = 0; v < size; v++) {
+            assertEquals(copy.getNeighbors(v), graph.getNeighbors(v));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrongLine() throws IOException {
+        EdgeListImporter.importGraph(write("1 2\n3\n"));
+    }
+
+    private File write(String text) throws IOException {
+        File file = folder.newFile();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII);
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+}
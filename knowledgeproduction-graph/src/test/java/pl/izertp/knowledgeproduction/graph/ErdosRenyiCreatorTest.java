@@ -0,0 +1,83 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ErdosRenyiCreatorTest {
+
+    private static final int SIZE = 200;
+
+    private static final long SEED = 42;
+
+    @Test
+    public void testEdgeNumber() {
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(builder, 500, new Random(SEED));
+        assertEquals("Graph should have exactly the requested number of edges", 500, builder.getEdgeNumber());
+    }
+
+    @Test
+    public void testDenseEdgeNumber() {
+        int allPairs = SIZE * (SIZE - 1) / 2;
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(builder, allPairs - 10, new Random(SEED));
+        assertEquals("Graph should have exactly the requested number of edges", allPairs - 10, builder.getEdgeNumber());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyEdges() {
+        ErdosRenyiCreator.InitErdosRenyiGraph(new AdjacencyListGraph(4), 7);
+    }
+
+    @Test
+    public void testSameSeedSameGraph() {
+        Graph first = new AdjacencyListGraph(SIZE);
+        Graph second = new AdjacencyListGraph(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(first, 0.05, new Random(SEED));
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(second, 0.05, new Random(SEED));
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(first.getNeighbors(v), second.getNeighbors(v));
+        }
+    }
+
+    @Test
+    public void testGnpCompleteAndEmpty() {
+        CompressedSparseRowGraph.Builder complete = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(complete, 1);
+        assertEquals(SIZE * (SIZE - 1) / 2, complete.getEdgeNumber());
+
+        CompressedSparseRowGraph.Builder empty = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(empty, 0);
+        assertEquals(0, empty.getEdgeNumber());
+    }
+
+    @Test
+    public void testGnpEdgeDensity() {
+        double probability = 0.1;
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(builder, probability, new Random(SEED));
+        double expected = probability * SIZE * (SIZE - 1) / 2;
+        // standard deviation is about 44 edges, so 5 sigma is 220
+        assertTrue("Number of edges too far from the expected value", Math.abs(builder.getEdgeNumber() - expected) < 220);
+    }
+
+    @Test
+    public void testGeometricSkipBounds() {
+        // a (long) cast of an infinite or huge skip would be negative or wrap around
+        double tinyLogQ = Math.log1p(-1e-18);
+        assertTrue(ErdosRenyiCreator.geometricSkip(tinyLogQ, Math.nextDown(1.0)) > 0);
+        assertTrue(ErdosRenyiCreator.geometricSkip(-0.0, Math.nextDown(1.0)) > 0);
+        assertTrue(ErdosRenyiCreator.geometricSkip(-0.0, Double.MIN_VALUE) > 0);
+        assertTrue(ErdosRenyiCreator.geometricSkip(tinyLogQ, Double.MIN_VALUE) >= 0);
+        assertEquals(0, ErdosRenyiCreator.geometricSkip(Math.log(0.5), Double.MIN_VALUE));
+
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGnpGraph(builder, 1e-300, new Random(SEED));
+        assertEquals(0, builder.getEdgeNumber());
+    }
+
+}
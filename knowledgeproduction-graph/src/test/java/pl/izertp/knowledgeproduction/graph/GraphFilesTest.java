@@ -0,0 +1,94 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphFilesTest {
+
+    private static final int SIZE = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        Graph graph = new AdjacencyListGraph(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(graph, 1000, new Random(3));
+        CompressedSparseRowGraph expected = CompressedSparseRowGraph.copyOf(graph);
+
+        File file = folder.newFile("graph.bin");
+        GraphFiles.write(graph, file);
+        MappedGraph mapped = GraphFiles.map(file);
+
+        assertEquals(SIZE, mapped.getSize());
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(expected.getNeighbors(v), mapped.getNeighbors(v));
+            assertEquals(expected.getDegree(v), mapped.getDegree(v));
+            for (int i = 0; i < mapped.getDegree(v); i++) {
+                assertTrue(mapped.getEdge(v, mapped.getNeighbor(v, i)));
+            }
+        }
+        assertFalse(mapped.getEdge(0, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrongFile() throws IOException {
+        GraphFiles.map(folder.newFile("empty.bin"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        Graph graph = new AdjacencyListGraph(SIZE);
+        ErdosRenyiCreator.InitErdosRenyiGraph(graph, 1000, new Random(3));
+        File file = folder.newFile("truncated.bin");
+        GraphFiles.write(graph, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(file.length() - 4);
+        } finally {
+            randomAccessFile.close();
+        }
+        GraphFiles.map(file);
+    }
+
+    @Test
+    public void testMapInWindows() throws IOException {
+        Graph graph = new RingGraph(SIZE, 4);
+        File file = folder.newFile("windows.bin");
+        GraphFiles.write(graph, file);
+        // windows of 16 ints split the offsets and the rows
+        MappedGraph mapped = GraphFiles.map(file, 4);
+        CompressedSparseRowGraph expected = CompressedSparseRowGraph.copyOf(graph);
+        assertEquals(SIZE, mapped.getSize());
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(expected.getNeighbors(v), mapped.getNeighbors(v));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecreasingOffsets() throws IOException {
+        Graph graph = new RingGraph(SIZE, 4);
+        File file = folder.newFile("decreasing.bin");
+        GraphFiles.write(graph, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // offset of vertex 2 beyond the one of vertex 3
+            randomAccessFile.seek(GraphFiles.HEADER_SIZE + 4 * 2);
+            randomAccessFile.writeInt(13);
+        } finally {
+            randomAccessFile.close();
+        }
+        GraphFiles.map(file);
+    }
+
+}
@@ -48,4 +48,20 @@ public class GraphTest {
         assertEquals(2, graph.getNeighbors(FROM1).size());
         assertEquals(1, graph.getNeighbors(TO1).size());
     }
+
+    @Test
+    public void testPrimitiveNeighbors() {
+        graph.addEdge(FROM1, TO1);
+        graph.addEdge(FROM1, TO2);
+        assertEquals(2, graph.getDegree(FROM1));
+        assertEquals(TO2, graph.getNeighbor(FROM1, 1));
+        int[] neighbors = new int[SIZE];
+        assertEquals(2, graph.copyNeighbors(FROM1, neighbors));
+        assertEquals(TO1, neighbors[0]);
+        NeighborCursor cursor = graph.newNeighborCursor();
+        cursor.reset(TO2);
+        assertTrue(cursor.hasNext());
+        assertEquals(FROM1, cursor.next());
+        assertFalse(cursor.hasNext());
+    }
 }
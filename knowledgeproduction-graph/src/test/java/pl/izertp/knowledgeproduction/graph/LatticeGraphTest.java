@@ -0,0 +1,86 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatticeGraphTest {
+
+    @Test
+    public void testOpenLattice() {
+        // 4 x 3 grid, vertex (x, y) has index x + 4 * y
+        LatticeGraph graph = new LatticeGraph(false, 4, 3);
+        assertEquals(12, graph.getSize());
+        assertArrayEquals(new Integer[] { 1, 4 }, graph.getNeighbors(0).toArray());
+        assertArrayEquals(new Integer[] { 4, 6, 1, 9 }, graph.getNeighbors(5).toArray());
+        assertTrue(graph.getEdge(5, 9));
+        assertFalse(graph.getEdge(3, 4));
+        assertEquals(3 * 3 + 4 * 2, graph.getEdgeNumber());
+        assertSymmetric(graph);
+    }
+
+    @Test
+    public void testTorus() {
+        LatticeGraph graph = new LatticeGraph(true, 4, 3, 2);
+        assertEquals(24, graph.getSize());
+        for (int v = 0; v < graph.getSize(); v++) {
+            // the axis of size 2 gives a single neighbor
+            assertEquals(5, graph.getDegree(v));
+        }
+        assertTrue(graph.getEdge(0, 3));
+        assertTrue(graph.getEdge(0, 8));
+        assertEquals(24 * 5 / 2, graph.getEdgeNumber());
+        assertSymmetric(graph);
+    }
+
+    @Test
+    public void testRingAndComplete() {
+        RingGraph ring = new RingGraph(10, 4);
+        assertArrayEquals(new Integer[] { 1, 2, 9, 8 }, ring.getNeighbors(0).toArray());
+        assertTrue(ring.getEdge(9, 1));
+        assertFalse(ring.getEdge(0, 3));
+        assertEquals(20, ring.getEdgeNumber());
+        assertSymmetric(ring);
+
+        CompleteGraph complete = new CompleteGraph(5);
+        assertArrayEquals(new Integer[] { 0, 1, 3, 4 }, complete.getNeighbors(2).toArray());
+        assertFalse(complete.getEdge(2, 2));
+        assertEquals(10, complete.getEdgeNumber());
+        assertSymmetric(complete);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFactorySize() {
+        GraphFactory.lattice(true, 10, 10).createGraph(99);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRingNeighborOutOfBounds() {
+        new RingGraph(10, 4).getNeighbor(0, 4);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCompleteNeighborOutOfBounds() {
+        new CompleteGraph(5).getNeighbor(2, 4);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        new RingGraph(10, 2).addEdge(0, 5);
+    }
+
+    private void assertSymmetric(Graph graph) {
+        for (int v = 0; v < graph.getSize(); v++) {
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                int neighbor = graph.getNeighbor(v, i);
+                assertTrue(graph.getEdge(v, neighbor));
+                assertTrue(graph.getEdge(neighbor, v));
+                assertTrue(graph.getNeighbors(neighbor).contains(v));
+            }
+        }
+    }
+
+}
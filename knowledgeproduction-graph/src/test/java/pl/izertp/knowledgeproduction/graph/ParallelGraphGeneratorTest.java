@@ -0,0 +1,73 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelGraphGeneratorTest {
+
+    private static final int SIZE = 5000;
+
+    private static final long SEED = 7;
+
+    private static ForkJoinPool singleThread;
+
+    private static ForkJoinPool manyThreads;
+
+    @BeforeClass
+    public static void createPools() {
+        singleThread = new ForkJoinPool(1);
+        manyThreads = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        singleThread.shutdown();
+        manyThreads.shutdown();
+    }
+
+    @Test
+    public void testDeterministicForAnyThreadNumber() {
+        // enough pairs for several chunks
+        CompressedSparseRowGraph first = ParallelGraphGenerator.erdosRenyiGnp(SIZE, 0.01, SEED, singleThread);
+        CompressedSparseRowGraph second = ParallelGraphGenerator.erdosRenyiGnp(SIZE, 0.01, SEED, manyThreads);
+        assertSameGraph(first, second);
+    }
+
+    @Test
+    public void testEdgeDensity() {
+        double probability = 0.01;
+        CompressedSparseRowGraph graph = ParallelGraphGenerator.erdosRenyiGnp(SIZE, probability, SEED, manyThreads);
+        double expected = probability * SIZE * (SIZE - 1) / 2;
+        // standard deviation is about 353 edges
+        assertTrue("Number of edges too far from the expected value", Math.abs(graph.getEdgeNumber() - expected) < 2000);
+        for (int v = 0; v < SIZE; v++) {
+            assertFalse("Loops are not allowed", graph.getEdge(v, v));
+        }
+    }
+
+    @Test
+    public void testStochasticBlockModel() {
+        int[] blockSizes = new int[] { 3000, 2000 };
+        double[][] probabilities = new double[][] { { 0.01, 0 }, { 0, 1 } };
+        CompressedSparseRowGraph first = ParallelGraphGenerator.stochasticBlockModel(blockSizes, probabilities, SEED, singleThread);
+        CompressedSparseRowGraph second = ParallelGraphGenerator.stochasticBlockModel(blockSizes, probabilities, SEED, manyThreads);
+        assertSameGraph(first, second);
+        assertEquals("Second block should be complete", 1999, first.getDegree(SIZE - 1));
+        assertFalse(first.getEdge(0, SIZE - 1));
+    }
+
+    private void assertSameGraph(CompressedSparseRowGraph first, CompressedSparseRowGraph second) {
+        assertEquals(first.getEdgeNumber(), second.getEdgeNumber());
+        for (int v = 0; v < first.getSize(); v++) {
+            assertEquals(first.getNeighbors(v), second.getNeighbors(v));
+        }
+    }
+
+}
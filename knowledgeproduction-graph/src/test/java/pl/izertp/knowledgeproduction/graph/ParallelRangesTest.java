@@ -0,0 +1,42 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelRangesTest {
+
+    @Test
+    public void testInvokeAll() {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 100; i++) {
+            final int value = i;
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    return value;
+                }
+            });
+        }
+        List<Integer> results = ParallelRanges.invokeAll(ForkJoinPool.commonPool(), tasks);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRethrow() {
+        ParallelRanges.run(ForkJoinPool.commonPool(), 100, 10, new ParallelRanges.RangeAction() {
+            public void run(int chunk, int from, int to) {
+                if (chunk == 3) {
+                    throw new IndexOutOfBoundsException("Chunk " + chunk);
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StochasticBlockModelCreatorTest {
+
+    private static final int[] BLOCK_SIZES = new int[] { 30, 20 };
+
+    private static final int SIZE = 50;
+
+    @Test
+    public void testBlocks() {
+        double[][] probabilities = new double[][] { { 1, 0 }, { 0, 1 } };
+        Graph graph = new AdjacencyListGraph(SIZE);
+        StochasticBlockModelCreator.InitStochasticBlockModelGraph(graph, BLOCK_SIZES, probabilities);
+        assertEquals(29, graph.getNeighbors(0).size());
+        assertEquals(19, graph.getNeighbors(SIZE - 1).size());
+        assertFalse(graph.getEdge(0, SIZE - 1));
+    }
+
+    @Test
+    public void testBetweenBlocks() {
+        double[][] probabilities = new double[][] { { 0, 1 }, { 1, 0 } };
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        StochasticBlockModelCreator.InitStochasticBlockModelGraph(builder, BLOCK_SIZES, probabilities, new Random(1));
+        assertEquals(30 * 20, builder.getEdgeNumber());
+        assertTrue(builder.getEdge(0, SIZE - 1));
+        assertFalse(builder.getEdge(0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongBlockSizes() {
+        StochasticBlockModelCreator.InitStochasticBlockModelGraph(new AdjacencyListGraph(SIZE + 1), BLOCK_SIZES, new double[][] { { 0, 0 }, { 0, 0 } });
+    }
+
+}
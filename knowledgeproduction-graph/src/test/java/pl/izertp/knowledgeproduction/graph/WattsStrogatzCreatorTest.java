@@ -0,0 +1,39 @@
+package pl.izertp.knowledgeproduction.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WattsStrogatzCreatorTest {
+
+    private static final int SIZE = 100;
+
+    private static final int NEAREST_NEIGHBORS = 4;
+
+    @Test
+    public void testRingLattice() {
+        Graph graph = new AdjacencyListGraph(SIZE);
+        WattsStrogatzCreator.InitWattsStrogatzGraph(graph, NEAREST_NEIGHBORS, 0);
+        for (int v = 0; v < SIZE; v++) {
+            assertEquals(NEAREST_NEIGHBORS, graph.getNeighbors(v).size());
+            assertTrue(graph.getEdge(v, (v + 1) % SIZE));
+            assertTrue(graph.getEdge(v, (v + 2) % SIZE));
+        }
+    }
+
+    @Test
+    public void testRewiringKeepsEdgeNumber() {
+        CompressedSparseRowGraph.Builder builder = new CompressedSparseRowGraph.Builder(SIZE);
+        WattsStrogatzCreator.InitWattsStrogatzGraph(builder, NEAREST_NEIGHBORS, 0.5, new Random(1));
+        assertEquals(SIZE * NEAREST_NEIGHBORS / 2, builder.getEdgeNumber());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddNearestNeighbors() {
+        WattsStrogatzCreator.InitWattsStrogatzGraph(new AdjacencyListGraph(SIZE), 3, 0);
+    }
+
+}
@@ -0,0 +1,171 @@
+package pl.izertp.knowledgeproduction.graph.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pl.izertp.knowledgeproduction.graph.AdjacencyListGraph;
+import pl.izertp.knowledgeproduction.graph.CompleteGraph;
+import pl.izertp.knowledgeproduction.graph.ErdosRenyiCreator;
+import pl.izertp.knowledgeproduction.graph.Graph;
+import pl.izertp.knowledgeproduction.graph.LatticeGraph;
+import pl.izertp.knowledgeproduction.graph.RingGraph;
+
+public class GraphAnalysisTest {
+
+    @Test
+    public void testConnectedComponents() {
+        Graph graph = new AdjacencyListGraph(7);
+        graph.addEdge(0, 3);
+        graph.addEdge(3, 5);
+        graph.addEdge(2, 4);
+        ConnectedComponents components = GraphAnalysis.connectedComponents(graph);
+        // {0, 3, 5}, {1}, {2, 4}, {6}
+        assertEquals(4, components.getCount());
+        assertEquals(0, components.getComponent(5));
+        assertEquals(1, components.getComponent(1));
+        assertEquals(2, components.getComponent(4));
+        assertEquals(3, components.getComponent(6));
+        assertEquals(3, components.getSize(0));
+        assertEquals(3, components.getLargestSize());
+    }
+
+    @Test
+    public void testComponentsOfRandomGraph() {
+        Graph graph = new AdjacencyListGraph(20000);
+        ErdosRenyiCreator.InitErdosRenyiGraph(graph, 9000, new Random(5));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ConnectedComponents components = GraphAnalysis.connectedComponents(graph, pool);
+        pool.shutdown();
+
+        // compare with a sequential search
+        int[] expected = new int[graph.getSize()];
+        Arrays.fill(expected, -1);
+        int count = 0;
+        Deque<Integer> queue = new ArrayDeque<Integer>();
+        for (int v = 0; v < graph.getSize(); v++) {
+            if (expected[v] >= 0) {
+                continue;
+            }
+            expected[v] = count;
+            queue.add(v);
+            while (!queue.isEmpty()) {
+                for (int neighbor : graph.getNeighbors(queue.poll())) {
+                    if (expected[neighbor] < 0) {
+                        expected[neighbor] = count;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+            count++;
+        }
+        assertEquals(count, components.getCount());
+        for (int v = 0; v < graph.getSize(); v++) {
+            assertEquals(expected[v], components.getComponent(v));
+        }
+    }
+
+    @Test
+    public void testDegreeHistogram() {
+        assertArrayEquals(new long[] { 0, 0, 0, 0, 12 }, GraphAnalysis.degreeHistogram(new LatticeGraph(true, 4, 3)));
+        // corners, borders and the inner vertices
+        assertArrayEquals(new long[] { 0, 0, 4, 4, 1 }, GraphAnalysis.degreeHistogram(new LatticeGraph(false, 3, 3)));
+        assertArrayEquals(new long[] { 3 }, GraphAnalysis.degreeHistogram(new AdjacencyListGraph(3)));
+    }
+
+    @Test
+    public void testClustering() {
+        ClusteringCoefficients complete = GraphAnalysis.clustering(new CompleteGraph(6));
+        assertEquals(1, complete.getAverage(), 1e-12);
+        assertEquals(1, complete.getGlobal(), 1e-12);
+        assertEquals(20, complete.getTriangles());
+
+        // triangle 0-1-2 with a pendant vertex 3 attached to 0
+        Graph graph = new AdjacencyListGraph(4);
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 0);
+        graph.addEdge(0, 3);
+        ClusteringCoefficients clustering = GraphAnalysis.clustering(graph);
+        assertEquals(1. / 3, clustering.getLocal(0), 1e-12);
+        assertEquals(1, clustering.getLocal(1), 1e-12);
+        assertEquals(0, clustering.getLocal(3), 1e-12);
+        assertEquals((1. / 3 + 2) / 4, clustering.getAverage(), 1e-12);
+        assertEquals(3. / 5, clustering.getGlobal(), 1e-12);
+
+        // ring lattice with k = 4 has clustering 3(k - 2) / 4(k - 1)
+        assertEquals(0.5, GraphAnalysis.clustering(new RingGraph(100, 4)).getAverage(), 1e-12);
+    }
+
+    @Test
+    public void testDistances() {
+        Graph ring = new RingGraph(10, 2);
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 4, 3, 2, 1 }, GraphAnalysis.distances(ring, 0));
+        assertArrayEquals(new int[] { 0, 1, 2, 2, 1, 0, 1, 2, 2, 1 }, GraphAnalysis.distances(ring, 0, 5));
+
+        Graph graph = new AdjacencyListGraph(3);
+        graph.addEdge(0, 1);
+        assertArrayEquals(new int[] { 1, 0, -1 }, GraphAnalysis.distances(graph, 1));
+    }
+
+    @Test
+    public void testDistancesOnLargeLattice() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int[] distances = GraphAnalysis.distances(new LatticeGraph(false, 300, 300), pool, 0);
+        pool.shutdown();
+        for (int y = 0; y < 300; y += 7) {
+            for (int x = 0; x < 300; x += 11) {
+                assertEquals(x + y, distances[x + 300 * y]);
+            }
+        }
+    }
+
+    @Test
+    public void testDistanceTwoColoring() {
+        // a path needs 3 colors
+        Coloring path = GraphAnalysis.distanceTwoColoring(new LatticeGraph(false, 7));
+        assertEquals(3, path.getColorCount());
+        assertArrayEquals(new int[] { 0, 1, 2, 0, 1, 2, 0 }, colorsOf(path, 7));
+        assertEquals(1, GraphAnalysis.distanceTwoColoring(new AdjacencyListGraph(5)).getColorCount());
+        assertEquals(6, GraphAnalysis.distanceTwoColoring(new CompleteGraph(6)).getColorCount());
+
+        Graph graph = new AdjacencyListGraph(500);
+        ErdosRenyiCreator.InitErdosRenyiGraph(graph, 1500, new Random(9));
+        Coloring coloring = GraphAnalysis.distanceTwoColoring(graph);
+        int classSizes = 0;
+        for (int c = 0; c < coloring.getColorCount(); c++) {
+            for (int i = 0; i < coloring.getClassSize(c); i++) {
+                assertEquals(c, coloring.getColor(coloring.getVertex(c, i)));
+            }
+            classSizes += coloring.getClassSize(c);
+        }
+        assertEquals(500, classSizes);
+        for (int v = 0; v < 500; v++) {
+            for (int neighbor : graph.getNeighbors(v)) {
+                assertNotEquals(coloring.getColor(v), coloring.getColor(neighbor));
+                for (int second : graph.getNeighbors(neighbor)) {
+                    if (second != v) {
+                        assertNotEquals(coloring.getColor(v), coloring.getColor(second));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] colorsOf(Coloring coloring, int n) {
+        int[] colors = new int[n];
+        for (int v = 0; v < n; v++) {
+            colors[v] = coloring.getColor(v);
+        }
+        return colors;
+    }
+
+}
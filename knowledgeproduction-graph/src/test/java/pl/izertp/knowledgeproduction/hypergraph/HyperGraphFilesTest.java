@@ -0,0 +1,69 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HyperGraphFilesTest {
+
+    private static final int SIZE = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndMap() throws IOException {
+        HyperGraph graph = new SparseHyperGraph(SIZE);
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 0, 3);
+        graph.addEdge(2, 3, 4);
+        graph.addEdge(0, 2, 4);
+
+        File file = folder.newFile("hypergraph.bin");
+        HyperGraphFiles.write(graph, file);
+        HyperGraph mapped = HyperGraphFiles.map(file);
+
+        assertEquals(SIZE, mapped.getSize());
+        assertArrayEquals(new Integer[] { 2, 3 }, mapped.toVertices(1, 0).toArray());
+        assertArrayEquals(new Integer[] { 4 }, mapped.toVertices(2, 3).toArray());
+        assertEquals(0, mapped.toVertices(5, 6).size());
+        assertEquals(2, mapped.getChildCount(0, 1));
+        assertEquals(3, mapped.getChild(1, 0, 1));
+        assertEquals(4, mapped.newChildCursor().reset(3, 2).next());
+        assertFalse(mapped.newChildCursor().reset(5, 6).hasNext());
+        assertTrue(mapped.getEdge(2, 0, 4));
+        assertFalse(mapped.getEdge(2, 0, 3));
+
+        List<Integer[]> parents = mapped.getParents(4);
+        assertEquals(2, parents.size());
+        assertArrayEquals(new Integer[] { 2, 3 }, parents.get(0));
+        assertArrayEquals(new Integer[] { 0, 2 }, parents.get(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        HyperGraph graph = new SparseHyperGraph(SIZE);
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(2, 3, 4);
+        File file = folder.newFile("truncated.bin");
+        HyperGraphFiles.write(graph, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(file.length() - 8);
+        } finally {
+            randomAccessFile.close();
+        }
+        HyperGraphFiles.map(file);
+    }
+
+}
@@ -0,0 +1,101 @@
+package pl.izertp.knowledgeproduction.hypergraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseHyperGraphTest {
+
+    private static final int Vfrom1 = 0;
+
+    private static final int Vfrom2 = 1;
+
+    private static final int Vto1 = 2;
+
+    private static final int Vto2 = 3;
+
+    private static final int SIZE = 10;
+
+    private HyperGraph graph;
+
+    @Before
+    public void setUpGraph() {
+        graph = new SparseHyperGraph(SIZE);
+    }
+
+    @Test
+    public void testAddEdge() {
+        assertFalse("Adding non-existent edge should return false", graph.addEdge(Vfrom1, Vfrom2, Vto1));
+        assertTrue("Adding existent edge should return true", graph.addEdge(Vfrom1, Vfrom2, Vto1));
+        assertTrue("Adding existent edge with swapped sources should return true", graph.addEdge(Vfrom2, Vfrom1, Vto1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdgeTheSameStart() {
+        graph.addEdge(Vfrom1, Vfrom1, Vto1);
+    }
+
+    @Test
+    public void testEdgeSymmetric() {
+        graph.addEdge(Vfrom1, Vfrom2, Vto1);
+        assertTrue("Edge should be present", graph.getEdge(Vfrom1, Vfrom2, Vto1));
+        assertTrue("Edges should be symmetric", graph.getEdge(Vfrom2, Vfrom1, Vto1));
+        assertFalse("Edge shouldn't be present", graph.getEdge(Vfrom1, Vto1, Vto2));
+    }
+
+    @Test
+    public void testToVertices() {
+        graph.addEdge(Vfrom1, Vfrom2, Vto1);
+        graph.addEdge(Vfrom1, Vfrom2, Vto2);
+        assertArrayEquals("Wrong destination vertices list", new Integer[] { Vto1, Vto2 }, graph.toVertices(Vfrom1, Vfrom2).toArray());
+        assertEquals("Pair without edges should have no destination vertices", 0, graph.toVertices(Vfrom1, Vto1).size());
+    }
+
+    @Test
+    public void testManyChildrenAndPairs() {
+        // children of interleaved pairs force relocation of slices inside the shared slab
+        for (int to = 2; to < SIZE; to++) {
+            graph.addEdge(0, 1, to);
+            graph.addEdge(1, to - 1 == 1 ? 0 : to - 1, to);
+        }
+        assertEquals(SIZE - 2, graph.toVertices(1, 0).size());
+        for (int to = 2; to < SIZE; to++) {
+            assertEquals(Integer.valueOf(to), graph.toVertices(0, 1).get(to - 2));
+        }
+    }
+
+    @Test
+    public void testParents() {
+        graph.addEdge(Vfrom1, Vfrom2, Vto2);
+        graph.addEdge(Vfrom1, Vto1, Vto2);
+        List<Integer[]> parents = graph.getParents(Vto2);
+        assertEquals(2, parents.size());
+        assertArrayEquals(new Integer[] { Vfrom1, Vfrom2 }, parents.get(0));
+        assertArrayEquals(new Integer[] { Vfrom1, Vto1 }, parents.get(1));
+        assertEquals(0, graph.getParents(Vfrom1).size());
+    }
+
+    @Test
+    public void testPrimitiveChildren() {
+        graph.addEdge(Vfrom1, Vfrom2, Vto1);
+        graph.addEdge(Vfrom2, Vfrom1, Vto2);
+        assertEquals(2, graph.getChildCount(Vfrom2, Vfrom1));
+        assertEquals(0, graph.getChildCount(Vfrom1, Vto1));
+        assertEquals(Vto2, graph.getChild(Vfrom1, Vfrom2, 1));
+        int[] children = new int[SIZE];
+        assertEquals(2, graph.copyChildren(Vfrom1, Vfrom2, children));
+        assertEquals(Vto1, children[0]);
+        ChildCursor cursor = graph.newChildCursor();
+        cursor.reset(Vfrom2, Vfrom1);
+        assertEquals(Vto1, cursor.next());
+        assertEquals(Vto2, cursor.next());
+        assertFalse(cursor.hasNext());
+        assertFalse(cursor.reset(Vto1, Vto2).hasNext());
+    }
+}